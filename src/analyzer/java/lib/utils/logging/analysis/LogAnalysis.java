@@ -0,0 +1,268 @@
+package lib.utils.logging.analysis;
+
+import lib.utils.logging.MappedLogReplaySource;
+import org.littletonrobotics.junction.LogTable;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The loop timing, CAN faults and arm move times of one logging session, read cycle by cycle through
+ * {@link MappedLogReplaySource}.
+ *
+ * Counters the robot code logs since it started, like the rate group overruns and config retries, are
+ * read from the last cycle. Counters the roboRIO keeps since it booted, like the CAN bus errors, are the
+ * difference between the first and last cycle.
+ */
+public final class LogAnalysis {
+    public static final double LOOP_PERIOD_MS = 20.0;
+
+    // AdvantageKit's own timing of the user code, with our cycle period as the fallback for older logs
+    private static final String USER_CODE_KEY = "RealOutputs/LoggedRobot/UserCodeMS";
+    private static final String CYCLE_PERIOD_KEY = "RealOutputs/RuntimeMonitor/CyclePeriodMS";
+    private static final String RATE_GROUPS_PREFIX = "RealOutputs/RateGroups/";
+    private static final String CAN_BUS = "SystemStats/CANBus/";
+    private static final String MOVES_KEY = "RealOutputs/SupersystemToPose/Moves";
+    private static final String MOVE_TIME_KEY = "RealOutputs/SupersystemToPose/LastMoveMS";
+    private static final String MOVE_INTERRUPTED_KEY = "RealOutputs/SupersystemToPose/LastMoveInterrupted";
+    private static final String FRAME_RESETS_KEY = "RealOutputs/CAN/FramePeriodResets";
+    private static final String LAST_RESET_ID_KEY = "RealOutputs/CAN/LastResetId";
+
+    private final String m_name;
+    private final int m_files;
+
+    private String m_event = "";
+    private long m_matchNumber = 0;
+    private double m_durationSecs = 0;
+    private long m_cycles = 0;
+
+    private double[] m_loopTimesMs = new double[4096];
+    private int m_loopTimeCount = 0;
+    private long m_loopOverruns = 0;
+    private long m_rateGroupOverruns = 0;
+
+    private double m_maxCanUtilization = 0;
+    private long m_canOffCount = 0;
+    private long m_canTxFullCount = 0;
+    private long m_canReceiveErrors = 0;
+    private long m_canTransmitErrors = 0;
+    private long m_configRetries = 0;
+    private long m_configFailures = 0;
+    private final List<String> m_frameResets = new ArrayList<>();
+
+    private final List<Double> m_moveTimesMs = new ArrayList<>();
+    private long m_interruptedMoves = 0;
+
+    private LogAnalysis(String name, int files) {
+        m_name = name;
+        m_files = files;
+    }
+
+    /**
+     * Reads every cycle of a session
+     */
+    public static LogAnalysis analyze(MappedLogReplaySource source) {
+        List<Path> files = source.getFiles();
+        LogAnalysis analysis = new LogAnalysis(files.get(0).getFileName().toString(), files.size());
+        LogTable table = new LogTable(0);
+        source.setReportProgress(false);
+        source.start();
+
+        long firstTimestamp = -1;
+        long[] firstCanCounts = null;
+        long lastMoves = 0;
+        long lastFrameResets = 0;
+        boolean more = true;
+        while (more) {
+            more = source.updateTable(table);
+            if (source.getRecordCount() == 0) {
+                // Not an AdvantageKit log
+                break;
+            }
+            long timestamp = table.getTimestamp();
+            if (firstTimestamp < 0) {
+                firstTimestamp = timestamp;
+                firstCanCounts = analysis.canCounts(table);
+            }
+            analysis.m_cycles++;
+            analysis.m_durationSecs = (timestamp - firstTimestamp) / 1.0e6;
+
+            double loopTimeMs = table.getDouble(USER_CODE_KEY, Double.NaN);
+            if (Double.isNaN(loopTimeMs)) {
+                loopTimeMs = table.getDouble(CYCLE_PERIOD_KEY, Double.NaN);
+            }
+            if (!Double.isNaN(loopTimeMs)) {
+                analysis.addLoopTime(loopTimeMs);
+            }
+
+            analysis.m_maxCanUtilization = Math.max(analysis.m_maxCanUtilization, table.getDouble(CAN_BUS + "Utilization", 0));
+
+            long frameResets = table.getInteger(FRAME_RESETS_KEY, 0);
+            if (frameResets != lastFrameResets) {
+                analysis.m_frameResets.add(String.format("%.1f s: Spark Max %d", analysis.m_durationSecs, table.getInteger(LAST_RESET_ID_KEY, 0)));
+                lastFrameResets = frameResets;
+            }
+
+            long moves = table.getInteger(MOVES_KEY, 0);
+            if (moves != lastMoves) {
+                if (table.getBoolean(MOVE_INTERRUPTED_KEY, false)) {
+                    analysis.m_interruptedMoves++;
+                } else {
+                    analysis.m_moveTimesMs.add(table.getDouble(MOVE_TIME_KEY, 0));
+                }
+                lastMoves = moves;
+            }
+        }
+        source.end();
+
+        if (firstCanCounts != null) {
+            long[] lastCanCounts = analysis.canCounts(table);
+            analysis.m_canOffCount = lastCanCounts[0] - firstCanCounts[0];
+            analysis.m_canTxFullCount = lastCanCounts[1] - firstCanCounts[1];
+            analysis.m_canReceiveErrors = lastCanCounts[2] - firstCanCounts[2];
+            analysis.m_canTransmitErrors = lastCanCounts[3] - firstCanCounts[3];
+        }
+        analysis.m_configRetries = table.getInteger("RealOutputs/CAN/ConfigRetries", 0);
+        analysis.m_configFailures = table.getInteger("RealOutputs/CAN/ConfigFailures", 0);
+        analysis.m_event = table.getString("DriverStation/EventName", "");
+        analysis.m_matchNumber = table.getInteger("DriverStation/MatchNumber", 0);
+        for (String key : table.getAll(true).keySet()) {
+            if (key.startsWith(RATE_GROUPS_PREFIX) && key.endsWith("/Overruns")) {
+                analysis.m_rateGroupOverruns += table.getInteger(key, 0);
+            }
+        }
+        analysis.m_loopTimesMs = Arrays.copyOf(analysis.m_loopTimesMs, analysis.m_loopTimeCount);
+        Arrays.sort(analysis.m_loopTimesMs);
+        return analysis;
+    }
+
+    private long[] canCounts(LogTable table) {
+        return new long[] {
+                table.getInteger(CAN_BUS + "OffCount", 0),
+                table.getInteger(CAN_BUS + "TxFullCount", 0),
+                table.getInteger(CAN_BUS + "ReceiveErrorCount", 0),
+                table.getInteger(CAN_BUS + "TransmitErrorCount", 0)
+        };
+    }
+
+    private void addLoopTime(double loopTimeMs) {
+        if (m_loopTimeCount == m_loopTimesMs.length) {
+            m_loopTimesMs = Arrays.copyOf(m_loopTimesMs, m_loopTimesMs.length * 2);
+        }
+        m_loopTimesMs[m_loopTimeCount++] = loopTimeMs;
+        if (loopTimeMs > LOOP_PERIOD_MS) {
+            m_loopOverruns++;
+        }
+    }
+
+    /**
+     * @param fraction from 0 to 1
+     * @return the loop time below which that fraction of cycles ran, 0 without any loop times
+     */
+    public double getLoopTimePercentileMs(double fraction) {
+        return percentile(m_loopTimesMs, fraction);
+    }
+
+    /**
+     * @param sorted values in ascending order
+     */
+    public static double percentile(double[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public String getName() {
+        return m_name;
+    }
+
+    public int getFiles() {
+        return m_files;
+    }
+
+    public String getEvent() {
+        return m_event;
+    }
+
+    public long getMatchNumber() {
+        return m_matchNumber;
+    }
+
+    public double getDurationSecs() {
+        return m_durationSecs;
+    }
+
+    public long getCycles() {
+        return m_cycles;
+    }
+
+    public double getMeanLoopTimeMs() {
+        double sum = 0;
+        for (double loopTime : m_loopTimesMs) {
+            sum += loopTime;
+        }
+        return m_loopTimesMs.length > 0 ? sum / m_loopTimesMs.length : 0;
+    }
+
+    public double getMaxLoopTimeMs() {
+        return m_loopTimesMs.length > 0 ? m_loopTimesMs[m_loopTimesMs.length - 1] : 0;
+    }
+
+    public long getLoopOverruns() {
+        return m_loopOverruns;
+    }
+
+    public long getRateGroupOverruns() {
+        return m_rateGroupOverruns;
+    }
+
+    public double getMaxCanUtilization() {
+        return m_maxCanUtilization;
+    }
+
+    public long getCanOffCount() {
+        return m_canOffCount;
+    }
+
+    public long getCanTxFullCount() {
+        return m_canTxFullCount;
+    }
+
+    public long getCanReceiveErrors() {
+        return m_canReceiveErrors;
+    }
+
+    public long getCanTransmitErrors() {
+        return m_canTransmitErrors;
+    }
+
+    public long getConfigRetries() {
+        return m_configRetries;
+    }
+
+    public long getConfigFailures() {
+        return m_configFailures;
+    }
+
+    /**
+     * @return when each Spark Max reset was found and which one it was
+     */
+    public List<String> getFrameResets() {
+        return m_frameResets;
+    }
+
+    /**
+     * @return the time of every arm move that reached its setpoint
+     */
+    public List<Double> getMoveTimesMs() {
+        return m_moveTimesMs;
+    }
+
+    public long getInterruptedMoves() {
+        return m_interruptedMoves;
+    }
+}
@@ -0,0 +1,189 @@
+package lib.utils.logging.analysis;
+
+import lib.utils.logging.MappedLogReplaySource;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Analyzes a folder of logs from an event, one session per core, and writes a CSV with a row per session
+ * and a summary of the trends across them. Run it with ./gradlew analyzeLogs -Plogs=&lt;folder or file&gt;
+ *
+ * Usage: LogAnalyzer [--out &lt;folder&gt;] &lt;folder or .wpilog&gt;...
+ *
+ * The segments TieredLogWriter splits a session into are analyzed together, and the "_sim" logs written
+ * by a replay are skipped.
+ */
+public final class LogAnalyzer {
+    private static final String CSV_FILE = "log-analysis.csv";
+    private static final String SUMMARY_FILE = "log-analysis.txt";
+
+    private LogAnalyzer() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path out = Paths.get("log-analysis");
+        List<Path> logs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--out") && i + 1 < args.length) {
+                out = Paths.get(args[++i]);
+            } else {
+                addLogs(Paths.get(args[i]), logs);
+            }
+        }
+        if (logs.isEmpty()) {
+            System.err.println("Usage: LogAnalyzer [--out <folder>] <folder or .wpilog>...");
+            System.exit(1);
+        }
+
+        List<MappedLogReplaySource> sessions = sessions(logs);
+        int threads = Math.min(sessions.size(), Runtime.getRuntime().availableProcessors());
+        System.out.printf("Analyzing %d sessions from %d logs on %d threads%n", sessions.size(), logs.size(), threads);
+
+        long startNanos = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<LogAnalysis>> futures = new ArrayList<>();
+        for (MappedLogReplaySource session : sessions) {
+            futures.add(executor.submit(() -> LogAnalysis.analyze(session)));
+        }
+        List<LogAnalysis> analyses = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                analyses.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                System.err.println("Couldn't analyze " + sessions.get(i).getFiles() + ": " + e.getCause());
+            }
+        }
+        executor.shutdown();
+        double secs = (System.nanoTime() - startNanos) / 1.0e9;
+
+        Files.createDirectories(out);
+        Files.writeString(out.resolve(CSV_FILE), csv(analyses));
+        String summary = summary(analyses, secs);
+        Files.writeString(out.resolve(SUMMARY_FILE), summary);
+        System.out.print(summary);
+        System.out.println("Wrote " + out.resolve(CSV_FILE).toAbsolutePath() + " and " + SUMMARY_FILE);
+    }
+
+    private static void addLogs(Path path, List<Path> logs) throws IOException {
+        if (!Files.isDirectory(path)) {
+            logs.add(path.toAbsolutePath());
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "*.wpilog")) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().endsWith("_sim.wpilog")) {
+                    logs.add(file.toAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups the logs into sessions, in name order, which is the order they were written in
+     */
+    private static List<MappedLogReplaySource> sessions(List<Path> logs) {
+        logs.sort(null);
+        Set<Path> covered = new HashSet<>();
+        List<MappedLogReplaySource> sessions = new ArrayList<>();
+        for (Path log : logs) {
+            if (covered.contains(log)) {
+                continue;
+            }
+            MappedLogReplaySource session = MappedLogReplaySource.forSession(log.toString());
+            covered.addAll(session.getFiles());
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    private static String csv(List<LogAnalysis> analyses) {
+        StringBuilder csv = new StringBuilder();
+        csv.append("session,files,event,match,duration_s,cycles,loop_mean_ms,loop_p50_ms,loop_p95_ms,loop_p99_ms,"
+                + "loop_max_ms,loop_overruns,rate_group_overruns,can_max_utilization,can_off,can_tx_full,"
+                + "can_rx_errors,can_tx_errors,config_retries,config_failures,frame_period_resets,"
+                + "arm_moves,arm_moves_interrupted,arm_move_p50_ms,arm_move_max_ms\n");
+        for (LogAnalysis analysis : analyses) {
+            double[] moves = sortedMoveTimes(List.of(analysis));
+            csv.append(String.format(Locale.ROOT,
+                    "%s,%d,%s,%d,%.1f,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d,%.3f,%d,%d,%d,%d,%d,%d,%d,%d,%d,%.0f,%.0f%n",
+                    analysis.getName(), analysis.getFiles(), analysis.getEvent().replace(',', ' '),
+                    analysis.getMatchNumber(), analysis.getDurationSecs(), analysis.getCycles(),
+                    analysis.getMeanLoopTimeMs(), analysis.getLoopTimePercentileMs(0.5),
+                    analysis.getLoopTimePercentileMs(0.95), analysis.getLoopTimePercentileMs(0.99),
+                    analysis.getMaxLoopTimeMs(), analysis.getLoopOverruns(), analysis.getRateGroupOverruns(),
+                    analysis.getMaxCanUtilization(), analysis.getCanOffCount(), analysis.getCanTxFullCount(),
+                    analysis.getCanReceiveErrors(), analysis.getCanTransmitErrors(), analysis.getConfigRetries(),
+                    analysis.getConfigFailures(), analysis.getFrameResets().size(), moves.length,
+                    analysis.getInterruptedMoves(), LogAnalysis.percentile(moves, 0.5),
+                    LogAnalysis.percentile(moves, 1.0)));
+        }
+        return csv.toString();
+    }
+
+    private static String summary(List<LogAnalysis> analyses, double secs) {
+        StringWriter text = new StringWriter();
+        PrintWriter summary = new PrintWriter(text);
+        long cycles = 0;
+        long overruns = 0;
+        long resets = 0;
+        long retries = 0;
+        for (LogAnalysis analysis : analyses) {
+            cycles += analysis.getCycles();
+            overruns += analysis.getLoopOverruns();
+            resets += analysis.getFrameResets().size();
+            retries += analysis.getConfigRetries();
+        }
+        summary.printf(Locale.ROOT, "%d sessions, %d cycles analyzed in %.1f s%n", analyses.size(), cycles, secs);
+        summary.printf(Locale.ROOT, "Loop overruns: %d (%.2f%% of cycles)%n", overruns, cycles > 0 ? 100.0 * overruns / cycles : 0);
+        summary.printf("Spark Max resets: %d, config retries: %d%n", resets, retries);
+
+        double[] moves = sortedMoveTimes(analyses);
+        summary.printf(Locale.ROOT, "Arm moves to setpoint: %d, p50 %.0f ms, p90 %.0f ms, max %.0f ms%n", moves.length,
+                LogAnalysis.percentile(moves, 0.5), LogAnalysis.percentile(moves, 0.9), LogAnalysis.percentile(moves, 1.0));
+
+        summary.println();
+        summary.println("By session, in the order they were logged:");
+        summary.printf("  %-40s %6s %9s %9s %9s %8s %7s %9s%n",
+                "session", "match", "p99 ms", "max ms", "overruns", "CAN max", "resets", "move p50");
+        for (LogAnalysis analysis : analyses) {
+            double[] sessionMoves = sortedMoveTimes(List.of(analysis));
+            summary.printf(Locale.ROOT, "  %-40s %6d %9.2f %9.2f %9d %8.2f %7d %9.0f%n",
+                    analysis.getName(), analysis.getMatchNumber(), analysis.getLoopTimePercentileMs(0.99),
+                    analysis.getMaxLoopTimeMs(), analysis.getLoopOverruns(), analysis.getMaxCanUtilization(),
+                    analysis.getFrameResets().size(), LogAnalysis.percentile(sessionMoves, 0.5));
+        }
+
+        for (LogAnalysis analysis : analyses) {
+            if (!analysis.getFrameResets().isEmpty() || analysis.getConfigFailures() > 0) {
+                summary.println();
+                summary.println(analysis.getName() + ": " + analysis.getConfigFailures() + " config failures");
+                analysis.getFrameResets().forEach(reset -> summary.println("  reset at " + reset));
+            }
+        }
+        summary.flush();
+        return text.toString();
+    }
+
+    private static double[] sortedMoveTimes(List<LogAnalysis> analyses) {
+        return analyses.stream()
+                .flatMap(analysis -> analysis.getMoveTimesMs().stream())
+                .mapToDouble(Double::doubleValue)
+                .sorted()
+                .toArray();
+    }
+}
@@ -5,7 +5,6 @@
 package frc.robot;
 
 import com.ctre.phoenixpro.signals.InvertedValue;
-import com.gos.lib.properties.GosDoubleProperty;
 import com.pathplanner.lib.auto.PIDConstants;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
@@ -21,6 +20,7 @@ import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
 import frc.robot.supersystems.ArmLimits;
 import frc.robot.supersystems.ArmPose;
+import lib.utils.logging.LoggedTunableNumber;
 import lib.utils.piecewise.PiecewiseInterval;
 import lib.utils.piecewise.Range;
 import lib.utils.piecewise.RangedPiecewise;
@@ -38,7 +38,13 @@ import java.util.List;
  */
 public final class Constants {
 
-    public static final Mode CURRENT_MODE = Mode.HELIOS_V1;
+    // -Dhelios.mode=REPLAY replays a log, see Robot
+    public static final Mode CURRENT_MODE = Mode.valueOf(System.getProperty("helios.mode", Mode.HELIOS_V1.name()));
+    // The robot whose hardware and tuning are used. When replaying, the robot the log came from, set with
+    // -Dhelios.replayRobot
+    public static final Mode ROBOT = CURRENT_MODE == Mode.REPLAY
+            ? Mode.valueOf(System.getProperty("helios.replayRobot", Mode.HELIOS_V1.name()))
+            : CURRENT_MODE;
 
     /*Constants for physical aspects of the modules, plus PID loops constants*/
     public static final class ModuleConstants {
@@ -64,7 +70,7 @@ public final class Constants {
         public static final double MODULE_DRIVE_KP = 0.5;
 
         public static final double MAX_SPEED_L2_MPS = 3.657;
-        public static final GosDoubleProperty MAX_SPEED_FPS = new GosDoubleProperty(false, "Max Drive Speed", 17);
+        public static final LoggedTunableNumber MAX_SPEED_FPS = new LoggedTunableNumber(false, "Max Drive Speed", 17);
         public static final double MAX_SPEED_L3_MPS = Units.feetToMeters(12);// Units.feetToMeters(MAX_SPEED_FPS.getValue());
 
 
@@ -120,10 +126,10 @@ public final class Constants {
                 new Rotation3d(Units.degreesToRadians(-2.2), 0.0, 0.0));
         public static final String LEFT_CAM_NAME = "LeftWebCam";
 
-        public static final GosDoubleProperty CAM_AMBIGUITY_THRESHOLD
-                = new GosDoubleProperty(false, "Camera ambiguity threshold", 0.2);
-        public static final GosDoubleProperty CAM_DISTANCE_THRESHOLD
-                = new GosDoubleProperty(false, "Camera distance threshold", 4);
+        public static final LoggedTunableNumber CAM_AMBIGUITY_THRESHOLD
+                = new LoggedTunableNumber(false, "Camera ambiguity threshold", 0.2);
+        public static final LoggedTunableNumber CAM_DISTANCE_THRESHOLD
+                = new LoggedTunableNumber(false, "Camera distance threshold", 4);
 
         public static final String LEFT_GLOBAL_CAM = "LeftGlobalCam";
         public static final String RIGHT_GLOBAL_CAM = "RightGlobalCam";
@@ -270,14 +276,14 @@ public final class Constants {
         public static final int ARM_ANGLE_ID_FOLLOWER = 17;
         public static final int LIMIT_SWITCH_PORT = 3;
 
-        public static final double KP_ANGLE = CURRENT_MODE == Mode.HELIOS_V1 ? 0.53 : 0.227;
+        public static final double KP_ANGLE = ROBOT == Mode.HELIOS_V1 ? 0.53 : 0.227;
         public static final double KI_ANGLE = 0.0007;
         public static final double KD_ANGLE = 0.08;
 
         // Pid constants
-        public static final GosDoubleProperty ARM_EXT_KP = new GosDoubleProperty(true, "Arm extension kP", 0.5);
-        public static final GosDoubleProperty ARM_EXT_KI = new GosDoubleProperty(false, "Arm extension kI", 0);
-        public static final GosDoubleProperty ARM_EXT_KD = new GosDoubleProperty(false, "Arm extension kD", 0);
+        public static final LoggedTunableNumber ARM_EXT_KP = new LoggedTunableNumber(true, "Arm extension kP", 0.5);
+        public static final LoggedTunableNumber ARM_EXT_KI = new LoggedTunableNumber(false, "Arm extension kI", 0);
+        public static final LoggedTunableNumber ARM_EXT_KD = new LoggedTunableNumber(false, "Arm extension kD", 0);
 
         // Feedforward constants
         public static final double ARM_KV = 0.05;
@@ -285,7 +291,7 @@ public final class Constants {
         public static final double ARM_KG = 0.17;
 
         // offset for the absolute value sensor
-        public static final double ARM_OFFSET = CURRENT_MODE == Mode.HELIOS_V1 ? 280.0 : 294;
+        public static final double ARM_OFFSET = ROBOT == Mode.HELIOS_V1 ? 280.0 : 294;
 
         public static final int ENCODER_PORT = 4;
 
@@ -293,7 +299,7 @@ public final class Constants {
         public static final double SPROCKET_DIAMETER = 1.99;
         public static final double EXTENSION_RATIO = 0.3532;
 
-        public static final double PIVOT_HEIGHT = CURRENT_MODE == Mode.HELIOS_V1 ? 33.0 : 33.0;
+        public static final double PIVOT_HEIGHT = ROBOT == Mode.HELIOS_V1 ? 33.0 : 33.0;
 
 
         public static final double EXT_PID_TOLERANCE = 1.0;
@@ -310,44 +316,44 @@ public final class Constants {
         }
 
         // Arm Extension limits for Piecewise Function
-        public static final GosDoubleProperty ARM_EXT_STOW =
-                new GosDoubleProperty(false, "Arm Extension Stow Limit", 0.0);
-        public static final GosDoubleProperty ARM_EXT_SCORE_LOWER =
-                new GosDoubleProperty(false, "Arm Extension Score Lower Limit", 0);
-        public static final GosDoubleProperty ARM_EXT_SCORE_UPPER =
-                new GosDoubleProperty(true, "Arm Extension Score Upper Limit", 15 * 1.4);
+        public static final LoggedTunableNumber ARM_EXT_STOW =
+                new LoggedTunableNumber(false, "Arm Extension Stow Limit", 0.0);
+        public static final LoggedTunableNumber ARM_EXT_SCORE_LOWER =
+                new LoggedTunableNumber(false, "Arm Extension Score Lower Limit", 0);
+        public static final LoggedTunableNumber ARM_EXT_SCORE_UPPER =
+                new LoggedTunableNumber(true, "Arm Extension Score Upper Limit", 15 * 1.4);
 
         // Arm Angle limits for Piecewise Function
-        public static final GosDoubleProperty ARM_ANGLE_LOWER =
-                new GosDoubleProperty(true, "Arm Angle Lower Limit", 40);
-        public static final GosDoubleProperty ARM_ANGLE_UPPER =
-                new GosDoubleProperty(false, "Arm Angle Upper Limit", 325);
+        public static final LoggedTunableNumber ARM_ANGLE_LOWER =
+                new LoggedTunableNumber(true, "Arm Angle Lower Limit", 40);
+        public static final LoggedTunableNumber ARM_ANGLE_UPPER =
+                new LoggedTunableNumber(false, "Arm Angle Upper Limit", 325);
 
         // Wrist limits for Piecewise Function
-        public static final GosDoubleProperty WRIST_STOW =
-                new GosDoubleProperty(false, "Wrist Stow Limit", 1);
-        public static final GosDoubleProperty WRIST_SCORE_LOWER =
-                new GosDoubleProperty(false, "Wrist Score Lower Limit", 0);
-        public static final GosDoubleProperty WRIST_SCORE_UPPER =
-                new GosDoubleProperty(true, "Wrist Score Upper Limit", 130);
+        public static final LoggedTunableNumber WRIST_STOW =
+                new LoggedTunableNumber(false, "Wrist Stow Limit", 1);
+        public static final LoggedTunableNumber WRIST_SCORE_LOWER =
+                new LoggedTunableNumber(false, "Wrist Score Lower Limit", 0);
+        public static final LoggedTunableNumber WRIST_SCORE_UPPER =
+                new LoggedTunableNumber(true, "Wrist Score Upper Limit", 130);
 
         //Arm angle zones for piecewise intervals
-        public static final GosDoubleProperty STOW_ZONE =
-                new GosDoubleProperty(false, "Stow Zone Lower Bound", 45);
-        public static final GosDoubleProperty INTAKE_ZONE =
-                new GosDoubleProperty(true, "Intake Zone Lower Bound", 50);
-        public static final GosDoubleProperty INTAKE_ZONE_UPPER =
-                new GosDoubleProperty(true, "Intake Upper Bound", 65);
-        public static final GosDoubleProperty SCORE_ZONE =
-                new GosDoubleProperty(true, "Score Zone Lower Bound", 180);
+        public static final LoggedTunableNumber STOW_ZONE =
+                new LoggedTunableNumber(false, "Stow Zone Lower Bound", 45);
+        public static final LoggedTunableNumber INTAKE_ZONE =
+                new LoggedTunableNumber(true, "Intake Zone Lower Bound", 50);
+        public static final LoggedTunableNumber INTAKE_ZONE_UPPER =
+                new LoggedTunableNumber(true, "Intake Upper Bound", 65);
+        public static final LoggedTunableNumber SCORE_ZONE =
+                new LoggedTunableNumber(true, "Score Zone Lower Bound", 180);
 
         // Worry about ground at angle 302
-        public static final GosDoubleProperty GROUND_ZONE =
-                new GosDoubleProperty(false,"Ground Zone Lower Bound", 280);
+        public static final LoggedTunableNumber GROUND_ZONE =
+                new LoggedTunableNumber(false,"Ground Zone Lower Bound", 280);
 
         // Actual max limit is 324
-        public static final GosDoubleProperty MAX_MOVEMENT =
-                new GosDoubleProperty(false, "Max Movement Bound", 325);
+        public static final LoggedTunableNumber MAX_MOVEMENT =
+                new LoggedTunableNumber(false, "Max Movement Bound", 325);
 
         // ArmLimit objects kept as constants
         public static final ArmLimits STOW_LIMIT = new ArmLimits(
@@ -391,8 +397,8 @@ public final class Constants {
                 false
         );
 
-        public static final GosDoubleProperty SPEED_LIMIT_RAMP = new GosDoubleProperty(false, "Speed Limit Ramp", 3.5);
-        public static final GosDoubleProperty SPEED_LIMIT_CAP = new GosDoubleProperty(false, "Speed Limit Cap", 0.5);
+        public static final LoggedTunableNumber SPEED_LIMIT_RAMP = new LoggedTunableNumber(false, "Speed Limit Ramp", 3.5);
+        public static final LoggedTunableNumber SPEED_LIMIT_CAP = new LoggedTunableNumber(false, "Speed Limit Cap", 0.5);
 
         private static final PiecewiseInterval<Double> BACK_SPEED = new PiecewiseInterval<>(
                 BACK_RANGE,
@@ -426,8 +432,8 @@ public final class Constants {
         }
 
         // Setpoints that are able to be adjusted mid match
-        public static final GosDoubleProperty HUMAN_HEIGHT = new GosDoubleProperty(false, "HUMAN HIEGHT", 233.6);
-        public static final GosDoubleProperty HUMAN_WRIST = new GosDoubleProperty(false, "HUMAN WRIST", 78.0);
+        public static final LoggedTunableNumber HUMAN_HEIGHT = new LoggedTunableNumber(false, "HUMAN HIEGHT", 233.6);
+        public static final LoggedTunableNumber HUMAN_WRIST = new LoggedTunableNumber(false, "HUMAN WRIST", 78.0);
 
         public static final ArmPose STOW_POSITION = new ArmPose(0.0, 40, 0.0);
         public static final ArmPose VERT_STOW_POSE = new ArmPose(0.0, 180, 0.0);
@@ -8,18 +8,47 @@ import com.pathplanner.lib.PathConstraints;
 import com.pathplanner.lib.PathPlanner;
 import com.pathplanner.lib.PathPlannerTrajectory;
 import edu.wpi.first.wpilibj.PowerDistribution;
-import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.commands.autonomous.AutoWarmup;
 import lib.factories.SparkMaxFactory;
+import lib.utils.Rev.SparkMaxWrapper;
+import lib.utils.drivers.RevUtil;
+import lib.utils.drivers.SparkMaxHealthDaemon;
+import lib.utils.drivers.CanBusBudget;
+import lib.utils.drivers.TalonFXProEnhanced;
+import lib.utils.logging.DecimatingLogReceiver;
+import lib.utils.logging.DecimationPolicy;
+import lib.utils.logging.LoggedTunableNumber;
+import lib.utils.logging.MappedLogReplaySource;
+import lib.utils.logging.ReplayVerifier;
+import lib.utils.logging.TieredLogWriter;
+import lib.utils.profiling.JitWarmup;
+import lib.utils.profiling.LoopProfiler;
+import lib.utils.profiling.RuntimeMonitor;
+import lib.utils.profiling.StartupTracer;
+import lib.utils.profiling.jfr.FlightRecorderControl;
+import lib.utils.scheduling.DeferredWorkQueue;
+import lib.utils.scheduling.RateGroup;
+import lib.utils.scheduling.RateGroupScheduler;
+import lib.utils.telemetry.BudgetedLogReceiver;
+import lib.utils.telemetry.DashboardPublisher;
+import lib.utils.telemetry.DashboardThread;
+import lib.utils.telemetry.Telemetry;
+import lib.utils.telemetry.TelemetryBudget;
+import lib.utils.telemetry.ThrottledField2d;
 import org.littletonrobotics.junction.*;
 import org.littletonrobotics.junction.networktables.NT4Publisher;
 import org.littletonrobotics.junction.wpilog.WPILOGReader;
 import org.littletonrobotics.junction.wpilog.WPILOGWriter;
 
 import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
  * each mode, as described in the TimedRobot documentation. If you change the name of this class or
@@ -27,31 +56,66 @@ import edu.wpi.first.wpilibj2.command.CommandScheduler;
  * project.
  */
 public class Robot extends LoggedRobot {
+  private static final String LOG_DIRECTORY = "/media/sda1/helios";
+  // The roboRIO mounts /tmp as a tmpfs, so the log is written to RAM before it is copied to the stick
+  private static final String RAM_LOG_DIRECTORY = "/tmp/helios";
+  // Decimated outputs are still written every cycle in autonomous
+  private static final boolean LOG_FULL_RATE_IN_AUTO = true;
+  // -Dhelios.replay.wpilogReader=true replays through AdvantageKit's own reader instead of the mapped one
+  private static final boolean WPILOG_READER_REPLAY = Boolean.getBoolean("helios.replay.wpilogReader");
+  // Outputs thinned out in the log file, see DecimationPolicy
+  private static final Map<String, DecimationPolicy> LOG_DECIMATION = Map.of(
+      "Robot Pose", DecimationPolicy.onChange(0.01),
+      "Swerve/OdometrySamples", DecimationPolicy.minMax(50),
+      "RuntimeMonitor/CyclePeriodMS", DecimationPolicy.minMax(50),
+      "RuntimeMonitor/GCTimeThisCycleMS", DecimationPolicy.minMax(50),
+      "RuntimeMonitor/AllocatedBytesThisCycle", DecimationPolicy.minMax(50),
+      "RuntimeMonitor/AllocationRateMBPerSec", DecimationPolicy.minMax(50),
+      "RuntimeMonitor/HeapUsedMB", DecimationPolicy.onChange(1),
+      "RuntimeMonitor/HeapCommittedMB", DecimationPolicy.onChange(1));
+  // Outputs that measure the machine the code runs on rather than the robot, so a replay never matches them
+  private static final List<String> NONDETERMINISTIC_OUTPUTS = List.of(
+      "RuntimeMonitor", "Profiler", "DeferredWork", "DashboardThread", "DashboardPublisher", "TelemetryBudget",
+      "Log", "Startup", "Warmup", "Telemetry", "RateGroups", "CAN");
+  // Set by the class data sharing tasks in build.gradle, which run the simulation for a fixed time
+  private static final double TRAINING_RUN_SECS = Double.parseDouble(System.getProperty("helios.trainingRunSecs", "0"));
+
   private Command m_autonomousCommand;
   private RobotContainer m_robotContainer;
   private PowerDistribution m_pdh;
+  private LoopProfiler m_profiler;
+  private RuntimeMonitor m_runtimeMonitor;
+  private FlightRecorderControl m_flightRecorder;
+  private RateGroupScheduler m_rateGroups;
+  private DeferredWorkQueue m_deferredWork;
+  private JitWarmup m_warmup;
+  private TieredLogWriter m_logWriter;
 
-
-  private Timer m_timer;
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
    */
   @Override
   public void robotInit() {
+    StartupTracer.begin("robotInit");
 
     //Base code written from the AdvantageKit logging framework (6328 Mechanical Advantage)
     //Sets up a base logger for non-subsystem inputs
 
-    PathPlannerTrajectory traj = PathPlanner.loadPath("Mobility Right", new PathConstraints(1.0, 1.0));
-    PathPlannerTrajectory ftraj = lib.utils.PathPlannerFlipper.flipTrajectory(traj);
+    if (Telemetry.DEBUG) {
+      StartupTracer.begin("Path Preview");
+      PathPlannerTrajectory traj = PathPlanner.loadPath("Mobility Right", new PathConstraints(1.0, 1.0));
+      PathPlannerTrajectory ftraj = lib.utils.PathPlannerFlipper.flipTrajectory(traj);
 
-    Field2d ffield = new Field2d();
-    ffield.getObject("Traj").setTrajectory(traj);
-    ffield.getObject("FTraj").setTrajectory(ftraj);
+      ThrottledField2d ffield = new ThrottledField2d("Field2d/Preview", 1, 0.02, 1.0);
+      ffield.setTrajectory("Traj", traj);
+      ffield.setTrajectory("FTraj", ftraj);
 
-    SmartDashboard.putData("FLIP FIELD", ffield);
+      SmartDashboard.putData("FLIP FIELD", ffield.getField());
+      StartupTracer.end();
+    }
 
+    StartupTracer.begin("Logger Start");
     Logger logger = Logger.getInstance();
     m_pdh = new PowerDistribution(1, PowerDistribution.ModuleType.kRev);
     m_pdh.setSwitchableChannel(false);
@@ -62,8 +126,15 @@ public class Robot extends LoggedRobot {
       case HELIOS_V2:
       case SIM:
       case HELIOS_V1:
-      logger.addDataReceiver(new WPILOGWriter("/media/sda1/helios"));
-      logger.addDataReceiver(new NT4Publisher());
+      m_logWriter = new TieredLogWriter(RAM_LOG_DIRECTORY, LOG_DIRECTORY);
+      DecimatingLogReceiver decimatingReceiver = new DecimatingLogReceiver(m_logWriter)
+          .setFullRateInAuto(LOG_FULL_RATE_IN_AUTO);
+      LOG_DECIMATION.forEach(decimatingReceiver::add);
+      logger.addDataReceiver(decimatingReceiver);
+      // The NetworkTables mirror of every logged field, which gives way to match critical telemetry
+      // when the radio bandwidth runs short
+      logger.addDataReceiver(new BudgetedLogReceiver(new NT4Publisher(),
+          TelemetryBudget.getInstance().group("AdvantageKit", TelemetryBudget.Priority.NORMAL, 10)));
       break;
 
       // Running a physics simulator, log to local folder
@@ -73,21 +144,76 @@ public class Robot extends LoggedRobot {
       // Replaying a log, set up replay source
       case REPLAY:
         setUseTiming(false); // Run as fast as possible
-        String logPath = LogFileUtil.findReplayLog();
-        logger.setReplaySource(new WPILOGReader(logPath));
+        String logPath = System.getProperty("helios.replay.log");
+        if (logPath == null) {
+          logPath = LogFileUtil.findReplayLog();
+        }
+        logger.setReplaySource(WPILOG_READER_REPLAY
+            ? new WPILOGReader(logPath)
+            : MappedLogReplaySource.forSession(logPath));
         logger.addDataReceiver(new WPILOGWriter(LogFileUtil.addPathSuffix(logPath, "_sim")));
+        // Checks every replayed output against the logged one, decimated outputs weren't logged every cycle
+        ReplayVerifier verifier = new ReplayVerifier();
+        LOG_DECIMATION.keySet().forEach(verifier::ignore);
+        NONDETERMINISTIC_OUTPUTS.forEach(verifier::ignore);
+        logger.addDataReceiver(verifier);
         break;
     }
 
     // Start AdvantageKit logger
     logger.start();
+    logger.recordOutput("Telemetry/Level", Telemetry.LEVEL.name());
+    StartupTracer.end();
+    m_runtimeMonitor = new RuntimeMonitor(LoggedRobot.defaultPeriodSecs);
+    m_flightRecorder = new FlightRecorderControl(LOG_DIRECTORY);
 
     Timer.delay(0.05);
-    m_timer = new Timer();
 
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
+    StartupTracer.begin("RobotContainer");
     m_robotContainer = new RobotContainer();
+    StartupTracer.end();
+    // Every device has set its status frames by now
+    CanBusBudget.getInstance().check();
+
+    // Hooked after the button bindings so the profiler's marker binding is polled last
+    m_profiler = LoopProfiler.getInstance();
+    m_profiler.install();
+
+    m_rateGroups = RateGroupScheduler.getInstance();
+    m_rateGroups.addTask(RateGroup.SLOW_1S, SparkMaxHealthDaemon.getInstance()::logMetrics);
+    m_rateGroups.addTask(RateGroup.SLOW_1S, RevUtil::logMetrics);
+    m_rateGroups.addTask(RateGroup.SLOW_1S, SparkMaxWrapper::logMetrics);
+    m_rateGroups.addTask(RateGroup.SLOW_1S, TalonFXProEnhanced::logMetrics);
+    m_rateGroups.addTask(RateGroup.SLOW_1S, CanBusBudget.getInstance()::logMetrics);
+    // NetworkTables only sends to the dashboard every 100 ms anyway
+    DashboardPublisher.getInstance().start(RateGroup.SLOW_100MS);
+    // Shuffleboard tabs are written from their own thread from snapshots taken in the 100 ms group
+    DashboardThread.getInstance().start();
+    TelemetryBudget.getInstance().start();
+    if (m_logWriter != null) {
+      m_rateGroups.addTask(RateGroup.SLOW_1S, m_logWriter::logMetrics);
+    }
+    // Nothing in the fast groups should read hardware while replaying a log
+    if (Constants.CURRENT_MODE != Constants.Mode.REPLAY) {
+      m_rateGroups.start();
+      // Checks from its own thread whether any Spark Maxes have rebooted or browned out, and reruns
+      // their configuration to stop the CAN bus from overflowing
+      SparkMaxHealthDaemon.getInstance().start();
+    }
+
+    // Up to 2 ms of housekeeping per cycle, keeping the last 6 ms of the period free for logging
+    m_deferredWork = DeferredWorkQueue.getInstance();
+    m_deferredWork.setBudget(0.002, 0.006);
+
+    StartupTracer.begin("JIT Warmup");
+    m_warmup = new JitWarmup();
+    AutoWarmup.register(m_warmup);
+    StartupTracer.end();
+
+    StartupTracer.end();
+    StartupTracer.finish();
   }
 
   /**
@@ -99,34 +225,50 @@ public class Robot extends LoggedRobot {
    */
   @Override
   public void robotPeriodic() {
+    long cycleStartNanos = System.nanoTime();
+
     // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    m_profiler.startCycle();
+    // Before anything reads a tunable, so a replay uses the values from the log
+    LoggedTunableNumber.updateAll();
     CommandScheduler.getInstance().run();
+    m_profiler.endCycle();
 
-    // Checks every 100 milliseconds (roughly 10 robot cycles) to see if any Spark Maxes have rebooted
-    // if one has it will then rerun CAN ID configurations on it to stop CAN bus from overflowing
-    if (m_timer.get() >= 5.0) {
-      SparkMaxFactory.Companion.updateCanFramePeriods();
-      m_timer.reset();
-    }
+    m_rateGroups.runMainThreadGroups();
+    m_rateGroups.logMetrics();
+
+    // Housekeeping only gets whatever time is left this cycle
+    m_deferredWork.runSlack(cycleStartNanos);
 
     // For testing purposes
 //    m_robotContainer.getArmSupersystem().calculateArmAngleLimit(20);
 //    m_robotContainer.getArmSupersystem().getDriveSpeed();
 
+    m_flightRecorder.periodic();
+
+    // Last so GC pauses anywhere in the cycle are caught
+    m_runtimeMonitor.update();
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
   @Override
   public void disabledInit() {
     m_pdh.setSwitchableChannel(false);
+    SparkMaxFactory.Companion.setFrameProfile(SparkMaxFactory.FrameProfile.DISABLED);
+    m_profiler.logSummary();
+    // Get the match onto the stick while nothing else is going on
+    if (m_logWriter != null) {
+      m_logWriter.flush();
+    }
   }
 
   @Override
   public void disabledPeriodic() {
-    // We don't have any periodic code
+    // Compile the autonomous code before it is needed. Only runs while disabled and never touches hardware.
+    m_warmup.runDisabled(0.008);
   }
 
   /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
@@ -135,6 +277,7 @@ public class Robot extends LoggedRobot {
     m_autonomousCommand = m_robotContainer.getAutonomousCommand();
 
     m_pdh.setSwitchableChannel(true);
+    SparkMaxFactory.Companion.setFrameProfile(SparkMaxFactory.FrameProfile.AUTO);
 
     // schedule the autonomous command (example)
     if (m_autonomousCommand != null) {
@@ -160,7 +303,8 @@ public class Robot extends LoggedRobot {
       m_autonomousCommand.cancel();
     }
 
-    SparkMaxFactory.Companion.rerunConfigs();
+    // Only the frame periods, the health daemon sends the rest of the config to a spark that reset
+    SparkMaxFactory.Companion.setFrameProfile(SparkMaxFactory.FrameProfile.TELEOP);
     m_pdh.setSwitchableChannel(true);
   }
 
@@ -175,6 +319,7 @@ public class Robot extends LoggedRobot {
   public void testInit() {
     // Cancels all running commands at the start of test mode.
     CommandScheduler.getInstance().cancelAll();
+    SparkMaxFactory.Companion.setFrameProfile(SparkMaxFactory.FrameProfile.TEST);
   }
 
   /** This function is called periodically during test mode. */
@@ -192,6 +337,25 @@ public class Robot extends LoggedRobot {
   /** This function is called periodically whilst in simulation. */
   @Override
   public void simulationPeriodic() {
-    // We don't have any periodic code
+    if (TRAINING_RUN_SECS > 0) {
+      runTrainingStep();
+    }
+  }
+
+  /**
+   * Steps a training run through disabled, autonomous and teleop so the classes of every mode are
+   * loaded, then exits so the JVM writes out the list of loaded classes
+   */
+  private void runTrainingStep() {
+    double elapsed = Timer.getFPGATimestamp();
+    if (elapsed > TRAINING_RUN_SECS) {
+      System.out.println("Training run finished after " + elapsed + " s");
+      System.exit(0);
+    }
+
+    DriverStationSim.setDsAttached(true);
+    DriverStationSim.setEnabled(elapsed > TRAINING_RUN_SECS / 3);
+    DriverStationSim.setAutonomous(elapsed < TRAINING_RUN_SECS * 2 / 3);
+    DriverStationSim.notifyNewData();
   }
 }
@@ -15,6 +15,7 @@ import frc.robot.subsystems.wrist.PractiseWrist;
 import frc.robot.supersystems.ArmPose;
 import frc.robot.supersystems.ArmSupersystem;
 import lib.controllers.FootPedal;
+import lib.utils.profiling.StartupTracer;
 import edu.wpi.first.wpilibj.GenericHID;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
@@ -54,12 +55,18 @@ public class RobotContainer {
      * The container for the robot. Contains subsystems, OI devices, and commands.
      */
     public RobotContainer() {
-        switch (Constants.CURRENT_MODE) {
+        switch (Constants.ROBOT) {
             case HELIOS_V1:
+                StartupTracer.begin("SwerveDrivetrain");
                 m_drive = new SwerveDrivetrain();
+                StartupTracer.end();
                 // m_wrist = new WristSubsystem();
+                StartupTracer.begin("ArmAngleSubsystem");
                 m_arm = new ArmAngleSubsystem();
+                StartupTracer.end();
+                StartupTracer.begin("ArmExtSubsystem");
                 m_ext = new ArmExtSubsystem();
+                StartupTracer.end();
 //                m_super = new ArmSupersystem(m_arm, m_ext, m_wrist, m_drive);
                 m_foot = new FootPedal(1);
                 break;
@@ -67,19 +74,25 @@ public class RobotContainer {
             case SIM:
                 break;
 
-            // Default case, should be set to a replay mode
+            // Nothing is set up for the other robots yet
             default:
         }
 
         LiveWindow.disableAllTelemetry();
 
+        StartupTracer.begin("AutoFactory");
         m_autoFactory = new AutoFactory(m_super, m_drive, m_wrist, m_ext);
+        StartupTracer.end();
 
+        StartupTracer.begin("PractiseWrist");
         practiseWrist = new PractiseWrist();
+        StartupTracer.end();
 
         
         // Configure the button bindings
+        StartupTracer.begin("Button Bindings");
         configureButtonBindings();
+        StartupTracer.end();
         // configDashboard();
     }
 
@@ -12,6 +12,7 @@ import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.Constants;
 import frc.robot.Constants.AutoConstants;
 import frc.robot.subsystems.swerve.SwerveDrivetrain;
+import lib.utils.telemetry.Telemetry;
 
 public class AutoBalance extends CommandBase {
   private final SwerveDrivetrain m_drive;
@@ -79,13 +80,17 @@ public class AutoBalance extends CommandBase {
       // if robot is balanced, stop moving and start a timer
       m_timer.start();
       m_drivePower = 0.0;
-      SmartDashboard.putBoolean("Timer Started", true);
+      if (Telemetry.DEBUG) {
+        SmartDashboard.putBoolean("Timer Started", true);
+      }
     }
     if (Math.abs(m_error) < AutoConstants.ACCEPTABLE_BALANCE_ANGLE && m_timer.hasElapsed(2)) {
       // If robot has been balanced for 10 seconds, stop the command
       m_timer.stop();
       m_isLevel = true;
-      SmartDashboard.putBoolean("Timer Started", false);
+      if (Telemetry.DEBUG) {
+        SmartDashboard.putBoolean("Timer Started", false);
+      }
     }
     if (Math.abs(m_error) < AutoConstants.ACCEPTABLE_BALANCE_ANGLE && m_timer.get() < 2) {
       m_drivePower = 0.0;
@@ -94,15 +99,19 @@ public class AutoBalance extends CommandBase {
       // if robot is no longer balanced, stop and reset the timer
       m_timer.stop();
       m_timer.reset();
-      SmartDashboard.putBoolean("Timer Started", false);
+      if (Telemetry.DEBUG) {
+        SmartDashboard.putBoolean("Timer Started", false);
+      }
     }
 
-    SmartDashboard.putNumber("Timer Count", m_timer.get());
-    SmartDashboard.putBoolean("Command should stop", m_isLevel);
     m_drive.drive(m_drivePower, 0.0, 0.0);
 
     // Logging values for debugging
-    SmartDashboard.putNumber("Gyro Error", m_error);
+    if (Telemetry.DEBUG) {
+      SmartDashboard.putNumber("Timer Count", m_timer.get());
+      SmartDashboard.putBoolean("Command should stop", m_isLevel);
+      SmartDashboard.putNumber("Gyro Error", m_error);
+    }
 //    SmartDashboard.putNumber("Drive Power", m_drivePower);
 //    SmartDashboard.putNumber("Roll Rate Balance", rollRateBalance);
 //    SmartDashboard.putNumber("Roll Rate Balance Raw", m_drive.getGyroRollPitch());
@@ -6,6 +6,7 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.subsystems.swerve.SwerveDrivetrain;
+import lib.utils.telemetry.Telemetry;
 
 
 public class AutoBalanceTransCommand extends CommandBase {
@@ -31,13 +32,17 @@ public class AutoBalanceTransCommand extends CommandBase {
 
     @Override
     public void execute() {
-        SmartDashboard.putNumber("Roll", getRoll());
-        SmartDashboard.putNumber("Pitch", getPitch());
+        if (Telemetry.DEBUG) {
+            SmartDashboard.putNumber("Roll", getRoll());
+            SmartDashboard.putNumber("Pitch", getPitch());
+        }
 
         tilt = new Translation2d(getPitch(), getRoll());
 
         double output = m_pid.calculate(tilt.getNorm());
-        SmartDashboard.putNumber("Norm", tilt.getNorm());
+        if (Telemetry.DEBUG) {
+            SmartDashboard.putNumber("Norm", tilt.getNorm());
+        }
 
         if (Math.abs(m_swerve.getGyroPitch().getDegrees()) < 1 && m_timer.get() < 0.01) {
             tilt = new Translation2d();
@@ -4,12 +4,18 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.supersystems.ArmPose;
 import frc.robot.supersystems.ArmSupersystem;
+import lib.utils.telemetry.Telemetry;
+import org.littletonrobotics.junction.Logger;
 
 
 public class SupersystemToPoseAutoCommand extends CommandBase {
 
+    // Moves are counted across every instance, the log analyzer reads the time of each one when the count changes
+    private static long moves = 0;
+
     ArmSupersystem m_supersystem;
     ArmPose m_pose;
+    private long m_startMicros;
 
     public SupersystemToPoseAutoCommand(ArmSupersystem supersystem, ArmPose pose) {
         // each subsystem used by the command must be passed into the
@@ -24,12 +30,15 @@ public class SupersystemToPoseAutoCommand extends CommandBase {
     @Override
     public void initialize() {
         m_supersystem.stopSpeed();
+        m_startMicros = Logger.getInstance().getTimestamp();
     }
 
     @Override
     public void execute() {
         m_supersystem.setToPose(m_pose);
-        SmartDashboard.putBoolean("Auto At Setpoint", m_supersystem.atSetpoint());
+        if (Telemetry.DEBUG) {
+            SmartDashboard.putBoolean("Auto At Setpoint", m_supersystem.atSetpoint());
+        }
     }
 
     @Override
@@ -40,5 +49,10 @@ public class SupersystemToPoseAutoCommand extends CommandBase {
     @Override
     public void end(boolean interrupted) {
         m_supersystem.stopSpeed();
+
+        Logger logger = Logger.getInstance();
+        logger.recordOutput("SupersystemToPose/LastMoveMS", (logger.getTimestamp() - m_startMicros) / 1000.0);
+        logger.recordOutput("SupersystemToPose/LastMoveInterrupted", interrupted);
+        logger.recordOutput("SupersystemToPose/Moves", ++moves);
     }
 }
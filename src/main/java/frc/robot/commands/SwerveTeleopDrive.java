@@ -51,9 +51,9 @@ public class SwerveTeleopDrive extends CommandBase {
     y = Utils.deadBand(y);
     z = Utils.deadBand(z);
 
-    x = x * (Constants.CURRENT_MODE == Constants.Mode.HELIOS_V1 ? Constants.ModuleConstants.MAX_SPEED_L2_MPS : Constants.ModuleConstants.MAX_SPEED_L3_MPS);
-    y = y * (Constants.CURRENT_MODE == Constants.Mode.HELIOS_V1 ? Constants.ModuleConstants.MAX_SPEED_L2_MPS : Constants.ModuleConstants.MAX_SPEED_L3_MPS);
-    z = z * (Constants.CURRENT_MODE == Constants.Mode.HELIOS_V1 ? Constants.ModuleConstants.MAX_SPEED_L2_MPS : Constants.ModuleConstants.MAX_SPEED_L3_MPS);
+    x = x * (Constants.ROBOT == Constants.Mode.HELIOS_V1 ? Constants.ModuleConstants.MAX_SPEED_L2_MPS : Constants.ModuleConstants.MAX_SPEED_L3_MPS);
+    y = y * (Constants.ROBOT == Constants.Mode.HELIOS_V1 ? Constants.ModuleConstants.MAX_SPEED_L2_MPS : Constants.ModuleConstants.MAX_SPEED_L3_MPS);
+    z = z * (Constants.ROBOT == Constants.Mode.HELIOS_V1 ? Constants.ModuleConstants.MAX_SPEED_L2_MPS : Constants.ModuleConstants.MAX_SPEED_L3_MPS);
     m_drive.drive(x, y, z);
   }
 
@@ -0,0 +1,184 @@
+package frc.robot.commands.autonomous;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+import edu.wpi.first.math.MatBuilder;
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.ModuleConstants;
+import frc.robot.supersystems.ArmLimits;
+import frc.robot.supersystems.ArmSupersystem;
+import lib.utils.profiling.JitWarmup;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * The hot paths of the first autonomous cycles, run on synthetic inputs by {@link JitWarmup} while
+ * the robot is disabled.
+ *
+ * Every target builds its own kinematics, controllers and estimator instead of using the shared ones
+ * in {@link frc.robot.Constants} or the subsystems. Those keep state between calls (the kinematics
+ * remembers the last module headings, the PID controllers their integrators) so warming them up
+ * would change what the robot does when it is enabled.
+ */
+public final class AutoWarmup {
+    private static final double LOOP_PERIOD_SECS = 0.02;
+
+    private AutoWarmup() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    public static void register(JitWarmup warmup) {
+        warmup.addTarget("PathFollower", new PathFollowerTarget("Mobility Right"));
+        warmup.addTarget("PoseEstimator", new PoseEstimatorTarget());
+        warmup.addTarget("ArmSupersystem", new ArmLimitTarget());
+    }
+
+    private static SwerveDriveKinematics createKinematics() {
+        return new SwerveDriveKinematics(
+                new Translation2d(DriveConstants.WHEEL_BASE / 2, DriveConstants.TRACK_WIDTH / 2),
+                new Translation2d(DriveConstants.WHEEL_BASE / 2, -DriveConstants.TRACK_WIDTH / 2),
+                new Translation2d(-DriveConstants.WHEEL_BASE / 2, DriveConstants.TRACK_WIDTH / 2),
+                new Translation2d(-DriveConstants.WHEEL_BASE / 2, -DriveConstants.TRACK_WIDTH / 2));
+    }
+
+    private static PIDController copyOf(PIDController controller) {
+        return new PIDController(controller.getP(), controller.getI(), controller.getD());
+    }
+
+    /**
+     * What PPSwerveControllerCommand does every cycle, minus sending the states to the modules
+     */
+    private static final class PathFollowerTarget implements DoubleSupplier {
+        private final PathPlannerTrajectory m_trajectory;
+        private final SwerveDriveKinematics m_kinematics = createKinematics();
+        private final PPHolonomicDriveController m_controller = new PPHolonomicDriveController(
+                copyOf(AutoConstants.CONTROLLER_X),
+                copyOf(AutoConstants.CONTROLLER_Y),
+                copyOf(AutoConstants.THETA_CONTROLLER));
+
+        private double m_time = 0;
+        private boolean m_red = false;
+
+        private PathFollowerTarget(String pathName) {
+            m_trajectory = PathPlanner.loadPath(pathName, AutoUtils.getDefaultConstraints());
+        }
+
+        @Override
+        public double getAsDouble() {
+            m_time += LOOP_PERIOD_SECS;
+            if (m_time > m_trajectory.getTotalTimeSeconds()) {
+                // Alternate alliances so both sides of the flip are compiled
+                m_time = 0;
+                m_red = !m_red;
+            }
+
+            PathPlannerState state = PathPlannerTrajectory.transformStateForAlliance(
+                    (PathPlannerState) m_trajectory.sample(m_time),
+                    m_red ? DriverStation.Alliance.Red : DriverStation.Alliance.Blue);
+
+            // Slightly off the path so the feedback terms are used too
+            Pose2d currentPose = new Pose2d(
+                    state.poseMeters.getX() + 0.05,
+                    state.poseMeters.getY() - 0.05,
+                    state.holonomicRotation.plus(Rotation2d.fromDegrees(2)));
+
+            ChassisSpeeds speeds = m_controller.calculate(currentPose, state);
+            SwerveModuleState[] states = m_kinematics.toSwerveModuleStates(speeds);
+            SwerveDriveKinematics.desaturateWheelSpeeds(states, ModuleConstants.MAX_SPEED_L2_MPS);
+
+            double sum = 0;
+            for (SwerveModuleState moduleState : states) {
+                sum += SwerveModuleState.optimize(moduleState, currentPose.getRotation()).speedMetersPerSecond;
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * The odometry and vision updates SwerveDrivetrain makes every cycle, on a robot driving in a circle
+     */
+    private static final class PoseEstimatorTarget implements DoubleSupplier {
+        private final SwerveModulePosition[] m_positions = new SwerveModulePosition[4];
+        private final SwerveDrivePoseEstimator m_estimator;
+
+        private double m_time = 0;
+        private double m_distance = 0;
+        private int m_calls = 0;
+
+        private PoseEstimatorTarget() {
+            for (int i = 0; i < m_positions.length; i++) {
+                m_positions[i] = new SwerveModulePosition();
+            }
+            m_estimator = new SwerveDrivePoseEstimator(
+                    createKinematics(),
+                    new Rotation2d(),
+                    m_positions,
+                    new Pose2d(),
+                    new MatBuilder<>(Nat.N3(), Nat.N1()).fill(0.1, 0.1, 0.1),
+                    new MatBuilder<>(Nat.N3(), Nat.N1()).fill(0.75, 0.75, Units.degreesToRadians(1.5)));
+        }
+
+        @Override
+        public double getAsDouble() {
+            m_time += LOOP_PERIOD_SECS;
+            m_distance += 0.04;
+            Rotation2d heading = Rotation2d.fromRadians(m_distance * 0.2);
+            for (int i = 0; i < m_positions.length; i++) {
+                m_positions[i] = new SwerveModulePosition(m_distance, heading);
+            }
+            m_estimator.updateWithTime(m_time, heading, m_positions);
+
+            m_calls++;
+            if (m_calls % 5 == 0) {
+                Pose2d estimate = m_estimator.getEstimatedPosition();
+                m_estimator.addVisionMeasurement(
+                        new Pose2d(estimate.getX() + 0.1, estimate.getY() - 0.1, heading),
+                        m_time - 0.05);
+            }
+            return m_estimator.getEstimatedPosition().getX();
+        }
+    }
+
+    /**
+     * The limit math of ArmSupersystem.setToPose and calculateArmAngleLimit, swept over the arm's range
+     */
+    private static final class ArmLimitTarget implements DoubleSupplier {
+        private double m_armAngle = 0;
+        private double m_armExtension = 0;
+        private double m_wristAngle = 0;
+
+        @Override
+        public double getAsDouble() {
+            m_armAngle = (m_armAngle + 3.7) % 360;
+            m_armExtension = (m_armExtension + 0.9) % 30;
+            m_wristAngle = (m_wristAngle + 5.3) % 270;
+
+            ArmLimits limits = ArmSupersystem.getLimits(m_armAngle);
+            double wristSetpoint = limits.wristRange.clamp(m_wristAngle);
+            double extSetpoint = limits.armExtRange.clamp(m_armExtension);
+            double angleSetpoint = limits.armAngleRange.clamp(m_armAngle + 10);
+
+            if (ArmSupersystem.needsGroundLimit(m_armAngle, m_armExtension, m_wristAngle)) {
+                Translation2d physicalArmExtension =
+                        ArmSupersystem.calculatePhysicalArmExtension(m_armAngle, m_wristAngle, m_armExtension + 24);
+                angleSetpoint = Math.max(angleSetpoint, ArmSupersystem.calculateGroundAngleLimit(m_armAngle, physicalArmExtension));
+            }
+            return wristSetpoint + extSetpoint + angleSetpoint;
+        }
+    }
+}
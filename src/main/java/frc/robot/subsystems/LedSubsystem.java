@@ -10,6 +10,8 @@ import com.ctre.phoenix.led.ColorFlowAnimation.Direction;
 import com.ctre.phoenix.led.LarsonAnimation.BounceMode;
 
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import lib.utils.scheduling.RateGroup;
+import lib.utils.scheduling.RateGroupScheduler;
 
 public class LedSubsystem extends SubsystemBase {
     private final CANdle m_candle;
@@ -33,6 +35,9 @@ public class LedSubsystem extends SubsystemBase {
     public LedSubsystem(int id) {
         m_candle = new CANdle(id);
         m_candle.animate(m_rainbow);
+
+        // The CANdle keeps running the last animation, so it doesn't need to be resent every loop
+        RateGroupScheduler.getInstance().addTask(RateGroup.SLOW_100MS, this::updateAnimation);
     }
 
     public void nextAnimation() {
@@ -67,8 +72,7 @@ public class LedSubsystem extends SubsystemBase {
         return m_currentAnimation;
     }
 
-    @Override
-    public void periodic() {
+    private void updateAnimation() {
         switch(m_currentAnimation){
             case BLUE:
                 m_candle.animate(m_blue);
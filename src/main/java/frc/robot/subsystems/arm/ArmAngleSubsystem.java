@@ -14,14 +14,24 @@ import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DutyCycleEncoder;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Constants.LimitConstants;
 import frc.robot.Constants.ArmConstants;
 import lib.factories.SparkMaxFactory;
+import lib.utils.Rev.SparkMaxWrapper;
 import lib.utils.Utils;
+import lib.utils.profiling.LoopProfiler;
+import lib.utils.profiling.ProfiledSection;
+import lib.utils.scheduling.RateGroup;
+import lib.utils.scheduling.RateGroupScheduler;
+import lib.utils.telemetry.DashboardPublisher;
+import lib.utils.telemetry.DashboardThread;
+import lib.utils.telemetry.SnapshotExchanger;
+import lib.utils.telemetry.Telemetry;
+import lib.utils.telemetry.TelemetryBudget;
+import lib.utils.telemetry.TelemetryLevel;
 import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.Logger;
 
@@ -30,11 +40,16 @@ public class ArmAngleSubsystem extends SubsystemBase {
     // Encoders
     private final CANSparkMax m_armAngleMaster;
     private final CANSparkMax m_armAngleFollower;
+    // Only sends the output when it changes
+    private final SparkMaxWrapper m_armAngleOutput;
     private final DutyCycleEncoder m_encoderArmAngle;
     // Misc.
     private final PIDController m_anglePID;
     private final ArmFeedforward m_feedforward;
     private final ArmAngleIOInputsAutoLogged m_inputs;
+    private final ProfiledSection m_periodicSection = LoopProfiler.getInstance().registerSubsystem(this);
+    private final DashboardPublisher.NumberEntry m_pidOutputEntry = DashboardPublisher.getInstance().number("Angle PID Output", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.NumberEntry m_ffOutputEntry = DashboardPublisher.getInstance().number("FF Output", TelemetryLevel.DEBUG);
     // Logging variables
     private double prevSetpointRaw;
     private double prevSetpointClamped;
@@ -53,10 +68,26 @@ public class ArmAngleSubsystem extends SubsystemBase {
     private GenericEntry armAnglePIDOutputEntry;
     private GenericEntry armAngleMasterOutputEntry;
     private GenericEntry currentCommandOutputEntry;
+    private final SnapshotExchanger<ShuffleboardSnapshot> m_shuffleboardSnapshots = new SnapshotExchanger<>(ShuffleboardSnapshot::new);
+
+    private static final class ShuffleboardSnapshot {
+        private boolean atSetpoint;
+        private boolean atUpperLimit;
+        private boolean atLowerLimit;
+        private double encoderRaw;
+        private double angleConverted;
+        private double target;
+        private double setpointClamped;
+        private double pidOutput;
+        private double masterOutput;
+        private String currentCommand;
+    }
 
     @AutoLog
     public static class ArmAngleIOInputs {
         public double armAngle = 0.0;
+        public double encoderRaw = 0.0;
+        public boolean encoderConnected = false;
         public double armAnglePower = 0.0;
         public double currentDraw = 0.0;
     }
@@ -68,10 +99,11 @@ public class ArmAngleSubsystem extends SubsystemBase {
         m_armAngleMaster = SparkMaxFactory.Companion.createSparkMax(ArmConstants.ARM_ANGLE_ID_MASTER, config);
         m_armAngleMaster.setOpenLoopRampRate(0.2);
         m_armAngleMaster.enableVoltageCompensation(12);
+        m_armAngleOutput = new SparkMaxWrapper(m_armAngleMaster);
 
         config.setFrame0Rate(SparkMaxFactory.MAX_CAN_FRAME_PERIOD);
         config.setFollowingMotor(m_armAngleMaster);
-        config.setInverted(Constants.CURRENT_MODE == Constants.Mode.HELIOS_V1);
+        config.setInverted(Constants.ROBOT == Constants.Mode.HELIOS_V1);
         // The SparkMaxFactory will set the motor to follow the given motor
         m_armAngleFollower = SparkMaxFactory.Companion.createSparkMax(ArmConstants.ARM_ANGLE_ID_FOLLOWER, config);
         m_armAngleFollower.enableVoltageCompensation(12);
@@ -88,8 +120,13 @@ public class ArmAngleSubsystem extends SubsystemBase {
 
         m_inputs = new ArmAngleIOInputsAutoLogged();
 
-        armAngleTab = Shuffleboard.getTab("ArmAngleSubsystem");
-        addShuffleboardData();
+        armAngleTab = Telemetry.DEBUG ? Shuffleboard.getTab("ArmAngleSubsystem") : null;
+        if (Telemetry.DEBUG) {
+            addShuffleboardData();
+            RateGroupScheduler.getInstance().addTask(RateGroup.SLOW_100MS, this::fillShuffleboardSnapshot);
+            TelemetryBudget.Group budgetGroup = TelemetryBudget.getInstance().group("Shuffleboard/ArmAngleSubsystem", TelemetryBudget.Priority.LOW, 10);
+            DashboardThread.getInstance().add(m_shuffleboardSnapshots, budgetGroup, 11, this::publishShuffleboardSnapshot);
+        }
     }
 
     private void addShuffleboardData() {
@@ -103,8 +140,8 @@ public class ArmAngleSubsystem extends SubsystemBase {
 
         // Doubles
         // Angles
-        armAngleEncoderRawEntry = armAngleTab.add("Encoder raw", m_encoderArmAngle.getAbsolutePosition()).getEntry();
-        armAngleRawEntry = armAngleTab.add("Angle raw", m_encoderArmAngle.getAbsolutePosition() * 360).getEntry();
+        armAngleEncoderRawEntry = armAngleTab.add("Encoder raw", m_inputs.encoderRaw).getEntry();
+        armAngleRawEntry = armAngleTab.add("Angle raw", m_inputs.encoderRaw * 360).getEntry();
         armAngleConvertedEntry = armAngleTab.add("Angle converted", getArmAngle()).getEntry();
 
         // Targets
@@ -117,47 +154,62 @@ public class ArmAngleSubsystem extends SubsystemBase {
         currentCommandOutputEntry = armAngleTab.add("Current Command", "No Command").getEntry();
     }
 
-    private void updateShuffleboardData() {
+    private void fillShuffleboardSnapshot() {
+        ShuffleboardSnapshot snapshot = m_shuffleboardSnapshots.getWriteBuffer();
         // Booleans
         // Misc.
-        armAngleAtSetpointEntry.setBoolean(atSetpoint());
+        snapshot.atSetpoint = atSetpoint();
 
-        // Motor inversions
         // Limits
-        armAngleAtUpperLimitEntry.setBoolean(armAngleAtUpperLimit());
-        armAngleAtLowerLimitEntry.setBoolean(armAngleAtLowerLimit());
+        snapshot.atUpperLimit = armAngleAtUpperLimit();
+        snapshot.atLowerLimit = armAngleAtLowerLimit();
 
         // Doubles
         // Angles
-        armAngleEncoderRawEntry.setDouble(m_encoderArmAngle.getAbsolutePosition());
-        armAngleRawEntry.setDouble(m_encoderArmAngle.getAbsolutePosition() * 360);
-        armAngleConvertedEntry.setDouble(getArmAngle());
+        snapshot.encoderRaw = m_inputs.encoderRaw;
+        snapshot.angleConverted = getArmAngle();
 
         // Targets
-        armAngleTargetEntry.setDouble(prevSetpointRaw);
-        armAngleSetpointClampedEntry.setDouble(prevSetpointClamped);
-        armAnglePIDOutputEntry.setDouble(prevSetpointPID);
+        snapshot.target = prevSetpointRaw;
+        snapshot.setpointClamped = prevSetpointClamped;
+        snapshot.pidOutput = prevSetpointPID;
 
         // Misc.
         Command currentCommand = getCurrentCommand();
-        if(currentCommand != null) {
-            currentCommandOutputEntry.setString(currentCommand.getName());
-        } else {
-            currentCommandOutputEntry.setString("No Command");
-        }
-        armAngleMasterOutputEntry.setDouble(m_armAngleMaster.getAppliedOutput());
+        snapshot.currentCommand = currentCommand != null ? currentCommand.getName() : "No Command";
+        snapshot.masterOutput = m_armAngleMaster.getAppliedOutput();
+        m_shuffleboardSnapshots.publish();
+    }
+
+    // Runs on the dashboard thread
+    private void publishShuffleboardSnapshot(ShuffleboardSnapshot snapshot) {
+        armAngleAtSetpointEntry.setBoolean(snapshot.atSetpoint);
+        armAngleAtUpperLimitEntry.setBoolean(snapshot.atUpperLimit);
+        armAngleAtLowerLimitEntry.setBoolean(snapshot.atLowerLimit);
+
+        armAngleEncoderRawEntry.setDouble(snapshot.encoderRaw);
+        armAngleRawEntry.setDouble(snapshot.encoderRaw * 360);
+        armAngleConvertedEntry.setDouble(snapshot.angleConverted);
+        armAngleTargetEntry.setDouble(snapshot.target);
+        armAngleSetpointClampedEntry.setDouble(snapshot.setpointClamped);
+        armAnglePIDOutputEntry.setDouble(snapshot.pidOutput);
+
+        currentCommandOutputEntry.setString(snapshot.currentCommand);
+        armAngleMasterOutputEntry.setDouble(snapshot.masterOutput);
     }
 
     @Override
     public void periodic() {
+        m_periodicSection.begin();
         updateInputs(m_inputs);
         Logger.getInstance().processInputs("Arm Angle", m_inputs);
-
-        updateShuffleboardData();
+        m_periodicSection.end();
     }
 
     public void updateInputs(ArmAngleIOInputsAutoLogged inputs){
-        inputs.armAngle = getArmAngle();
+        inputs.encoderRaw = m_encoderArmAngle.getAbsolutePosition();
+        inputs.armAngle = Utils.normalize(360 - (inputs.encoderRaw * 360) - ArmConstants.ARM_OFFSET);
+        inputs.encoderConnected = m_encoderArmAngle.isConnected();
         inputs.armAnglePower = m_armAngleMaster.getAppliedOutput();
         inputs.currentDraw = m_armAngleMaster.getOutputCurrent();
     }
@@ -165,9 +217,9 @@ public class ArmAngleSubsystem extends SubsystemBase {
     public void setAngleSpeed(double speed) {
         if ((getArmAngle() >= LimitConstants.ARM_ANGLE_LOWER.getValue() && speed <= 0)
             || (getArmAngle() <= LimitConstants.ARM_ANGLE_UPPER.getValue() && speed >= 0)) {
-            m_armAngleMaster.set(speed);
+            m_armAngleOutput.set(speed);
         } else {
-            m_armAngleMaster.set(0);
+            m_armAngleOutput.set(0);
         }
     }
 
@@ -205,17 +257,19 @@ public class ArmAngleSubsystem extends SubsystemBase {
 //            targetAnglePID = targetAnglePID * 0.2;
 //        }
 
-        SmartDashboard.putNumber("Angle PID Output", targetAnglePID);
-        SmartDashboard.putNumber("FF Output", ffOutput);
-        m_armAngleMaster.setVoltage(targetAnglePID);
+        if (Telemetry.DEBUG) {
+            m_pidOutputEntry.set(targetAnglePID);
+            m_ffOutputEntry.set(ffOutput);
+        }
+        m_armAngleOutput.setVoltage(targetAnglePID);
     }
 
     public double getArmAngle() {
-        return Utils.normalize(360 - (m_encoderArmAngle.getAbsolutePosition() * 360) - ArmConstants.ARM_OFFSET);
+        return m_inputs.armAngle;
     }
 
     public boolean encoderConnected() {
-        return m_encoderArmAngle.isConnected();
+        return m_inputs.encoderConnected;
     }
 
     public boolean atSetpoint() {
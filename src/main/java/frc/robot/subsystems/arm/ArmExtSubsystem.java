@@ -10,23 +10,37 @@ import edu.wpi.first.networktables.GenericEntry;
 import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import lib.factories.SparkMaxFactory;
+import lib.utils.Rev.SparkMaxWrapper;
 import lib.utils.drivers.RevUtil;
+import lib.utils.profiling.LoopProfiler;
+import lib.utils.profiling.ProfiledSection;
+import lib.utils.scheduling.RateGroup;
+import lib.utils.scheduling.RateGroupScheduler;
+import lib.utils.telemetry.DashboardPublisher;
+import lib.utils.telemetry.DashboardThread;
+import lib.utils.telemetry.SnapshotExchanger;
+import lib.utils.telemetry.Telemetry;
+import lib.utils.telemetry.TelemetryBudget;
+import lib.utils.telemetry.TelemetryLevel;
 import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.Logger;
 
 public class ArmExtSubsystem extends SubsystemBase {
     private final CANSparkMax m_armExt;
+    // Only sends the output when it changes
+    private final SparkMaxWrapper m_armExtOutput;
     private final RelativeEncoder m_relativeEncoderArmEx;
     private final SparkMaxPIDController m_extPID;
 //    private final PIDController m_extPID;
     private final DigitalInput m_armLimitSwitch;
 
     private final ArmExtIOInputsAutoLogged m_inputs = new ArmExtIOInputsAutoLogged();
+    private final ProfiledSection m_periodicSection = LoopProfiler.getInstance().registerSubsystem(this);
+    private final DashboardPublisher.BooleanEntry m_atSetpointEntry = DashboardPublisher.getInstance().bool("Periodic Ext at setpoint", TelemetryLevel.DEBUG);
     // Logging variables
     private double prevSetpointRaw;
     private double prevSetpointClamped;
@@ -40,19 +54,32 @@ public class ArmExtSubsystem extends SubsystemBase {
     private GenericEntry armExtTargetEntry;
     private GenericEntry armExtSetpointClampedEntry;
     private GenericEntry armExtMotorOutputEntry;
+    private final SnapshotExchanger<ShuffleboardSnapshot> m_shuffleboardSnapshots = new SnapshotExchanger<>(ShuffleboardSnapshot::new);
+
+    private static final class ShuffleboardSnapshot {
+        private boolean atSetpoint;
+        private boolean atUpperLimit;
+        private boolean atLowerLimit;
+        private double extension;
+        private double target;
+        private double setpointClamped;
+        private double motorOutput;
+    }
 
     @AutoLog
     public static class ArmExtIOInputs {
         public double armExtension = 0.0;
+        public boolean atLowerLimit = false;
     }
 
     public ArmExtSubsystem() {
         SparkMaxFactory.SparkMaxConfig config = new SparkMaxFactory.SparkMaxConfig();
         config.setCurrentLimit(50);
-        config.setInverted(Constants.CURRENT_MODE == Constants.Mode.HELIOS_V1);
+        config.setInverted(Constants.ROBOT == Constants.Mode.HELIOS_V1);
 
         m_armExt = SparkMaxFactory.Companion.createSparkMax(Constants.ArmConstants.ARM_EXTENSION_ID, config);
         m_armExt.setClosedLoopRampRate(0.1);
+        m_armExtOutput = new SparkMaxWrapper(m_armExt);
 
         m_relativeEncoderArmEx = m_armExt.getEncoder();
         RevUtil.autoRetry(() -> m_relativeEncoderArmEx.setPositionConversionFactor(Constants.ArmConstants.EXTENSION_RATIO));
@@ -65,8 +92,13 @@ public class ArmExtSubsystem extends SubsystemBase {
 
         m_armLimitSwitch = new DigitalInput(Constants.ArmConstants.LIMIT_SWITCH_PORT);
 
-        armExtTab = Shuffleboard.getTab("ArmExtSubsystem");
-        addShuffleboardData();
+        armExtTab = Telemetry.DEBUG ? Shuffleboard.getTab("ArmExtSubsystem") : null;
+        if (Telemetry.DEBUG) {
+            addShuffleboardData();
+            RateGroupScheduler.getInstance().addTask(RateGroup.SLOW_100MS, this::fillShuffleboardSnapshot);
+            TelemetryBudget.Group budgetGroup = TelemetryBudget.getInstance().group("Shuffleboard/ArmExtSubsystem", TelemetryBudget.Priority.LOW, 10);
+            DashboardThread.getInstance().add(m_shuffleboardSnapshots, budgetGroup, 7, this::publishShuffleboardSnapshot);
+        }
     }
     private void addShuffleboardData() {
         // Booleans
@@ -86,30 +118,44 @@ public class ArmExtSubsystem extends SubsystemBase {
         armExtMotorOutputEntry = armExtTab.add("Motor output", m_armExt.getAppliedOutput()).getEntry();
     }
 
-    private void updateShuffleboardData() {
+    private void fillShuffleboardSnapshot() {
+        ShuffleboardSnapshot snapshot = m_shuffleboardSnapshots.getWriteBuffer();
         // Booleans
         // Misc.
-        armExtAtSetpointEntry.setBoolean(atSetpoint());
+        snapshot.atSetpoint = atSetpoint();
         // Limits
-        armExtAtUpperLimitEntry.setBoolean(armAtUpperLimit());
-        armExtAtLowerLimitEntry.setBoolean(armAtLowerLimit());
+        snapshot.atUpperLimit = armAtUpperLimit();
+        snapshot.atLowerLimit = armAtLowerLimit();
 
         // Doubles
         // Angles
-        armExtConvertedEntry.setDouble(getArmExtension());
+        snapshot.extension = getArmExtension();
         // Targets
-        armExtTargetEntry.setDouble(prevSetpointRaw);
-        armExtSetpointClampedEntry.setDouble(prevSetpointClamped);
+        snapshot.target = prevSetpointRaw;
+        snapshot.setpointClamped = prevSetpointClamped;
         // Misc.
-        armExtMotorOutputEntry.setDouble(m_armExt.getAppliedOutput());
+        snapshot.motorOutput = m_armExt.getAppliedOutput();
+        m_shuffleboardSnapshots.publish();
+    }
+
+    // Runs on the dashboard thread
+    private void publishShuffleboardSnapshot(ShuffleboardSnapshot snapshot) {
+        armExtAtSetpointEntry.setBoolean(snapshot.atSetpoint);
+        armExtAtUpperLimitEntry.setBoolean(snapshot.atUpperLimit);
+        armExtAtLowerLimitEntry.setBoolean(snapshot.atLowerLimit);
+
+        armExtConvertedEntry.setDouble(snapshot.extension);
+        armExtTargetEntry.setDouble(snapshot.target);
+        armExtSetpointClampedEntry.setDouble(snapshot.setpointClamped);
+        armExtMotorOutputEntry.setDouble(snapshot.motorOutput);
     }
 
     public void setArmSpeed(double speed) {
         if((armAtLowerLimit() || getArmExtension() <= Constants.LimitConstants.ARM_EXT_STOW.getValue()) && speed <= 0
                 || armAtUpperLimit() && speed >= 0){
-            m_armExt.set(0);
+            m_armExtOutput.set(0);
         } else {
-            m_armExt.set(speed);
+            m_armExtOutput.set(speed);
         }
     }
 
@@ -125,19 +171,19 @@ public class ArmExtSubsystem extends SubsystemBase {
         prevSetpointClamped = targetExtClamped;
 
         if(armAtLowerLimit() && targetExtClamped <= 0) {
-            m_armExt.set(0);
+            m_armExtOutput.set(0);
         } else {
 //            setArmSpeed(pidOutput);
-            m_extPID.setReference(targetExtClamped, CANSparkMax.ControlType.kPosition);
+            m_armExtOutput.setReference(targetExtClamped, CANSparkMax.ControlType.kPosition);
         }
     }
 
     public double getArmExtension() {
-        return m_relativeEncoderArmEx.getPosition();
+        return m_inputs.armExtension;
     }
 
     public boolean armAtLowerLimit() {
-        return !m_armLimitSwitch.get();
+        return m_inputs.atLowerLimit;
     }
 
     public boolean armAtUpperLimit() {
@@ -150,6 +196,7 @@ public class ArmExtSubsystem extends SubsystemBase {
 
     public void resetExtensionEncoder() {
         m_relativeEncoderArmEx.setPosition(0.0);
+        m_inputs.armExtension = 0.0;
     }
 
     public boolean atSetpoint() {
@@ -160,15 +207,18 @@ public class ArmExtSubsystem extends SubsystemBase {
 
     @Override
     public void periodic() {
+        m_periodicSection.begin();
         updateInputs(m_inputs);
         Logger.getInstance().processInputs("Arm Extension", m_inputs);
         if(armAtLowerLimit())
         {
             resetExtensionEncoder();
         }
-        updateShuffleboardData();
 
-        SmartDashboard.putBoolean("Periodic Ext at setpoint", atSetpoint());
+        if (Telemetry.DEBUG) {
+            m_atSetpointEntry.set(atSetpoint());
+        }
+        m_periodicSection.end();
     }
 
     public void toggleBrakeMode() {
@@ -180,7 +230,8 @@ public class ArmExtSubsystem extends SubsystemBase {
     }
 
     public void updateInputs(ArmExtIOInputsAutoLogged inputs) {
-        inputs.armExtension = getArmExtension();
+        inputs.armExtension = m_relativeEncoderArmEx.getPosition();
+        inputs.atLowerLimit = !m_armLimitSwitch.get();
     }
 
     public boolean hasArmHomed() { return m_hasArmHomed; }
@@ -195,7 +246,7 @@ public class ArmExtSubsystem extends SubsystemBase {
                 setArmSpeed(0);
                 m_hasArmHomed = true;
             } else {
-                m_armExt.set(-0.2);
+                m_armExtOutput.set(-0.2);
             }
         }
     }
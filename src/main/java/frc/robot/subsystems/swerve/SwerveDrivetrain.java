@@ -20,7 +20,7 @@ import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.RobotController;
-import edu.wpi.first.wpilibj.smartdashboard.Field2d;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandBase;
@@ -32,9 +32,21 @@ import frc.robot.Constants.AutoConstants;
 import frc.robot.commands.autonomous.AutoUtils;
 import frc.robot.subsystems.swerve.module.SwerveModNeo;
 import lib.LimelightHelpers;
+import lib.utils.profiling.LoopProfiler;
+import lib.utils.profiling.ProfiledSection;
+import lib.utils.profiling.StartupTracer;
+import lib.utils.scheduling.DeferredTask;
+import lib.utils.scheduling.DeferredWorkQueue;
+import lib.utils.scheduling.RateGroup;
+import lib.utils.scheduling.RateGroupScheduler;
+import lib.utils.telemetry.DashboardPublisher;
+import lib.utils.telemetry.Telemetry;
+import lib.utils.telemetry.TelemetryLevel;
+import lib.utils.telemetry.ThrottledField2d;
 import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.Logger;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -48,13 +60,44 @@ public class SwerveDrivetrain extends SubsystemBase {
     private final TimeOfFlight m_tofSensor;
 
     private final SwerveIOInputsAutoLogged m_inputs;
+    private final ProfiledSection m_periodicSection = LoopProfiler.getInstance().registerSubsystem(this);
 
     private boolean fieldOriented = true;
 
-    private final Field2d m_field;
+    private final ThrottledField2d m_field;
+    private final DeferredTask m_fieldUpdateTask =
+            new DeferredTask("Swerve Field2d", DeferredWorkQueue.Priority.LOW, this::updateField);
+    // Packed as an angle in degrees and a speed or distance for each module, in FL, FR, BL, BR order
+    private final DashboardPublisher.DoubleArrayEntry m_moduleStatesEntry = DashboardPublisher.getInstance().array("Swerve/ModuleStates", 8, TelemetryLevel.DEBUG);
+    private final DashboardPublisher.DoubleArrayEntry m_modulePositionsEntry = DashboardPublisher.getInstance().array("Swerve/ModulePositions", 8, TelemetryLevel.DEBUG);
+    private final DashboardPublisher.DoubleArrayEntry m_desiredStatesEntry = DashboardPublisher.getInstance().array("Swerve/DesiredStates", 8, TelemetryLevel.DEBUG);
+    private final DashboardPublisher.NumberEntry[] m_desiredSpeedEntries = {
+            DashboardPublisher.getInstance().legacyNumber("FL Desired Speed", TelemetryLevel.DEBUG),
+            DashboardPublisher.getInstance().legacyNumber("FR Desired Speed", TelemetryLevel.DEBUG),
+            DashboardPublisher.getInstance().legacyNumber("BL Desired Speed", TelemetryLevel.DEBUG),
+            DashboardPublisher.getInstance().legacyNumber("BR Desired Speed", TelemetryLevel.DEBUG)
+    };
     private final SwerveDrivePoseEstimator m_poseEstimator;
     private final SwerveDrivePoseEstimator m_visionEstimator;
 
+    // Odometry is sampled in the 10 ms rate group, logged as inputs and applied to the pose estimator on
+    // the main thread
+    private static final int MAX_ODOMETRY_SAMPLES = 16;
+    private final Object m_odometryLock = new Object();
+    private final double[] m_sampleTimestamps = new double[MAX_ODOMETRY_SAMPLES];
+    private final double[] m_sampleYawDeg = new double[MAX_ODOMETRY_SAMPLES];
+    private final double[][] m_sampleDistances = new double[MAX_ODOMETRY_SAMPLES][4];
+    private final double[][] m_sampleAngles = new double[MAX_ODOMETRY_SAMPLES][4];
+    private int m_sampleCount = 0;
+    private long m_droppedSamples = 0;
+    // Counts the resets, a sample whose reads straddle one is thrown away
+    private long m_odometryResets = 0;
+    // Only touched by the sampling thread
+    private final double[] m_scratchDistances = new double[4];
+    private final double[] m_scratchAngles = new double[4];
+    // The estimators are created before the first inputs are read, they're reset to them on the first cycle
+    private boolean m_estimatorSeeded = false;
+
 
     private double m_currentPitch = 0;
     private double m_previousPitch = 0;
@@ -85,6 +128,19 @@ public class SwerveDrivetrain extends SubsystemBase {
         // General robot
         public double gyroYawDeg = 0.0;
         public double gyroPitchDeg = 0.0;
+        public double gyroRollDeg = 0.0;
+
+        // Drive distances in meters and module angles in radians, FL, FR, BL, BR
+        public double[] moduleDistancesM = new double[4];
+        public double[] moduleAnglesRad = new double[4];
+
+        // The odometry samples taken since the last cycle, with the distances and angles packed 4 per
+        // sample in FL, FR, BL, BR order
+        public double[] odometryTimestamps = new double[0];
+        public double[] odometryYawDeg = new double[0];
+        public double[] odometryDistancesM = new double[0];
+        public double[] odometryAnglesRad = new double[0];
+        public long droppedOdometrySamples = 0;
     }
 
     public SwerveDrivetrain() {
@@ -93,14 +149,16 @@ public class SwerveDrivetrain extends SubsystemBase {
             m_blMod = new SwerveModNeo(2, DriveConstants.MOD_BL_OFFSET, DriveConstants.MOD_BL_CANS, false);
             m_brMod = new SwerveModNeo(3, DriveConstants.MOD_BR_OFFSET, DriveConstants.MOD_BR_CANS, false);
 
+        StartupTracer.begin("Pigeon2");
         m_gyro = new WPI_Pigeon2(DriveConstants.GYRO_CAN);
+        StartupTracer.end();
         m_inputs = new SwerveIOInputsAutoLogged();
 
         m_tofSensor = new TimeOfFlight(Constants.WristConstants.TOF_PORT);
         m_tofSensor.setRangingMode(TimeOfFlight.RangingMode.Short, 10);
 
-        m_field = new Field2d();
-        SmartDashboard.putData("Field", m_field);
+        // Sent at up to 10 Hz, once the robot has moved 2 cm or turned 1 degree
+        m_field = new ThrottledField2d("Field2d", 10, 0.02, 1.0);
         m_poseEstimator = new SwerveDrivePoseEstimator(
                 DriveConstants.DRIVE_KINEMATICS,
                 getGyroYaw(),
@@ -116,19 +174,35 @@ public class SwerveDrivetrain extends SubsystemBase {
             getModulePositions(), 
             new Pose2d());
 
-        SmartDashboard.putData("Field", m_field);
+        if (Telemetry.COMPETITION) {
+            SmartDashboard.putData("Field", m_field.getField());
+        }
         resetGyro();
         m_visionEstimator.update(new Rotation2d(), getModulePositions());
+
+        RateGroupScheduler.getInstance().addTask(RateGroup.FAST_10MS, this::sampleOdometry);
     }
 
     @Override
     public void periodic() {
+        m_periodicSection.begin();
         updateInputs();
         Logger.getInstance().processInputs("Swerve", m_inputs);
         Logger.getInstance().recordOutput("Robot Pose", getPose());
+        if (!m_estimatorSeeded) {
+            // The estimators were created before the first inputs, start them from the first ones
+            m_poseEstimator.resetPosition(getGyroYaw(), getModulePositions(), getPose());
+            m_visionEstimator.resetPosition(new Rotation2d(), getModulePositions(), m_visionEstimator.getEstimatedPosition());
+            m_estimatorSeeded = true;
+        }
 
         updatePoseEstimator();
-        m_field.setRobotPose(getPose());
+        if (Telemetry.COMPETITION) {
+            DeferredWorkQueue.getInstance().submit(m_fieldUpdateTask);
+        }
+        if (Telemetry.DEBUG) {
+            publishModuleStates();
+        }
 
 //        double[] angles = getAngles();
 //        SmartDashboard.putNumber("Swerve Gyro Yaw", getGyroYaw().getDegrees());
@@ -149,25 +223,23 @@ public class SwerveDrivetrain extends SubsystemBase {
 //        SmartDashboard.putNumber("BL Actual Speed", m_blMod.getModuleState().speedMetersPerSecond);
 //        SmartDashboard.putNumber("BR Actual Speed", m_blMod.getModuleState().speedMetersPerSecond);
 
-        m_field.setRobotPose(m_poseEstimator.getEstimatedPosition());
-
         m_previousPitch = m_currentPitch;
-        m_currentPitch = getGyroPitch().getDegrees();
+        m_currentPitch = m_inputs.gyroPitchDeg;
 
         m_prevTime = m_currentTime;
-        m_currentTime = RobotController.getFPGATime();
+        m_currentTime = Logger.getInstance().getTimestamp();
 
         //getFrontCamTagID();
+        m_periodicSection.end();
     }
 
     // Getters
     public SwerveModulePosition[] getModulePositions() {
         SwerveModulePosition[] modPos = new SwerveModulePosition[4];
 
-        modPos[0] = m_flMod.getModulePosition();
-        modPos[1] = m_frMod.getModulePosition();
-        modPos[2] = m_blMod.getModulePosition();
-        modPos[3] = m_brMod.getModulePosition();
+        for (int i = 0; i < 4; i++) {
+            modPos[i] = new SwerveModulePosition(m_inputs.moduleDistancesM[i], new Rotation2d(m_inputs.moduleAnglesRad[i]));
+        }
 
         return modPos;
     }
@@ -176,16 +248,16 @@ public class SwerveDrivetrain extends SubsystemBase {
     public SwerveModuleState[] getModuleStates() {
         SwerveModuleState[] states = new SwerveModuleState[4];
 
-        states[0] = m_flMod.getModuleState();
-        states[1] = m_frMod.getModuleState();
-        states[2] = m_blMod.getModuleState();
-        states[3] = m_brMod.getModuleState();
+        states[0] = new SwerveModuleState(m_inputs.flDriveSpeedMPS, Rotation2d.fromDegrees(m_inputs.flAngleDeg));
+        states[1] = new SwerveModuleState(m_inputs.frDriveSpeedMPS, Rotation2d.fromDegrees(m_inputs.frAngleDeg));
+        states[2] = new SwerveModuleState(m_inputs.blDriveSpeedMPS, Rotation2d.fromDegrees(m_inputs.blAngleDeg));
+        states[3] = new SwerveModuleState(m_inputs.brDriveSpeedMPS, Rotation2d.fromDegrees(m_inputs.brAngleDeg));
 
         return states;
     }
 
     public Rotation2d getGyroYaw() {
-        return m_gyro.getRotation2d();
+        return Rotation2d.fromDegrees(m_inputs.gyroYawDeg);
     }
 
 
@@ -215,15 +287,49 @@ public class SwerveDrivetrain extends SubsystemBase {
         m_frMod.setDesiredState(states[1]);
         m_blMod.setDesiredState(states[2]);
         m_brMod.setDesiredState(states[3]);
+        Logger.getInstance().recordOutput("Swerve/DesiredStates", states);
+
+        if (Telemetry.DEBUG) {
+            for (int i = 0; i < 4; i++) {
+                m_desiredSpeedEntries[i].set(states[i].speedMetersPerSecond);
+                m_desiredStatesEntry.put(2 * i, states[i].angle.getDegrees());
+                m_desiredStatesEntry.put(2 * i + 1, states[i].speedMetersPerSecond);
+            }
+            m_desiredStatesEntry.commit(RobotController.getFPGATime());
+        }
+    }
 
-        SmartDashboard.putNumber("FL Desired Speed", states[0].speedMetersPerSecond);
-        SmartDashboard.putNumber("FR Desired Speed", states[1].speedMetersPerSecond);
-        SmartDashboard.putNumber("BL Desired Speed", states[2].speedMetersPerSecond);
-        SmartDashboard.putNumber("BR Desired Speed", states[3].speedMetersPerSecond);
+    private void publishModuleStates() {
+        long timestamp = RobotController.getFPGATime();
+        m_moduleStatesEntry.put(0, m_inputs.flAngleDeg);
+        m_moduleStatesEntry.put(1, m_inputs.flDriveSpeedMPS);
+        m_moduleStatesEntry.put(2, m_inputs.frAngleDeg);
+        m_moduleStatesEntry.put(3, m_inputs.frDriveSpeedMPS);
+        m_moduleStatesEntry.put(4, m_inputs.blAngleDeg);
+        m_moduleStatesEntry.put(5, m_inputs.blDriveSpeedMPS);
+        m_moduleStatesEntry.put(6, m_inputs.brAngleDeg);
+        m_moduleStatesEntry.put(7, m_inputs.brDriveSpeedMPS);
+        m_moduleStatesEntry.commit(timestamp);
+
+        for (int i = 0; i < 4; i++) {
+            m_modulePositionsEntry.put(2 * i, Math.toDegrees(m_inputs.moduleAnglesRad[i]));
+            m_modulePositionsEntry.put(2 * i + 1, m_inputs.moduleDistancesM[i]);
+        }
+        m_modulePositionsEntry.commit(timestamp);
+    }
+
+    private void updateField() {
+        m_field.setRobotPose(m_poseEstimator.getEstimatedPosition());
     }
 
     public void resetGyro(double heading) {
-        m_gyro.setYaw(heading);
+        // Under the lock so a sample that read the old heading can't be queued after the reset
+        synchronized (m_odometryLock) {
+            m_gyro.setYaw(heading);
+            clearOdometrySamples();
+        }
+        // So the rest of this cycle sees the new heading, the next inputs read it from the gyro
+        m_inputs.gyroYawDeg = heading;
     }
 
     public void resetGyro() {
@@ -231,20 +337,20 @@ public class SwerveDrivetrain extends SubsystemBase {
     }
 
     public Rotation2d getGyroPitch() {
-        return Rotation2d.fromDegrees(m_gyro.getPitch());
+        return Rotation2d.fromDegrees(m_inputs.gyroPitchDeg);
     }
 
     public Rotation2d getGyroRoll() {
-        return Rotation2d.fromDegrees(m_gyro.getRoll());
+        return Rotation2d.fromDegrees(m_inputs.gyroRollDeg);
     }
 
     public double getGyroPitchRate() {
         //Account for initial boot time
         if (m_prevTime == 0) {
-            m_prevTime = RobotController.getFPGATime();
+            m_prevTime = Logger.getInstance().getTimestamp();
         }
         // Return the rate of falling
-        double fpgaElapsedTime = RobotController.getFPGATime() - m_prevTime;
+        double fpgaElapsedTime = Logger.getInstance().getTimestamp() - m_prevTime;
         return (m_currentPitch - m_previousPitch) / fpgaElapsedTime;
     }
 
@@ -269,14 +375,122 @@ public class SwerveDrivetrain extends SubsystemBase {
         m_inputs.brDriveSpeedMPS = m_brMod.getModuleState().speedMetersPerSecond;
 
         m_inputs.gyroPitchDeg = m_gyro.getPitch();
+        m_inputs.gyroRollDeg = m_gyro.getRoll();
         m_inputs.gyroYawDeg = m_gyro.getYaw();
+
+        double[] distances = new double[4];
+        double[] angles = new double[4];
+        distances[0] = m_flMod.getDrivePositionMeters();
+        distances[1] = m_frMod.getDrivePositionMeters();
+        distances[2] = m_blMod.getDrivePositionMeters();
+        distances[3] = m_brMod.getDrivePositionMeters();
+        angles[0] = m_flMod.getAngleRadians();
+        angles[1] = m_frMod.getAngleRadians();
+        angles[2] = m_blMod.getAngleRadians();
+        angles[3] = m_brMod.getAngleRadians();
+        m_inputs.moduleDistancesM = distances;
+        m_inputs.moduleAnglesRad = angles;
+
+        drainOdometrySamples();
+    }
+
+    /**
+     * Reads the gyro and module encoders and queues them for the pose estimator. Runs on the rate
+     * group thread, so it only reads hardware and doesn't touch the estimator.
+     */
+    private void sampleOdometry() {
+        long resets;
+        synchronized (m_odometryLock) {
+            resets = m_odometryResets;
+        }
+        double timestamp = Timer.getFPGATimestamp();
+        // The same accessor as the inputs, so samples and the fallback agree
+        double yawDeg = m_gyro.getYaw();
+        m_scratchDistances[0] = m_flMod.getDrivePositionMeters();
+        m_scratchDistances[1] = m_frMod.getDrivePositionMeters();
+        m_scratchDistances[2] = m_blMod.getDrivePositionMeters();
+        m_scratchDistances[3] = m_brMod.getDrivePositionMeters();
+        m_scratchAngles[0] = m_flMod.getAngleRadians();
+        m_scratchAngles[1] = m_frMod.getAngleRadians();
+        m_scratchAngles[2] = m_blMod.getAngleRadians();
+        m_scratchAngles[3] = m_brMod.getAngleRadians();
+
+        synchronized (m_odometryLock) {
+            if (resets != m_odometryResets) {
+                // Read before a reset, so it has the old heading or pose
+                return;
+            }
+            if (m_sampleCount == MAX_ODOMETRY_SAMPLES) {
+                // The main loop has stalled, keep the older samples so the estimator sees a continuous path
+                m_droppedSamples++;
+                return;
+            }
+            m_sampleTimestamps[m_sampleCount] = timestamp;
+            m_sampleYawDeg[m_sampleCount] = yawDeg;
+            System.arraycopy(m_scratchDistances, 0, m_sampleDistances[m_sampleCount], 0, 4);
+            System.arraycopy(m_scratchAngles, 0, m_sampleAngles[m_sampleCount], 0, 4);
+            m_sampleCount++;
+        }
+    }
+
+    private void clearOdometrySamples() {
+        synchronized (m_odometryLock) {
+            m_sampleCount = 0;
+            m_odometryResets++;
+        }
+    }
+
+    /**
+     * Moves the samples taken since the last cycle into the inputs, so a replay sees the same samples
+     */
+    private void drainOdometrySamples() {
+        int sampleCount;
+        double[] timestamps;
+        double[] yawDeg;
+        double[] distances;
+        double[] angles;
+        synchronized (m_odometryLock) {
+            sampleCount = m_sampleCount;
+            timestamps = Arrays.copyOf(m_sampleTimestamps, sampleCount);
+            yawDeg = Arrays.copyOf(m_sampleYawDeg, sampleCount);
+            distances = new double[sampleCount * 4];
+            angles = new double[sampleCount * 4];
+            for (int i = 0; i < sampleCount; i++) {
+                System.arraycopy(m_sampleDistances[i], 0, distances, i * 4, 4);
+                System.arraycopy(m_sampleAngles[i], 0, angles, i * 4, 4);
+            }
+            m_inputs.droppedOdometrySamples = m_droppedSamples;
+            m_sampleCount = 0;
+        }
+
+        if (sampleCount == 0) {
+            // The rate group thread isn't running, fall back to one sample per loop
+            timestamps = new double[] {Timer.getFPGATimestamp()};
+            yawDeg = new double[] {m_inputs.gyroYawDeg};
+            distances = m_inputs.moduleDistancesM.clone();
+            angles = m_inputs.moduleAnglesRad.clone();
+        }
+        m_inputs.odometryTimestamps = timestamps;
+        m_inputs.odometryYawDeg = yawDeg;
+        m_inputs.odometryDistancesM = distances;
+        m_inputs.odometryAnglesRad = angles;
     }
 
     public void updatePoseEstimator() {
         /*
          * Get swerve odometry
          */
-        m_poseEstimator.update(getGyroYaw(), getModulePositions());
+        int sampleCount = m_inputs.odometryTimestamps.length;
+        for (int i = 0; i < sampleCount; i++) {
+            SwerveModulePosition[] positions = new SwerveModulePosition[4];
+            for (int module = 0; module < 4; module++) {
+                positions[module] = new SwerveModulePosition(
+                        m_inputs.odometryDistancesM[i * 4 + module], new Rotation2d(m_inputs.odometryAnglesRad[i * 4 + module]));
+            }
+            m_poseEstimator.updateWithTime(m_inputs.odometryTimestamps[i], Rotation2d.fromDegrees(m_inputs.odometryYawDeg[i]), positions);
+        }
+        Logger.getInstance().recordOutput("Swerve/OdometrySamples", sampleCount);
+        Logger.getInstance().recordOutput("Swerve/DroppedOdometrySamples", m_inputs.droppedOdometrySamples);
 
         if (false) {
             Pose2d botpose = LimelightHelpers.getBotPose2d("limelight");
@@ -287,6 +501,7 @@ public class SwerveDrivetrain extends SubsystemBase {
     }
 
     public void resetPose(Pose2d newPose) {
+        clearOdometrySamples();
         m_poseEstimator.resetPosition(getGyroYaw(), getModulePositions(), newPose);
     }
 
@@ -296,10 +511,10 @@ public class SwerveDrivetrain extends SubsystemBase {
 
     public double[] getAngles() {
         return new double[] {
-                m_flMod.getModuleAngle().getDegrees(),
-                m_frMod.getModuleAngle().getDegrees(),
-                m_blMod.getModuleAngle().getDegrees(),
-                m_brMod.getModuleAngle().getDegrees()
+                Math.toDegrees(m_inputs.moduleAnglesRad[0]),
+                Math.toDegrees(m_inputs.moduleAnglesRad[1]),
+                Math.toDegrees(m_inputs.moduleAnglesRad[2]),
+                Math.toDegrees(m_inputs.moduleAnglesRad[3])
         };
     }
 
@@ -20,11 +20,15 @@ import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.util.Units;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.Constants.ModuleConstants;
 import lib.utils.Swerve.CTREModuleState;
 import lib.utils.Swerve.FalconProConfigFactory;
 import lib.utils.Utils;
+import lib.utils.drivers.TalonFXProEnhanced;
+import lib.utils.profiling.StartupTracer;
+import lib.utils.telemetry.DashboardPublisher;
+import lib.utils.telemetry.Telemetry;
+import lib.utils.telemetry.TelemetryLevel;
 
 import static com.ctre.phoenix.motorcontrol.TalonFXControlMode.Velocity;
 
@@ -33,6 +37,9 @@ public class FalconProModule{
     private final TalonFX m_driveMotor;
     private final TalonFX m_azimuthMotor;
     private final CANCoder m_encoder;
+    // Only send the control requests that changed
+    private final TalonFXProEnhanced m_driveOutput;
+    private final TalonFXProEnhanced m_azimuthOutput;
 
     private int m_lastAngle;
     private double m_magnetOffset;
@@ -40,10 +47,16 @@ public class FalconProModule{
     private final PositionDutyCycle m_azimuthControl = new PositionDutyCycle(0);
     private final VelocityVoltage m_driveControl = new VelocityVoltage(0);
 
+    private final DashboardPublisher.NumberEntry m_desiredAngleEntry = DashboardPublisher.getInstance().number("Desired Angle", TelemetryLevel.VERBOSE);
+    private final DashboardPublisher.NumberEntry m_desiredSpeedEntry = DashboardPublisher.getInstance().number("Desired Speed MPS", TelemetryLevel.VERBOSE);
+    private final DashboardPublisher.NumberEntry m_calculatedRpsEntry = DashboardPublisher.getInstance().number("Calculated speed RPS", TelemetryLevel.VERBOSE);
+
     public FalconProModule(double angleOffset, int[] moduleIds) {
         m_driveMotor = new TalonFX(moduleIds[0]);
         m_azimuthMotor = new TalonFX(moduleIds[1]);
         m_encoder = new CANCoder(moduleIds[2]);
+        m_driveOutput = new TalonFXProEnhanced(m_driveMotor);
+        m_azimuthOutput = new TalonFXProEnhanced(m_azimuthMotor);
 
         m_lastAngle = 0;
         m_magnetOffset = angleOffset;
@@ -51,8 +64,10 @@ public class FalconProModule{
         m_azimuthControl.EnableFOC = true;
         m_driveControl.EnableFOC = true;
 
+        StartupTracer.begin("FalconProModule " + moduleIds[0] + " Config");
         configureDevices();
         setMagnetOffset();
+        StartupTracer.end();
     }
 
     /**
@@ -71,14 +86,16 @@ public class FalconProModule{
 
         m_driveControl.Velocity = calculateRPSForMPS(state.speedMetersPerSecond);
 
-        SmartDashboard.putNumber("Desired Angle", state.angle.getRotations());
-        SmartDashboard.putNumber("Desired Speed MPS", state.speedMetersPerSecond);
-        SmartDashboard.putNumber("Calculated speed RPS", calculateRPSForMPS(state.speedMetersPerSecond));
+        if (Telemetry.VERBOSE) {
+            m_desiredAngleEntry.set(state.angle.getRotations());
+            m_desiredSpeedEntry.set(state.speedMetersPerSecond);
+            m_calculatedRpsEntry.set(m_driveControl.Velocity);
+        }
 
         // Set the motor outputs
-        m_driveMotor.setControl(m_driveControl);
+        m_driveOutput.setControl(m_driveControl);
 //        m_driveMotor.setControl(new DutyCycleOut(state.speedMetersPerSecond / ModuleConstants.MAX_SPEED_L1_MPS));
-        m_azimuthMotor.setControl(m_azimuthControl);
+        m_azimuthOutput.setControl(m_azimuthControl);
     }
 
     /**
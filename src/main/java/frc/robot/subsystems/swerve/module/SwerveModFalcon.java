@@ -3,6 +3,9 @@ package frc.robot.subsystems.swerve.module;
 import frc.robot.Constants.ModuleConstants;
 import lib.utils.Utils;
 import lib.utils.Swerve.CTREModuleState;
+import lib.utils.telemetry.DashboardPublisher;
+import lib.utils.telemetry.Telemetry;
+import lib.utils.telemetry.TelemetryLevel;
 
 import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.DemandType;
@@ -15,13 +18,13 @@ import com.ctre.phoenix.sensors.SensorInitializationStrategy;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 public class SwerveModFalcon {
     // Physical motors/sensors
     private final TalonFX m_driveFx;
     private final TalonFX m_azimuthFx;
     private final CANCoder m_encoder;
+    private final DashboardPublisher.NumberEntry m_drivePowerEntry = DashboardPublisher.getInstance().number("Drive Power", TelemetryLevel.VERBOSE);
 
     // Variables stored in code
     private double m_lastAngle;
@@ -69,7 +72,9 @@ public class SwerveModFalcon {
         // double desiredSpeed = desiredState.speedMetersPerSecond;
         double percentOutput = desiredState.speedMetersPerSecond; /// ModuleConstants.kMaxSpeedMetersPerSecond; //This is swerve max speed , figure ths out
 
-        SmartDashboard.putNumber("Drive Power", percentOutput);
+        if (Telemetry.VERBOSE) {
+            m_drivePowerEntry.set(percentOutput);
+        }
 
         double angle = Utils.degreesToFalcon(desiredState.angle.getDegrees(), ModuleConstants.TURNING_RATIO); 
 
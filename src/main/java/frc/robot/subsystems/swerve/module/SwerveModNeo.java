@@ -19,8 +19,10 @@ import edu.wpi.first.math.util.Units;
 import frc.robot.Constants.ModuleConstants;
 import lib.factories.SparkMaxFactory;
 import lib.utils.Rev.SparkMaxConfigs;
+import lib.utils.Rev.SparkMaxWrapper;
 import lib.utils.drivers.CTREUtil;
 import lib.utils.drivers.RevUtil;
+import lib.utils.profiling.StartupTracer;
 
 public class SwerveModNeo{
   public final int moduleNumber;
@@ -33,6 +35,9 @@ public class SwerveModNeo{
   private final CANSparkMax m_angleMotor;
   private final RelativeEncoder m_angleEncoder;
   private final SparkMaxPIDController m_anglePID;
+  // Only send the setpoints when they change
+  private final SparkMaxWrapper m_driveOutput;
+  private final SparkMaxWrapper m_angleOutput;
   
   private final CANCoder m_canCoder;
   private final double m_canCoderOffsetDegrees;
@@ -48,6 +53,9 @@ public class SwerveModNeo{
     this.m_invert = driveInvert;
     SparkMaxFactory.SparkMaxConfig config = new SparkMaxFactory.SparkMaxConfig();
     config.setCurrentLimit(50);
+    // Matches configCanStatusFrames below, so the frame profiles start from the periods the module uses
+    config.setAllFrameRates(SparkMaxConfigs.MEDIUM_CAN_FRAME);
+    config.setFastFeedbackInAuto(true);
 
     m_driveMotor = SparkMaxFactory.Companion.createSparkMax(canIds[0], config);
     m_driveEncoder = m_driveMotor.getEncoder();
@@ -56,11 +64,15 @@ public class SwerveModNeo{
     m_angleMotor = new CANSparkMax(canIds[1], CANSparkMaxLowLevel.MotorType.kBrushless);
     m_angleEncoder = m_angleMotor.getEncoder();
     m_anglePID = m_angleMotor.getPIDController();
+    m_driveOutput = new SparkMaxWrapper(m_driveMotor);
+    m_angleOutput = new SparkMaxWrapper(m_angleMotor);
 
     m_canCoder = new CANCoder(canIds[2]);
     m_canCoderOffsetDegrees = offsets;
 
+    StartupTracer.begin("Module " + moduleNumber + " Config");
     configureDevices();
+    StartupTracer.end();
     m_lastAngle = getModuleState().angle.getRadians();
 
     m_driveFF = new SimpleMotorFeedforward(ModuleConstants.MODULE_KS, ModuleConstants.MODULE_KV, ModuleConstants.MODULE_KA);
@@ -73,16 +85,16 @@ public class SwerveModNeo{
 
     double speed = state.speedMetersPerSecond;
     if (isOpenLoop) {
-      m_driveMotor.set(speed / ModuleConstants.MAX_SPEED_L2_MPS);
+      m_driveOutput.set(speed / ModuleConstants.MAX_SPEED_L2_MPS);
     } else {
       double speedff = m_driveFF.calculate(speed);
-      m_drivePID.setReference(speed, CANSparkMax.ControlType.kVoltage, 0, speedff);
+      m_driveOutput.setReference(speed, CANSparkMax.ControlType.kVoltage, 0, speedff);
     }
     double angle = Math.abs(state.speedMetersPerSecond) <= 0.0
       ? m_lastAngle
       : state.angle.getRadians();
 
-    m_anglePID.setReference(angle, CANSparkMax.ControlType.kPosition);
+    m_angleOutput.setReference(angle, CANSparkMax.ControlType.kPosition);
     m_lastAngle = angle;
   }
 
@@ -96,6 +108,20 @@ public class SwerveModNeo{
     return Rotation2d.fromRadians(m_angleEncoder.getPosition());
   }
 
+  /**
+   * @return the distance driven in meters, read without creating any objects
+   */
+  public double getDrivePositionMeters() {
+    return m_driveEncoder.getPosition();
+  }
+
+  /**
+   * @return the module angle in radians, read without creating any objects
+   */
+  public double getAngleRadians() {
+    return m_angleEncoder.getPosition();
+  }
+
   public SwerveModulePosition getModulePosition() {
     double distance = m_driveEncoder.getPosition();
     Rotation2d rot = new Rotation2d(m_angleEncoder.getPosition());
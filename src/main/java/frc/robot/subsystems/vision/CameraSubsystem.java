@@ -10,6 +10,10 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 import frc.robot.Constants;
 
+import lib.utils.profiling.StartupTracer;
+import lib.utils.profiling.jfr.FlightRecorderControl;
+import lib.utils.profiling.jfr.VisionUpdateEvent;
+
 import org.littletonrobotics.junction.Logger;
 import org.photonvision.EstimatedRobotPose;
 import org.photonvision.PhotonCamera;
@@ -51,8 +55,13 @@ public class CameraSubsystem implements Subsystem {
         // set origin point for allience. This is done because pathplanner flips paths for alliances weirdly,
         // causing need for this
         try {
-            m_aprilTagFieldLayout =
-                AprilTagFieldLayout.loadFromResource(AprilTagFields.k2023ChargedUp.m_resourceFile);
+            StartupTracer.begin("AprilTag Layout Load");
+            try {
+                m_aprilTagFieldLayout =
+                    AprilTagFieldLayout.loadFromResource(AprilTagFields.k2023ChargedUp.m_resourceFile);
+            } finally {
+                StartupTracer.end();
+            }
            if (DriverStation.getAlliance() == DriverStation.Alliance.Blue) {
                m_aprilTagFieldLayout.setOrigin(AprilTagFieldLayout.OriginPosition.kBlueAllianceWallRightSide);
            } else {
@@ -73,6 +82,12 @@ public class CameraSubsystem implements Subsystem {
      * @return Optional estimatedRobotPose, a Pose3d and a timestamp in seconds
      */
     public Optional<EstimatedRobotPose> getPose(Pose2d prevEstimatedRobotPose) {
+        VisionUpdateEvent event = null;
+        if (FlightRecorderControl.isRecording()) {
+            event = new VisionUpdateEvent();
+            event.begin();
+        }
+
         m_photonPoseEstimator.setReferencePose(prevEstimatedRobotPose);
 
         // Check for alllience switch, used mainly for non-comp testing
@@ -89,7 +104,13 @@ public class CameraSubsystem implements Subsystem {
 
         PhotonPipelineResult camResult = m_camera.getLatestResult();
 
-        return m_photonPoseEstimator.update(camResult);
+        Optional<EstimatedRobotPose> estimatedPose = m_photonPoseEstimator.update(camResult);
+        if (event != null) {
+            event.camera = m_camera.getName();
+            event.hasPose = estimatedPose.isPresent();
+            event.commit();
+        }
+        return estimatedPose;
 
         // temporarily commented code used for filtering targets based on distance and ambiguity
 
@@ -6,11 +6,17 @@ import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import lib.factories.SparkMaxFactory;
+import lib.utils.profiling.LoopProfiler;
+import lib.utils.profiling.ProfiledSection;
+import lib.utils.telemetry.DashboardPublisher;
+import lib.utils.telemetry.Telemetry;
+import lib.utils.telemetry.TelemetryLevel;
+import org.littletonrobotics.junction.AutoLog;
+import org.littletonrobotics.junction.Logger;
 
 /**
  * the subsystem that runs the wrist of the robot, just for practise
@@ -21,9 +27,18 @@ public class PractiseWrist extends SubsystemBase {
     CANCoder turningEncoder;
     DigitalInput turingLimitSwitch;
     CANSparkMax intakeMotor;
+    private final ProfiledSection m_periodicSection = LoopProfiler.getInstance().registerSubsystem(this);
+    private final DashboardPublisher.NumberEntry m_wristAngleEntry = DashboardPublisher.getInstance().number("wrist angle(degrees)", TelemetryLevel.DEBUG);
 
     // private final PIDController wristPID = new PIDController(Constants.WristConstants.WRIST_KP, Constants.WristConstants.WRIST_KI, Constants.WristConstants.WRIST_KD);
     private final ProfiledPIDController wristPID = new ProfiledPIDController(0.04, 0, 0.0003, new TrapezoidProfile.Constraints(3000, 3000));
+    private final PractiseWristIOInputsAutoLogged m_inputs = new PractiseWristIOInputsAutoLogged();
+
+    @AutoLog
+    public static class PractiseWristIOInputs {
+        public double encoderPosition = 0.0;
+        public boolean limitReached = false;
+    }
 
     /**
      * initializes the wrist
@@ -47,7 +62,7 @@ public class PractiseWrist extends SubsystemBase {
      * @return the degrees
      */
     public double getWristDegrees() {
-        return (turningEncoder.getPosition() / Constants.WristConstants.WRIST_PIVOT_RATIO);
+        return (m_inputs.encoderPosition / Constants.WristConstants.WRIST_PIVOT_RATIO);
     }
 
     public void setWristMotorPower(double desiredPower) {
@@ -57,6 +72,7 @@ public class PractiseWrist extends SubsystemBase {
 
     public void setWristEncoderAngle(double degrees) {
         turningEncoder.setPosition(degrees);
+        m_inputs.encoderPosition = degrees;
     }
 
     public void setWristEncoderToZeroAngle() {
@@ -80,7 +96,7 @@ public class PractiseWrist extends SubsystemBase {
     }
 
     public boolean limitReached() {
-        return !turingLimitSwitch.get();
+        return m_inputs.limitReached;
     }
 
     /**
@@ -106,8 +122,19 @@ public class PractiseWrist extends SubsystemBase {
 
     @Override
     public void periodic() {
-        SmartDashboard.putNumber("wrist angle(degrees)", getWristDegrees());
+        m_periodicSection.begin();
+        updateInputs();
+        Logger.getInstance().processInputs("Practise Wrist", m_inputs);
+        if (Telemetry.DEBUG) {
+            m_wristAngleEntry.set(getWristDegrees());
+        }
         if (limitReached()) setWristEncoderToZeroAngle();
+        m_periodicSection.end();
+    }
+
+    private void updateInputs() {
+        m_inputs.encoderPosition = turningEncoder.getPosition();
+        m_inputs.limitReached = !turingLimitSwitch.get();
     }
 
     public Command setWristPosition(double degrees) {
@@ -10,22 +10,41 @@ import edu.wpi.first.networktables.GenericEntry;
 import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Constants.WristConstants;
 import lib.factories.SparkMaxFactory;
+import lib.utils.Rev.SparkMaxWrapper;
+import lib.utils.profiling.LoopProfiler;
+import lib.utils.profiling.ProfiledSection;
+import lib.utils.scheduling.RateGroup;
+import lib.utils.scheduling.RateGroupScheduler;
+import lib.utils.telemetry.DashboardPublisher;
+import lib.utils.telemetry.DashboardThread;
+import lib.utils.telemetry.SnapshotExchanger;
+import lib.utils.telemetry.Telemetry;
+import lib.utils.telemetry.TelemetryBudget;
+import lib.utils.telemetry.TelemetryLevel;
 import org.littletonrobotics.junction.AutoLog;
 import org.littletonrobotics.junction.Logger;
 
 public class WristSubsystem extends SubsystemBase {
     private final CANSparkMax m_wristMotor;
     private final CANSparkMax m_intakeMotor;
+    // Only send the output when it changes
+    private final SparkMaxWrapper m_wristOutput;
+    private final SparkMaxWrapper m_intakeOutput;
     private final DigitalInput m_wristZeroLimit;
     private final CANCoder m_wristEncoder;
     private final PIDController m_wristPID;
     private final WristIOInputsAutoLogged m_input;
+    private final ProfiledSection m_periodicSection = LoopProfiler.getInstance().registerSubsystem(this);
+    private final DashboardPublisher.BooleanEntry m_intakeStallingEntry = DashboardPublisher.getInstance().bool("Intake Stalling", TelemetryLevel.COMPETITION);
+    private final DashboardPublisher.NumberEntry m_currentDrawEntry = DashboardPublisher.getInstance().number("Wrist Current Draw", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.BooleanEntry m_wristStallingEntry = DashboardPublisher.getInstance().bool("Wrist stalling", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.BooleanEntry m_atSetpointEntry = DashboardPublisher.getInstance().bool("Periodic Wrist at setpoint", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.BooleanEntry m_softLimitEntry = DashboardPublisher.getInstance().bool(HITTING_SOFT_LIMIT_STRING, TelemetryLevel.COMPETITION);
 
     // Logging variables
     private double prevSetpointRaw;
@@ -47,11 +66,30 @@ public class WristSubsystem extends SubsystemBase {
     private GenericEntry wristPIDOutputEntry;
     private GenericEntry wristMotorOutputEntry;
     private GenericEntry intakeMotorOutputEntry;
+    private final SnapshotExchanger<ShuffleboardSnapshot> m_shuffleboardSnapshots = new SnapshotExchanger<>(ShuffleboardSnapshot::new);
+
+    private static final class ShuffleboardSnapshot {
+        private boolean atSetpoint;
+        private boolean pieceInside;
+        private boolean atUpperLimit;
+        private boolean atLowerLimit;
+        private boolean encoderLowerThanLimit;
+        private double angleRaw;
+        private double angleConverted;
+        private double target;
+        private double setpointClamped;
+        private double pidOutput;
+        private double motorOutput;
+        private double intakeMotorOutput;
+    }
 
     @AutoLog
     public static class WristIOInputs {
         public double wristAngle = 0.0;
+        public double wristEncoderRaw = 0.0;
         public double intakeAmps = 0.0;
+        public boolean intakeStalling = false;
+        public boolean atLowerLimit = false;
     }
 
     public WristSubsystem() {
@@ -70,6 +108,8 @@ public class WristSubsystem extends SubsystemBase {
         config.setCurrentLimit(40);
         config.setInverted(false);
         m_intakeMotor  = SparkMaxFactory.Companion.createSparkMax(WristConstants.INTAKE_ID, config);
+        m_wristOutput = new SparkMaxWrapper(m_wristMotor);
+        m_intakeOutput = new SparkMaxWrapper(m_intakeMotor);
 
         m_wristEncoder = new CANCoder(WristConstants.WRIST_ANGLE_PORT);
         m_wristEncoder.configSensorInitializationStrategy(SensorInitializationStrategy.BootToZero);
@@ -80,9 +120,13 @@ public class WristSubsystem extends SubsystemBase {
         m_wristPID = new PIDController(WristConstants.WRIST_KP, WristConstants.WRIST_KI, WristConstants.WRIST_KD);
         m_wristPID.setTolerance(5);
 
-        wristSubsystemTab = Shuffleboard.getTab("WristSubsystem");
-
-        addShuffleboardData();
+        wristSubsystemTab = Telemetry.DEBUG ? Shuffleboard.getTab("WristSubsystem") : null;
+        if (Telemetry.DEBUG) {
+            addShuffleboardData();
+            RateGroupScheduler.getInstance().addTask(RateGroup.SLOW_100MS, this::fillShuffleboardSnapshot);
+            TelemetryBudget.Group budgetGroup = TelemetryBudget.getInstance().group("Shuffleboard/WristSubsystem", TelemetryBudget.Priority.LOW, 10);
+            DashboardThread.getInstance().add(m_shuffleboardSnapshots, budgetGroup, 12, this::publishShuffleboardSnapshot);
+        }
     }
 
     private void addShuffleboardData() {
@@ -108,49 +152,75 @@ public class WristSubsystem extends SubsystemBase {
         intakeMotorOutputEntry = wristSubsystemTab.add("Intake motor output", m_intakeMotor.getAppliedOutput()).getEntry();
     }
 
-    private void updateShuffleboardData() {
+    private void fillShuffleboardSnapshot() {
+        ShuffleboardSnapshot snapshot = m_shuffleboardSnapshots.getWriteBuffer();
         // Booleans
         // Misc.
-        wristAtSetpointEntry.setBoolean(atSetpoint());
-        pieceInsideEntry.setBoolean(pieceInside());
+        snapshot.atSetpoint = atSetpoint();
+        snapshot.pieceInside = pieceInside();
         // Limits
-        wristAtUpperLimit.setBoolean(wristAtUpperLimit());
-        wristAtLowerLimitEntry.setBoolean(atLowerLimit());
-        wristEncoderLowerThanLimitEntry.setBoolean(debugWristLowerThanLimit());
+        snapshot.atUpperLimit = wristAtUpperLimit();
+        snapshot.atLowerLimit = atLowerLimit();
+        snapshot.encoderLowerThanLimit = debugWristLowerThanLimit();
 
         // Doubles
         // Angles
-        wristAngleRawEntry.setDouble(m_wristEncoder.getPosition());
-        wristAngleConvertedEntry.setDouble(getWristAngle());
+        snapshot.angleRaw = m_input.wristEncoderRaw;
+        snapshot.angleConverted = getWristAngle();
         // Targets
-        wristTargetEntry.setDouble(prevSetpointRaw);
-        wristSetpointClampedEntry.setDouble(prevSetpointClamped);
-        wristPIDOutputEntry.setDouble(prevSetpointPID);
+        snapshot.target = prevSetpointRaw;
+        snapshot.setpointClamped = prevSetpointClamped;
+        snapshot.pidOutput = prevSetpointPID;
         // Misc.
-        wristMotorOutputEntry.setDouble(m_wristMotor.getAppliedOutput());
-        intakeMotorOutputEntry.setDouble(m_intakeMotor.getAppliedOutput());
+        snapshot.motorOutput = m_wristMotor.getAppliedOutput();
+        snapshot.intakeMotorOutput = m_intakeMotor.getAppliedOutput();
+        m_shuffleboardSnapshots.publish();
+    }
+
+    // Runs on the dashboard thread
+    private void publishShuffleboardSnapshot(ShuffleboardSnapshot snapshot) {
+        wristAtSetpointEntry.setBoolean(snapshot.atSetpoint);
+        pieceInsideEntry.setBoolean(snapshot.pieceInside);
+        wristAtUpperLimit.setBoolean(snapshot.atUpperLimit);
+        wristAtLowerLimitEntry.setBoolean(snapshot.atLowerLimit);
+        wristEncoderLowerThanLimitEntry.setBoolean(snapshot.encoderLowerThanLimit);
+
+        wristAngleRawEntry.setDouble(snapshot.angleRaw);
+        wristAngleConvertedEntry.setDouble(snapshot.angleConverted);
+        wristTargetEntry.setDouble(snapshot.target);
+        wristSetpointClampedEntry.setDouble(snapshot.setpointClamped);
+        wristPIDOutputEntry.setDouble(snapshot.pidOutput);
+        wristMotorOutputEntry.setDouble(snapshot.motorOutput);
+        intakeMotorOutputEntry.setDouble(snapshot.intakeMotorOutput);
     }
 
     @Override
     public void periodic() {
+        m_periodicSection.begin();
         updateInputs(m_input);
         Logger.getInstance().processInputs("Arm Wrist", m_input);
 
-        updateShuffleboardData();
-
         if (atLowerLimit()) {
             zeroWristAngle();
         }
 
-        SmartDashboard.putNumber("Wrist Current Draw", m_wristMotor.getOutputCurrent());
-        SmartDashboard.putBoolean("Intake Stalling", m_intakeMotor.getFault(CANSparkMax.FaultID.kStall));
-        SmartDashboard.putBoolean("Wrist stalling", m_wristMotor.getFault(CANSparkMax.FaultID.kStall));
-        SmartDashboard.putBoolean("Periodic Wrist at setpoint", atSetpoint());
+        if (Telemetry.COMPETITION) {
+            m_intakeStallingEntry.set(m_intakeMotor.getFault(CANSparkMax.FaultID.kStall));
+        }
+        if (Telemetry.DEBUG) {
+            m_currentDrawEntry.set(m_wristMotor.getOutputCurrent());
+            m_wristStallingEntry.set(m_wristMotor.getFault(CANSparkMax.FaultID.kStall));
+            m_atSetpointEntry.set(atSetpoint());
+        }
+        m_periodicSection.end();
     }
 
     public void updateInputs(WristIOInputsAutoLogged inputs){
-        inputs.intakeAmps = getIntakeAmps();
-        inputs.wristAngle = getWristAngle();
+        inputs.intakeAmps = m_intakeMotor.getOutputCurrent();
+        inputs.intakeStalling = m_intakeMotor.getFault(CANSparkMax.FaultID.kStall);
+        inputs.wristEncoderRaw = m_wristEncoder.getPosition();
+        inputs.wristAngle = inputs.wristEncoderRaw / WristConstants.WRIST_PIVOT_RATIO;
+        inputs.atLowerLimit = !m_wristZeroLimit.get();
     }
     
     //Setters
@@ -165,22 +235,24 @@ public class WristSubsystem extends SubsystemBase {
         prevSetpointClamped = targetAngleClamped;
         prevSetpointPID = targetAnglePID;
 
-        m_wristMotor.set(targetAnglePID);
+        m_wristOutput.set(targetAnglePID);
     }
 
     static final String HITTING_SOFT_LIMIT_STRING = "Wrist Hitting Soft Limit";
     public void setWristPower(double speed) {
 
+        boolean hittingSoftLimit;
         if (atLowerLimit() && speed <= 0){
-            m_wristMotor.set(0.0);
-            SmartDashboard.putBoolean(HITTING_SOFT_LIMIT_STRING, true);
+            m_wristOutput.set(0.0);
+            hittingSoftLimit = true;
         } else if (getWristAngle() >= Constants.LimitConstants.WRIST_SCORE_UPPER.getValue() && speed >= 0) {
-            SmartDashboard.putBoolean(HITTING_SOFT_LIMIT_STRING, true);
-            m_wristMotor.set(0.0);
+            hittingSoftLimit = true;
+            m_wristOutput.set(0.0);
         } else {
-            m_wristMotor.set(speed);
-            SmartDashboard.putBoolean(HITTING_SOFT_LIMIT_STRING, false);
+            m_wristOutput.set(speed);
+            hittingSoftLimit = false;
         }
+        m_softLimitEntry.set(hittingSoftLimit);
     }
 
     public Command setWristPowerFactory(double speed) {
@@ -193,9 +265,9 @@ public class WristSubsystem extends SubsystemBase {
 
     public void setIntakeSpeed(double speed) {
         if (speed == 0) {
-            m_intakeMotor.set(0.1);
+            m_intakeOutput.set(0.1);
         } else {
-            m_intakeMotor.set(speed);
+            m_intakeOutput.set(speed);
         }
     }
 
@@ -206,12 +278,14 @@ public class WristSubsystem extends SubsystemBase {
     public void zeroWristAngle() {
         if (atLowerLimit()) {
             m_wristEncoder.setPosition(0);
+            m_input.wristEncoderRaw = 0;
+            m_input.wristAngle = 0;
         }
     }
 
     //Getters
     public double getWristAngle() {
-        return m_wristEncoder.getPosition() / WristConstants.WRIST_PIVOT_RATIO;
+        return m_input.wristAngle;
     }
 
     public boolean wristAtUpperLimit() {
@@ -232,15 +306,15 @@ public class WristSubsystem extends SubsystemBase {
 
 
     public double getIntakeAmps() {
-        return m_intakeMotor.getOutputCurrent();
+        return m_input.intakeAmps;
     }
 
     public boolean atLowerLimit() {
-        return !m_wristZeroLimit.get();
+        return m_input.atLowerLimit;
     }
 
     public boolean pieceInside() {
-        return m_intakeMotor.getFault(CANSparkMax.FaultID.kStall);
+        return m_input.intakeStalling;
     }
 
     public boolean atSetpoint() {
@@ -248,7 +322,7 @@ public class WristSubsystem extends SubsystemBase {
     }
 
     public boolean isStalling() {
-        return m_intakeMotor.getFault(CANSparkMax.FaultID.kStall);
+        return m_input.intakeStalling;
     }
 
     public boolean hasWristHomed() { return m_hasWristHomed; }
@@ -262,7 +336,7 @@ public class WristSubsystem extends SubsystemBase {
                 setWristPower(0);
                 m_hasWristHomed = true;
             } else {
-                m_wristMotor.set(-0.2);
+                m_wristOutput.set(-0.2);
             }
         }
     }
@@ -3,8 +3,8 @@ package frc.robot.supersystems;
 import com.revrobotics.CANSparkMax;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.shim.Vector2d;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
@@ -17,6 +17,10 @@ import frc.robot.subsystems.wrist.WristSubsystem;
 import lib.utils.piecewise.PiecewiseInterval;
 import lib.utils.piecewise.Range;
 import lib.utils.piecewise.RangedPiecewise;
+import lib.utils.telemetry.DashboardPublisher;
+import lib.utils.telemetry.Telemetry;
+import lib.utils.telemetry.TelemetryLevel;
+import org.littletonrobotics.junction.Logger;
 
 import java.util.List;
 
@@ -40,6 +44,17 @@ public class ArmSupersystem {
     private final ArmAngleSubsystem m_angle;
     private final ArmExtSubsystem m_ext;
     private final WristSubsystem m_wrist;
+
+    private final DashboardPublisher.NumberEntry m_angleAdjustEntry = DashboardPublisher.getInstance().number("SuperAngleAdjust", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.NumberEntry m_angleLimitEntry = DashboardPublisher.getInstance().number("SuperAngleLimit", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.NumberEntry m_calcAngleEntry = DashboardPublisher.getInstance().number("SuperCalcAngle", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.NumberEntry m_calcExtEntry = DashboardPublisher.getInstance().number("SuperCalcExt", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.NumberEntry m_previousLimitEntry = DashboardPublisher.getInstance().legacyNumber("Previous Arm Angle Limit", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.NumberEntry m_armAngleEntry = DashboardPublisher.getInstance().legacyNumber("SuperArmAngle", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.NumberEntry m_armExtEntry = DashboardPublisher.getInstance().legacyNumber("SuperArmExt", TelemetryLevel.DEBUG);
+    private final DashboardPublisher.NumberEntry m_wristAngleEntry = DashboardPublisher.getInstance().legacyNumber("SuperWristAngle", TelemetryLevel.DEBUG);
+    // Arm angle, extension, wrist angle and the limited angle setpoint from the same cycle
+    private final DashboardPublisher.DoubleArrayEntry m_armPoseEntry = DashboardPublisher.getInstance().array("Arm/Pose", 4, TelemetryLevel.DEBUG);
     private final SwerveDrivetrain m_swerve;
 
     public ArmSupersystem(ArmAngleSubsystem armSubsystem, ArmExtSubsystem m_ext, WristSubsystem m_wrist, SwerveDrivetrain m_swerve) {
@@ -64,7 +79,7 @@ public class ArmSupersystem {
      * @param pose An ArmPose object storing the desired pose
      */
     public void setToPose(ArmPose pose) {
-        ArmLimits armLimits = limitPiecewise.calculate(m_angle.getArmAngle());
+        ArmLimits armLimits = getLimits(m_angle.getArmAngle());
         double wristSetpoint = armLimits.wristRange.clamp(pose.getWristSetpoint());
         double angleSetpoint = armLimits.armAngleRange.clamp(pose.getAngleSetpoint());
         double extSetpoint = armLimits.armExtRange.clamp(pose.extSetpoint);
@@ -78,7 +93,18 @@ public class ArmSupersystem {
         }
 
         // Angle limits and outputs are calculated here
-        m_angle.setArmAngle(calculateArmAngleLimit(angleSetpoint));
+        double limitedAngleSetpoint = calculateArmAngleLimit(angleSetpoint);
+        m_angle.setArmAngle(limitedAngleSetpoint);
+
+        Logger.getInstance().recordOutput("Arm/Setpoints", new double[] {limitedAngleSetpoint, extSetpoint, wristSetpoint});
+    }
+
+    /**
+     * Gets the wrist, extension and angle limits for the zone the arm is in
+     * @param armAngle the current arm angle in degrees
+     */
+    public static ArmLimits getLimits(double armAngle) {
+        return limitPiecewise.calculate(armAngle);
     }
 
     // Calculate the minimum arm angle to not run into the ground based on extension and wrist angle
@@ -89,38 +115,66 @@ public class ArmSupersystem {
         double currentWristAngle = m_wrist.getWristAngle();
 
         // Added safety when on the battery side of the bot
-        if((currentArmAngle < 75)  && (currentWristAngle > 10 || currentArmExtension > 0.6)) {
+        if(needsGroundLimit(currentArmAngle, currentArmExtension, currentWristAngle)) {
             Translation2d physicalArmExtension = getPhysicalArmExtension();
-            // Limit the angle to 50 degrees or higher while the arm is extended and wrist out
-            /*
+            double angleLimit = calculateGroundAngleLimit(currentArmAngle, physicalArmExtension);
+            desiredAngle = Math.max(desiredAngle, angleLimit);
+            if (Telemetry.DEBUG) {
+                if(physicalArmExtension.getNorm() > Constants.ArmConstants.PIVOT_HEIGHT) {
+                    m_angleAdjustEntry.set(currentArmAngle - physicalArmExtension.getAngle().getDegrees());
+                }
+                m_angleLimitEntry.set(angleLimit);
+                m_calcAngleEntry.set(physicalArmExtension.getAngle().getDegrees());
+                m_calcExtEntry.set(physicalArmExtension.getNorm());
+            }
+        }
+
+        if (Telemetry.DEBUG) {
+            m_previousLimitEntry.set(desiredAngle);
+            m_armAngleEntry.set(currentArmAngle);
+            m_armExtEntry.set(currentArmExtension);
+            m_wristAngleEntry.set(currentWristAngle);
+
+            m_armPoseEntry.put(0, currentArmAngle);
+            m_armPoseEntry.put(1, currentArmExtension);
+            m_armPoseEntry.put(2, currentWristAngle);
+            m_armPoseEntry.put(3, desiredAngle);
+            m_armPoseEntry.commit(RobotController.getFPGATime());
+        }
+
+        return desiredAngle;
+    }
+
+    /**
+     * @return true when the arm is on the battery side with the wrist or extension out, so it could
+     * hit the ground
+     */
+    public static boolean needsGroundLimit(double armAngle, double armExtension, double wristAngle) {
+        return (armAngle < 75) && (wristAngle > 10 || armExtension > 0.6);
+    }
+
+    /**
+     * Calculates the lowest arm angle that keeps the end of the arm off the ground. Only uses its
+     * arguments so it can be run without the subsystems.
+     * @param armAngle the current arm angle in degrees
+     * @param physicalArmExtension the vector from the pivot to the end of the arm
+     */
+    public static double calculateGroundAngleLimit(double armAngle, Translation2d physicalArmExtension) {
+        // Limit the angle to 50 degrees or higher while the arm is extended and wrist out
+        /*
                       / |
  arm ext = 36" + ext /  |
                  ---/   |   40in
              wrist^     |
               -----------  Robot base
 
-             */
-            final double armPhysicalExtensionNormal = physicalArmExtension.getNorm();
-            double angleLimit;
-            if(armPhysicalExtensionNormal > Constants.ArmConstants.PIVOT_HEIGHT) {
-                double angleAdjust = currentArmAngle - physicalArmExtension.getAngle().getDegrees();
-                angleLimit = Math.max(48, Math.toDegrees(Math.acos(Constants.ArmConstants.PIVOT_HEIGHT / physicalArmExtension.getNorm())) + angleAdjust + 2);
-                SmartDashboard.putNumber("SuperAngleAdjust", angleAdjust);
-            } else {
-                angleLimit = 50;
-            }
-            SmartDashboard.putNumber("SuperAngleLimit", angleLimit);
-            desiredAngle = Math.max(desiredAngle, angleLimit);
-            SmartDashboard.putNumber("SuperCalcAngle", physicalArmExtension.getAngle().getDegrees());
-            SmartDashboard.putNumber("SuperCalcExt", physicalArmExtension.getNorm());
+         */
+        final double armPhysicalExtensionNormal = physicalArmExtension.getNorm();
+        if(armPhysicalExtensionNormal > Constants.ArmConstants.PIVOT_HEIGHT) {
+            double angleAdjust = armAngle - physicalArmExtension.getAngle().getDegrees();
+            return Math.max(48, Math.toDegrees(Math.acos(Constants.ArmConstants.PIVOT_HEIGHT / armPhysicalExtensionNormal)) + angleAdjust + 2);
         }
-
-        SmartDashboard.putNumber("Previous Arm Angle Limit", desiredAngle);
-        SmartDashboard.putNumber("SuperArmAngle", currentArmAngle);
-        SmartDashboard.putNumber("SuperArmExt", currentArmExtension);
-        SmartDashboard.putNumber("SuperWristAngle", currentWristAngle);
-
-        return desiredAngle;
+        return 50;
     }
 
     public void toggleAllBrakemode() {
@@ -156,9 +210,18 @@ public class ArmSupersystem {
     }
 
     public Translation2d getPhysicalArmExtension() {
-        double currentArmAngleRadians = Math.toRadians(m_angle.getArmAngle());
-        double currentWristAngleRadians = Math.toRadians(m_wrist.getWristAngle());
-        double physicalExtension = m_ext.getPhysicalExtension();
+        return calculatePhysicalArmExtension(m_angle.getArmAngle(), m_wrist.getWristAngle(), m_ext.getPhysicalExtension());
+    }
+
+    /**
+     * Calculates the vector from the pivot to the end of the arm, including the wrist when it points down
+     * @param armAngle the arm angle in degrees
+     * @param wristAngle the wrist angle in degrees
+     * @param physicalExtension the length of the arm from the pivot
+     */
+    public static Translation2d calculatePhysicalArmExtension(double armAngle, double wristAngle, double physicalExtension) {
+        double currentArmAngleRadians = Math.toRadians(armAngle);
+        double currentWristAngleRadians = Math.toRadians(wristAngle);
         double physicalX = Math.cos(currentArmAngleRadians) * physicalExtension;
         double physicalY = Math.sin(currentArmAngleRadians) * physicalExtension;
         Translation2d physicalVector = new Vector2d(physicalX, physicalY);
@@ -2,20 +2,31 @@ package lib.utils.Rev;
 
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMaxLowLevel;
+import lib.utils.drivers.CanBusBudget;
 
 public class SparkMaxConfigs {
     private static final int FAST_CAN_FRAME = 10;
-    private static final int MEDIUM_CAN_FRAME = 50;
+    public static final int MEDIUM_CAN_FRAME = 50;
     private static final int SLOW_CAN_FRAME = 200;
     private static final int DISABLED_CAN_FRAME = 65535;
 
     public static void configCanStatusFrames (CANSparkMax spark){
+        CanBusBudget budget = CanBusBudget.getInstance();
+        String device = "SparkMax " + spark.getDeviceId();
+
         spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, MEDIUM_CAN_FRAME);
+        budget.register(device, "Status0", MEDIUM_CAN_FRAME);
         spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, MEDIUM_CAN_FRAME);
+        budget.register(device, "Status1", MEDIUM_CAN_FRAME);
         spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, MEDIUM_CAN_FRAME);
+        budget.register(device, "Status2", MEDIUM_CAN_FRAME);
         spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus3, MEDIUM_CAN_FRAME);
+        budget.register(device, "Status3", MEDIUM_CAN_FRAME);
         spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus4, MEDIUM_CAN_FRAME);
+        budget.register(device, "Status4", MEDIUM_CAN_FRAME);
         spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus5, MEDIUM_CAN_FRAME);
+        budget.register(device, "Status5", MEDIUM_CAN_FRAME);
         spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus6, MEDIUM_CAN_FRAME);
+        budget.register(device, "Status6", MEDIUM_CAN_FRAME);
     }
 }
@@ -1,51 +1,204 @@
 package lib.utils.Rev;
 
 import com.revrobotics.CANSparkMax;
+import com.revrobotics.REVLibError;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.SparkMaxPIDController.ArbFFUnits;
 import com.revrobotics.CANSparkMax.ControlType;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import edu.wpi.first.wpilibj.RobotController;
 import lib.utils.drivers.RevUtil;
+import org.littletonrobotics.junction.Logger;
 
+/**
+ * A "lazy" Spark Max, the REV side of {@link lib.utils.drivers.TalonEnhanced}. A frame is only sent
+ * when the control type, setpoint, PID slot or arbitrary feedforward changes, or when the last one
+ * was sent more than {@link #KEEP_ALIVE_SECS} ago so a controller that rebooted gets its setpoint back.
+ *
+ * Duty cycle outputs go through {@link CANSparkMax#set(double)}, so {@link CANSparkMax#get()} still
+ * reports them, and {@link #setVoltage(double)} scales by the battery voltage the same way
+ * {@link CANSparkMax#setVoltage(double)} does. The other control types go through setReference.
+ *
+ * Call the output methods from the main thread only.
+ */
 public class SparkMaxWrapper {
+    public static final double KEEP_ALIVE_SECS = 0.5;
+    private static final long KEEP_ALIVE_MICROS = (long) (KEEP_ALIVE_SECS * 1e6);
+
+    // Across every wrapper, see logMetrics
+    private static long totalFramesSent = 0;
+    private static long totalFramesSuppressed = 0;
 
     private final CANSparkMax m_motor;
     private final SparkMaxPIDController m_controller;
     private final RelativeEncoder m_relativeEncoder;
 
+    private ControlType m_lastControlType = null;
+    private double m_lastSetpoint = Double.NaN;
+    private int m_lastSlot = -1;
+    private double m_lastArbFF = Double.NaN;
+    private ArbFFUnits m_lastArbFFUnits = null;
+    private long m_lastSentMicros = 0;
+
+    private long m_framesSent = 0;
+    private long m_framesSuppressed = 0;
+
     public enum ControlMode {
-        PERCENT_OUTPUT,
-        VELOCITY,
-        POSITION
+        PERCENT_OUTPUT(ControlType.kDutyCycle),
+        VELOCITY(ControlType.kVelocity),
+        POSITION(ControlType.kPosition),
+        VOLTAGE(ControlType.kVoltage),
+        CURRENT(ControlType.kCurrent),
+        SMART_MOTION(ControlType.kSmartMotion),
+        SMART_VELOCITY(ControlType.kSmartVelocity);
+
+        private final ControlType m_controlType;
+
+        ControlMode(ControlType controlType) {
+            m_controlType = controlType;
+        }
     }
 
     //TODO maybe implement brushless motor/alternative encoders
     public SparkMaxWrapper(int id) {
-        m_motor = new CANSparkMax(id, MotorType.kBrushless);
-        m_relativeEncoder = m_motor.getEncoder();
-        m_controller = m_motor.getPIDController();
+        this(new CANSparkMax(id, MotorType.kBrushless));
 
         SparkMaxConfigs.configCanStatusFrames(m_motor);
     }
 
+    /**
+     * Wraps a Spark Max that was already made and configured, for example by SparkMaxFactory
+     */
+    public SparkMaxWrapper(CANSparkMax motor) {
+        m_motor = motor;
+        m_relativeEncoder = m_motor.getEncoder();
+        m_controller = m_motor.getPIDController();
+    }
+
     // Motor methods
-    // TODO finish implementing the rest of the control modes
     public void set(ControlMode mode, double speed) {
-        switch (mode) {
-            case PERCENT_OUTPUT:
-                m_motor.set(speed);
-                break;
-            case VELOCITY:
-                m_controller.setReference(speed, ControlType.kVelocity);
-                break;
-            case POSITION:
-                m_controller.setReference(speed, ControlType.kPosition);
-                break;
-            default:
-                m_motor.set(0.0);
+        if (mode == ControlMode.PERCENT_OUTPUT) {
+            set(speed);
+        } else {
+            setReference(speed, mode.m_controlType);
         }
     }
 
+    /**
+     * Same as {@link CANSparkMax#set(double)}, only sent when the speed changed or the keep alive is due
+     */
+    public void set(double speed) {
+        long now = RobotController.getFPGATime();
+        if (isUnchanged(speed, ControlType.kDutyCycle, 0, 0, ArbFFUnits.kVoltage, now)) {
+            return;
+        }
+        m_motor.set(speed);
+        countSent();
+        markSent(speed, ControlType.kDutyCycle, 0, 0, ArbFFUnits.kVoltage, now);
+    }
+
+    /**
+     * Same as {@link CANSparkMax#setVoltage(double)}: a duty cycle of the volts over the battery
+     * voltage, which the Spark Max's voltage compensation then scales again. Not closed loop voltage
+     * control, the arm gains were tuned with this.
+     */
+    public void setVoltage(double outputVolts) {
+        set(outputVolts / RobotController.getBatteryVoltage());
+    }
+
+    public void setReference(double value, ControlType controlType) {
+        setReference(value, controlType, 0, 0, ArbFFUnits.kVoltage);
+    }
+
+    public void setReference(double value, ControlType controlType, int pidSlot) {
+        setReference(value, controlType, pidSlot, 0, ArbFFUnits.kVoltage);
+    }
+
+    public void setReference(double value, ControlType controlType, int pidSlot, double arbFeedforward) {
+        setReference(value, controlType, pidSlot, arbFeedforward, ArbFFUnits.kVoltage);
+    }
+
+    /**
+     * Same as {@link SparkMaxPIDController#setReference(double, ControlType, int, double, ArbFFUnits)},
+     * only sent when something changed or the keep alive is due
+     */
+    public void setReference(double value, ControlType controlType, int pidSlot, double arbFeedforward,
+                             ArbFFUnits arbFFUnits) {
+        long now = RobotController.getFPGATime();
+        if (isUnchanged(value, controlType, pidSlot, arbFeedforward, arbFFUnits, now)) {
+            return;
+        }
+
+        REVLibError err = m_controller.setReference(value, controlType, pidSlot, arbFeedforward, arbFFUnits);
+        countSent();
+        if (RevUtil.hasError(err)) {
+            // Sent again next time, whatever the setpoint is
+            invalidate();
+            return;
+        }
+        markSent(value, controlType, pidSlot, arbFeedforward, arbFFUnits, now);
+    }
+
+    private boolean isUnchanged(double value, ControlType controlType, int pidSlot, double arbFeedforward,
+                                ArbFFUnits arbFFUnits, long now) {
+        if (controlType == m_lastControlType
+                && value == m_lastSetpoint
+                && pidSlot == m_lastSlot
+                && arbFeedforward == m_lastArbFF
+                && arbFFUnits == m_lastArbFFUnits
+                && now - m_lastSentMicros < KEEP_ALIVE_MICROS) {
+            m_framesSuppressed++;
+            totalFramesSuppressed++;
+            return true;
+        }
+        return false;
+    }
+
+    private void countSent() {
+        m_framesSent++;
+        totalFramesSent++;
+    }
+
+    private void markSent(double value, ControlType controlType, int pidSlot, double arbFeedforward,
+                          ArbFFUnits arbFFUnits, long now) {
+        m_lastControlType = controlType;
+        m_lastSetpoint = value;
+        m_lastSlot = pidSlot;
+        m_lastArbFF = arbFeedforward;
+        m_lastArbFFUnits = arbFFUnits;
+        m_lastSentMicros = now;
+    }
+
+    /**
+     * Makes the next output call send its frame even if nothing changed, for example after the Spark Max
+     * was reconfigured
+     */
+    public void invalidate() {
+        m_lastControlType = null;
+    }
+
+    public void stopMotor() {
+        m_motor.stopMotor();
+        invalidate();
+    }
+
+    public long getFramesSent() {
+        return m_framesSent;
+    }
+
+    public long getFramesSuppressed() {
+        return m_framesSuppressed;
+    }
+
+    /**
+     * Logs the frames sent and suppressed by every wrapper since the code started
+     */
+    public static void logMetrics() {
+        Logger.getInstance().recordOutput("CAN/SparkMaxFramesSent", totalFramesSent);
+        Logger.getInstance().recordOutput("CAN/SparkMaxFramesSuppressed", totalFramesSuppressed);
+    }
+
     public void follow(SparkMaxWrapper master) {
         m_motor.follow(master.getMotor());
     }
@@ -1,63 +1,73 @@
 package lib.utils.Swerve;
 
+import com.ctre.phoenixpro.StatusSignalValue;
 import com.ctre.phoenixpro.hardware.TalonFX;
+import lib.utils.drivers.CanBusBudget;
 
 public class FalconProConfigFactory {
     public static final int FASTEST_CYCLE = 4;
     public static final int SLOWEST_CYCLE = 2;
     public static void setStatusFrames(TalonFX talon) {
         // Set faults to 500 hertz
-        talon.getFault_ReverseHardLimit().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_DeviceTemp().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_BootDuringEnable().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_Hardware().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_ProcTemp().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_ForwardHardLimit().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_ForwardSoftLimit().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_FusedSensorOutOfSync().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_MissingRemoteSensor().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_OverSupplyV().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_ReverseSoftLimit().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_StatorCurrLimit().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_Undervoltage().setUpdateFrequency(SLOWEST_CYCLE * 2);
-        talon.getFault_UnstableSupplyV().setUpdateFrequency(SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_ReverseHardLimit(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_DeviceTemp(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_BootDuringEnable(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_Hardware(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_ProcTemp(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_ForwardHardLimit(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_ForwardSoftLimit(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_FusedSensorOutOfSync(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_MissingRemoteSensor(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_OverSupplyV(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_ReverseSoftLimit(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_StatorCurrLimit(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_Undervoltage(), SLOWEST_CYCLE * 2);
+        setUpdateFrequency(talon, talon.getFault_UnstableSupplyV(), SLOWEST_CYCLE * 2);
 
         // Set sticky faults to 1000 hertz
-        talon.getStickyFault_ReverseHardLimit().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_DeviceTemp().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_BootDuringEnable().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_Hardware().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_ProcTemp().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_ForwardHardLimit().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_ForwardSoftLimit().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_FusedSensorOutOfSync().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_MissingRemoteSensor().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_OverSupplyV().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_ReverseSoftLimit().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_StatorCurrLimit().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_Undervoltage().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getStickyFault_UnstableSupplyV().setUpdateFrequency(SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_ReverseHardLimit(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_DeviceTemp(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_BootDuringEnable(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_Hardware(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_ProcTemp(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_ForwardHardLimit(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_ForwardSoftLimit(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_FusedSensorOutOfSync(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_MissingRemoteSensor(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_OverSupplyV(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_ReverseSoftLimit(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_StatorCurrLimit(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_Undervoltage(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getStickyFault_UnstableSupplyV(), SLOWEST_CYCLE);
 
         // Misc. Status Signals
-        talon.getAppliedRotorPolarity().setUpdateFrequency(10);
-        talon.getDeviceTemp().setUpdateFrequency(10);
-        talon.getControlMode().setUpdateFrequency(10);
-        talon.getMotionMagicIsRunning().setUpdateFrequency(5);
-        talon.getDeviceEnable().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getProcessorTemp().setUpdateFrequency(SLOWEST_CYCLE);
-        talon.getForwardLimit().setUpdateFrequency(50);
-        talon.getReverseLimit().setUpdateFrequency(50);
-        talon.getDutyCycle().setUpdateFrequency(90);
+        setUpdateFrequency(talon, talon.getAppliedRotorPolarity(), 10);
+        setUpdateFrequency(talon, talon.getDeviceTemp(), 10);
+        setUpdateFrequency(talon, talon.getControlMode(), 10);
+        setUpdateFrequency(talon, talon.getMotionMagicIsRunning(), 5);
+        setUpdateFrequency(talon, talon.getDeviceEnable(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getProcessorTemp(), SLOWEST_CYCLE);
+        setUpdateFrequency(talon, talon.getForwardLimit(), 50);
+        setUpdateFrequency(talon, talon.getReverseLimit(), 50);
+        setUpdateFrequency(talon, talon.getDutyCycle(), 90);
 
         // Closed loop configs
-        talon.getClosedLoopError().setUpdateFrequency(90);
-        talon.getClosedLoopFeedForward().setUpdateFrequency(90);
-        talon.getClosedLoopOutput().setUpdateFrequency(90);
-        talon.getClosedLoopReference().setUpdateFrequency(90);
-        talon.getClosedLoopSlot().setUpdateFrequency(90);
-        talon.getClosedLoopDerivativeOutput().setUpdateFrequency(90);
-        talon.getClosedLoopIntegratedOutput().setUpdateFrequency(90);
-        talon.getClosedLoopProportionalOutput().setUpdateFrequency(90);
-        talon.getClosedLoopReferenceSlope().setUpdateFrequency(90);
+        setUpdateFrequency(talon, talon.getClosedLoopError(), 90);
+        setUpdateFrequency(talon, talon.getClosedLoopFeedForward(), 90);
+        setUpdateFrequency(talon, talon.getClosedLoopOutput(), 90);
+        setUpdateFrequency(talon, talon.getClosedLoopReference(), 90);
+        setUpdateFrequency(talon, talon.getClosedLoopSlot(), 90);
+        setUpdateFrequency(talon, talon.getClosedLoopDerivativeOutput(), 90);
+        setUpdateFrequency(talon, talon.getClosedLoopIntegratedOutput(), 90);
+        setUpdateFrequency(talon, talon.getClosedLoopProportionalOutput(), 90);
+        setUpdateFrequency(talon, talon.getClosedLoopReferenceSlope(), 90);
+    }
+
+    /**
+     * Sets how often a signal is sent and reports it to the {@link CanBusBudget}
+     */
+    private static void setUpdateFrequency(TalonFX talon, StatusSignalValue<?> signal, double hz) {
+        signal.setUpdateFrequency(hz);
+        CanBusBudget.getInstance().registerHz("TalonFX " + talon.getDeviceID(), signal.getName(), hz);
     }
 }
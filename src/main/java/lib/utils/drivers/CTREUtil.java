@@ -2,6 +2,8 @@ package lib.utils.drivers;
 
 import com.ctre.phoenix.ErrorCode;
 import edu.wpi.first.wpilibj.DriverStation;
+import lib.utils.profiling.jfr.CanConfigEvent;
+import lib.utils.profiling.jfr.FlightRecorderControl;
 public class CTREUtil {
     public interface ConfigCall {
         ErrorCode run();
@@ -17,8 +19,16 @@ public class CTREUtil {
     public static ErrorCode autoRetry(ConfigCall configCall) {
         ErrorCode err = ErrorCode.GeneralError; // Use an error be default, this will be overridden on the first pass
 
+        CanConfigEvent event = null;
+        if (FlightRecorderControl.isRecording()) {
+            event = new CanConfigEvent();
+            event.begin();
+        }
+        int attempts = 0;
+
         // Loop for MAX_RETRY_COUNT
         for (int i = 0; i < MAX_RETRY_COUNT; i++) {
+            attempts++;
             err = configCall.run();
 
             // If there is an error, wait for a short period and try again.
@@ -42,6 +52,14 @@ public class CTREUtil {
             // Display the error to the driver with stack trace to see WHAT failed to configure.
             DriverStation.reportError("Failed to configure after " + MAX_RETRY_COUNT + "counts. (" + configCall.hashCode() + ")",  true);
         }
+
+        if (event != null) {
+            event.vendor = "CTRE";
+            event.attempts = attempts;
+            event.result = err.name();
+            event.succeeded = !hasError(err);
+            event.commit();
+        }
         return err;
     }
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package lib.utils.drivers;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adds up the periodic status frames every device on the CAN bus has been configured to send, so the
+ * bus load can be checked at boot instead of found on the field.
+ *
+ * Every factory or wrapper that sets a status frame period reports it with {@link #register}. The
+ * frames per second of every device and the estimated bus utilization are logged under "CAN/Budget",
+ * and {@link #check()} warns when the total is over {@link #BUDGET_PROPERTY}, or stops the robot code
+ * when {@link #FAIL_PROPERTY} is set.
+ *
+ * Utilization is estimated as {@link #BITS_PER_FRAME} per frame on a 1 Mbit/s bus. Phoenix Pro packs
+ * several signals into each frame and doesn't say which, so each of its signals is counted as a frame
+ * of its own, which overestimates those devices.
+ */
+public final class CanBusBudget {
+    public static final String BUDGET_PROPERTY = "helios.can.budget";
+    public static final String FAIL_PROPERTY = "helios.can.failOverBudget";
+    // CTRE and REV both recommend staying well under full utilization so retries have room
+    public static final double DEFAULT_BUDGET = 0.6;
+    public static final double BUS_BITS_PER_SEC = 1_000_000;
+    // An extended frame with 8 data bytes is 128 bits with its worst case bit stuffing
+    public static final int BITS_PER_FRAME = 128;
+
+    private static CanBusBudget instance;
+
+    // Device name to frame name to frames per second, in the order they were registered
+    private final Map<String, Map<String, Double>> m_devices = new LinkedHashMap<>();
+    private final double m_budget;
+    private boolean m_changed = false;
+
+    private CanBusBudget() {
+        m_budget = Double.parseDouble(System.getProperty(BUDGET_PROPERTY, String.valueOf(DEFAULT_BUDGET)));
+    }
+
+    public static synchronized CanBusBudget getInstance() {
+        if (instance == null) {
+            instance = new CanBusBudget();
+        }
+        return instance;
+    }
+
+    /**
+     * Records how often a device sends a status frame, replacing what was registered for that frame
+     * @param device for example "SparkMax 5"
+     * @param frame for example "Status0"
+     */
+    public synchronized void register(String device, String frame, double periodMs) {
+        double framesPerSec = periodMs > 0 ? 1000.0 / periodMs : 0;
+        m_devices.computeIfAbsent(device, name -> new LinkedHashMap<>()).put(frame, framesPerSec);
+        m_changed = true;
+    }
+
+    /**
+     * Same as {@link #register(String, String, double)} for frequencies, as Phoenix Pro sets them
+     */
+    public void registerHz(String device, String frame, double hz) {
+        register(device, frame, hz > 0 ? 1000.0 / hz : 0);
+    }
+
+    public synchronized double getDeviceFramesPerSec(String device) {
+        Map<String, Double> frames = m_devices.get(device);
+        if (frames == null) {
+            return 0;
+        }
+        double total = 0;
+        for (double framesPerSec : frames.values()) {
+            total += framesPerSec;
+        }
+        return total;
+    }
+
+    public synchronized double getTotalFramesPerSec() {
+        double total = 0;
+        for (String device : m_devices.keySet()) {
+            total += getDeviceFramesPerSec(device);
+        }
+        return total;
+    }
+
+    /**
+     * @return the estimated fraction of the bus taken by status frames, from 0 to 1
+     */
+    public static double utilization(double framesPerSec) {
+        return framesPerSec * BITS_PER_FRAME / BUS_BITS_PER_SEC;
+    }
+
+    /**
+     * Prints and logs the breakdown and warns if the total is over the budget. Call at the end of
+     * robotInit, once every device has been made.
+     * @throws IllegalStateException if over the budget and {@link #FAIL_PROPERTY} is set
+     */
+    public synchronized void check() {
+        double total = getTotalFramesPerSec();
+        System.out.printf("CAN status frames: %.0f frames/s, %.0f%% of the bus (budget %.0f%%)%n",
+                total, utilization(total) * 100, m_budget * 100);
+        for (String device : m_devices.keySet()) {
+            double framesPerSec = getDeviceFramesPerSec(device);
+            System.out.printf("  %-20s %7.1f frames/s %5.1f%%%n", device, framesPerSec, utilization(framesPerSec) * 100);
+        }
+        logMetrics();
+
+        if (utilization(total) > m_budget) {
+            String message = String.format("CAN status frames use %.0f%% of the bus, over the %.0f%% budget",
+                    utilization(total) * 100, m_budget * 100);
+            if (Boolean.getBoolean(FAIL_PROPERTY)) {
+                throw new IllegalStateException(message);
+            }
+            DriverStation.reportWarning(message, false);
+        }
+    }
+
+    /**
+     * Logs the breakdown when a frame period changed since it was last logged
+     */
+    public synchronized void logMetrics() {
+        if (!m_changed) {
+            return;
+        }
+        m_changed = false;
+        Logger logger = Logger.getInstance();
+        for (String device : m_devices.keySet()) {
+            logger.recordOutput("CAN/Budget/" + device + "/FramesPerSec", getDeviceFramesPerSec(device));
+            logger.recordOutput("CAN/Budget/" + device + "/Utilization", utilization(getDeviceFramesPerSec(device)));
+        }
+        double total = getTotalFramesPerSec();
+        logger.recordOutput("CAN/Budget/TotalFramesPerSec", total);
+        logger.recordOutput("CAN/Budget/Utilization", utilization(total));
+        logger.recordOutput("CAN/Budget/Budget", m_budget);
+    }
+}
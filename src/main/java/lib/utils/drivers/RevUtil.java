@@ -3,6 +3,14 @@ package lib.utils.drivers;
 
 import com.revrobotics.REVLibError;
 import edu.wpi.first.wpilibj.DriverStation;
+import lib.utils.profiling.jfr.CanConfigEvent;
+import lib.utils.profiling.jfr.FlightRecorderControl;
+import lib.utils.scheduling.DeferredTask;
+import lib.utils.scheduling.DeferredWorkQueue;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
 public class RevUtil {
     public interface ConfigCall {
         REVLibError run();
@@ -11,6 +19,10 @@ public class RevUtil {
     private static final int MAX_RETRY_COUNT = 3;
     private static final int RETRY_DELAY_MS = 10;
 
+    // Every config call that had to be retried and every one that gave up, see logMetrics
+    private static final AtomicLong retries = new AtomicLong();
+    private static final AtomicLong failures = new AtomicLong();
+
     public static boolean hasError(REVLibError err) {
         return err != REVLibError.kOk;
     }
@@ -27,8 +39,16 @@ public class RevUtil {
     public static REVLibError autoRetry(ConfigCall configCall) {
         REVLibError err = REVLibError.kOk; // Use an error be default, this will be overridden on the first pass
 
+        CanConfigEvent event = null;
+        if (FlightRecorderControl.isRecording()) {
+            event = new CanConfigEvent();
+            event.begin();
+        }
+        int attempts = 0;
+
         // Loop for MAX_RETRY_COUNT
         for (int i = 0; i < MAX_RETRY_COUNT; i++) {
+            attempts++;
             err = configCall.run();
 
             // If there is an error, wait for a short period and try again.
@@ -47,11 +67,74 @@ public class RevUtil {
             }
         }
 
+        retries.addAndGet(attempts - 1);
         // If err is still an error, then the loop reached MAX_RETRY_COUNT and could not set the config
         if (hasError(err)) {
+            failures.incrementAndGet();
             // Display the error to the driver with stack trace to see WHAT failed to configure.
             DriverStation.reportError("Failed to configure after " + MAX_RETRY_COUNT + "counts. (" + configCall.hashCode() + ")",  true);
         }
+
+        if (event != null) {
+            event.vendor = "REV";
+            event.attempts = attempts;
+            event.result = err.name();
+            event.succeeded = !hasError(err);
+            event.commit();
+        }
         return err;
     }
+
+    /**
+     * Logs how many config calls have been retried and how many failed since the code started, for
+     * the log analyzer. Call from the main thread.
+     */
+    public static void logMetrics() {
+        Logger.getInstance().recordOutput("CAN/ConfigRetries", retries.get());
+        Logger.getInstance().recordOutput("CAN/ConfigFailures", failures.get());
+    }
+
+    /**
+     * Makes a config call once and, if it fails, retries it on later cycles from the deferred work
+     * queue instead of sleeping. Use this for config calls made while the robot loop is running.
+     * @param name the name used in error reports
+     */
+    public static void autoRetryDeferred(String name, ConfigCall configCall) {
+        REVLibError err = configCall.run();
+        if (hasError(err)) {
+            retries.incrementAndGet();
+            new DeferredRetry(name, configCall).submit();
+        }
+    }
+
+    private static final class DeferredRetry implements Runnable {
+        private final ConfigCall m_configCall;
+        private final DeferredTask m_task;
+        private int m_attempts = 1;
+
+        private DeferredRetry(String name, ConfigCall configCall) {
+            m_configCall = configCall;
+            m_task = new DeferredTask(name, DeferredWorkQueue.Priority.NORMAL, this);
+        }
+
+        private void submit() {
+            DeferredWorkQueue.getInstance().submit(m_task);
+        }
+
+        @Override
+        public void run() {
+            REVLibError err = m_configCall.run();
+            m_attempts++;
+            if (!hasError(err)) {
+                return;
+            }
+            if (m_attempts < MAX_RETRY_COUNT) {
+                retries.incrementAndGet();
+                submit();
+            } else {
+                failures.incrementAndGet();
+                DriverStation.reportError("Failed to configure " + m_task.getName() + " after " + MAX_RETRY_COUNT + " counts. (" + err + ")", false);
+            }
+        }
+    }
 }
\ No newline at end of file
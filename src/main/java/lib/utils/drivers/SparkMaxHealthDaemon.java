@@ -0,0 +1,137 @@
+package lib.utils.drivers;
+
+import com.revrobotics.CANSparkMax;
+import edu.wpi.first.wpilibj.Notifier;
+import lib.factories.SparkMaxFactory;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Watches every Spark Max made by {@link SparkMaxFactory} from a background thread, and sends its
+ * config again when it has reset or browned out.
+ *
+ * A Spark Max that reset is back on its flashed frame periods and floods the bus until they are set
+ * again. The repair retries with sleeps, which used to run on the main thread; here it only holds up
+ * this thread. The sticky faults it reads come from the cached status 0 frame, so a check doesn't
+ * wait on the bus.
+ *
+ * The resets, brownouts and repair times of each spark are logged from the main thread under
+ * "CAN/Health". CAN/FramePeriodResets counts every repair, as the log analyzer expects.
+ */
+public final class SparkMaxHealthDaemon {
+    private static final double PERIOD_SECS = 0.2;
+
+    private static SparkMaxHealthDaemon instance;
+
+    private final Notifier m_notifier;
+
+    // Taken when the daemon starts, every spark is made in robotInit before that
+    private volatile Device[] m_devices = new Device[0];
+
+    private volatile long m_repairs = 0;
+    private volatile int m_lastRepairedId = 0;
+    private volatile double m_lastCheckMs = 0;
+    private boolean m_started = false;
+
+    private SparkMaxHealthDaemon() {
+        m_notifier = new Notifier(this::run);
+        m_notifier.setName("SparkMaxHealth");
+    }
+
+    public static SparkMaxHealthDaemon getInstance() {
+        if (instance == null) {
+            instance = new SparkMaxHealthDaemon();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts watching every spark made so far. Call from the main thread once the subsystems are made.
+     */
+    public void start() {
+        if (m_started) {
+            return;
+        }
+        m_started = true;
+        Device[] devices = new Device[SparkMaxFactory.Companion.getListOfAllSparksAndConfigs().size()];
+        for (int i = 0; i < devices.length; i++) {
+            devices[i] = new Device(SparkMaxFactory.Companion.getListOfAllSparksAndConfigs().get(i));
+        }
+        m_devices = devices;
+        m_notifier.startPeriodic(PERIOD_SECS);
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        Device[] devices = m_devices;
+        for (int i = 0; i < devices.length; i++) {
+            devices[i].check();
+        }
+        m_lastCheckMs = (System.nanoTime() - start) / 1.0e6;
+    }
+
+    /**
+     * Logs the health of every spark, call from the main thread
+     */
+    public void logMetrics() {
+        Logger logger = Logger.getInstance();
+        Device[] devices = m_devices;
+        for (int i = 0; i < devices.length; i++) {
+            Device device = devices[i];
+            logger.recordOutput(device.m_resetsKey, device.m_resets);
+            logger.recordOutput(device.m_brownoutsKey, device.m_brownouts);
+            logger.recordOutput(device.m_repairMsKey, device.m_lastRepairMs);
+            logger.recordOutput(device.m_maxRepairMsKey, device.m_maxRepairMs);
+            logger.recordOutput(device.m_sparkAndConfig.getFrameProfileKey(), device.m_sparkAndConfig.getAppliedProfile().name());
+        }
+        logger.recordOutput("CAN/FramePeriodResets", m_repairs);
+        logger.recordOutput("CAN/LastResetId", (long) m_lastRepairedId);
+        logger.recordOutput("CAN/Health/LastCheckMS", m_lastCheckMs);
+    }
+
+    private final class Device {
+        private final SparkMaxFactory.SparkWithConfig m_sparkAndConfig;
+        private final String m_resetsKey;
+        private final String m_brownoutsKey;
+        private final String m_repairMsKey;
+        private final String m_maxRepairMsKey;
+
+        // Written by the daemon's thread, read by logMetrics
+        private volatile long m_resets = 0;
+        private volatile long m_brownouts = 0;
+        private volatile double m_lastRepairMs = 0;
+        private volatile double m_maxRepairMs = 0;
+
+        private Device(SparkMaxFactory.SparkWithConfig sparkAndConfig) {
+            m_sparkAndConfig = sparkAndConfig;
+            String prefix = "CAN/Health/SparkMax " + sparkAndConfig.getSpark().getDeviceId() + "/";
+            m_resetsKey = prefix + "Resets";
+            m_brownoutsKey = prefix + "Brownouts";
+            m_repairMsKey = prefix + "LastRepairMS";
+            m_maxRepairMsKey = prefix + "MaxRepairMS";
+        }
+
+        private void check() {
+            CANSparkMax spark = m_sparkAndConfig.getSpark();
+            boolean reset = spark.getStickyFault(CANSparkMax.FaultID.kHasReset);
+            boolean brownout = spark.getStickyFault(CANSparkMax.FaultID.kBrownout);
+            if (!reset && !brownout) {
+                return;
+            }
+            if (reset) {
+                m_resets++;
+            }
+            if (brownout) {
+                m_brownouts++;
+            }
+
+            long start = System.nanoTime();
+            SparkMaxFactory.Companion.reapplyConfig(m_sparkAndConfig);
+            m_lastRepairMs = (System.nanoTime() - start) / 1.0e6;
+            if (m_lastRepairMs > m_maxRepairMs) {
+                m_maxRepairMs = m_lastRepairMs;
+            }
+            m_lastRepairedId = spark.getDeviceId();
+            m_repairs++;
+        }
+    }
+}
@@ -222,6 +222,7 @@ public class TalonEnhanced {
     }
 
     public TalonEnhanced setStatusFramePeriod(StatusFrame frame, int periodMs) {
+        CanBusBudget.getInstance().register(getBudgetName(), frame.name(), periodMs);
         return this.autoRetry(() -> talon.setStatusFramePeriod(frame, periodMs, TIMEOUT_MS));
     }
 
@@ -535,6 +536,7 @@ public class TalonEnhanced {
     }
 
     public TalonEnhanced setStatusFramePeriod(StatusFrameEnhanced frame, int periodMs) {
+        CanBusBudget.getInstance().register(getBudgetName(), frame.name(), periodMs);
         return this.autoRetry(() -> talon.setStatusFramePeriod(frame, periodMs, TIMEOUT_MS));
     }
 
@@ -544,10 +546,8 @@ public class TalonEnhanced {
 
     public TalonEnhanced setFeedbackIntervals(int intervalMs) {
         return this
-                .autoRetry(() -> talon.setStatusFramePeriod(
-                        StatusFrameEnhanced.Status_2_Feedback0, intervalMs, TIMEOUT_MS))
-                .autoRetry(() -> talon.setStatusFramePeriod(
-                        StatusFrameEnhanced.Status_Brushless_Current, intervalMs, TIMEOUT_MS));
+                .setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, intervalMs)
+                .setStatusFramePeriod(StatusFrameEnhanced.Status_Brushless_Current, intervalMs);
     }
 
     public TalonEnhanced setControlIntervals(int intervalMs) {
@@ -556,11 +556,15 @@ public class TalonEnhanced {
 
     public TalonEnhanced setAllStatusIntervals(int intervalMs) {
         for (StatusFrameEnhanced frame : StatusFrameEnhanced.values()) {
-            this.autoRetry(() -> talon.setStatusFramePeriod(frame, intervalMs, TIMEOUT_MS));
+            this.setStatusFramePeriod(frame, intervalMs);
         }
         return this;
     }
 
+    private String getBudgetName() {
+        return "Talon " + talon.getDeviceID();
+    }
+
     public TalonEnhanced defaultFrameIntervals() {
         return this.setAllStatusIntervals(SLOW_FRAME_MS).setControlIntervals(FAST_FRAME_MS);
     }
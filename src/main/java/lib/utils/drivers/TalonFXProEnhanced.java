@@ -0,0 +1,138 @@
+package lib.utils.drivers;
+
+import com.ctre.phoenixpro.StatusCode;
+import com.ctre.phoenixpro.controls.ControlRequest;
+import com.ctre.phoenixpro.controls.DutyCycleOut;
+import com.ctre.phoenixpro.controls.PositionDutyCycle;
+import com.ctre.phoenixpro.controls.VelocityVoltage;
+import com.ctre.phoenixpro.hardware.TalonFX;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * The Phoenix Pro counterpart of {@link TalonEnhanced}, with "lazy" setters that only send a control
+ * request when it differs from the last one sent.
+ *
+ * Phoenix Pro keeps sending the last control request at its UpdateFreqHz on its own, so skipping an
+ * unchanged request doesn't need a keep-alive. Requests are compared by the fields this code sets, so
+ * a request whose other fields are changed has to be sent with {@link #invalidate()} first.
+ *
+ * Call from the main thread only.
+ */
+public class TalonFXProEnhanced {
+    // Across every wrapper, see logMetrics
+    private static long totalRequestsSent = 0;
+    private static long totalRequestsSuppressed = 0;
+
+    private final TalonFX talon;
+
+    private Class<?> lastRequestType = null;
+    private double lastValue0;
+    private double lastValue1;
+    private double lastFeedForward;
+    private int lastSlot;
+    private boolean lastEnableFOC;
+
+    private long requestsSent = 0;
+    private long requestsSuppressed = 0;
+
+    public TalonFXProEnhanced(TalonFX talon) {
+        this.talon = talon;
+    }
+
+    public TalonFX getTalon() {
+        return talon;
+    }
+
+    /**
+     * Sends the request if its position, velocity, feedforward, slot or FOC changed
+     */
+    public TalonFXProEnhanced setControl(PositionDutyCycle request) {
+        if (changed(PositionDutyCycle.class, request.Position, request.Velocity, request.FeedForward, request.Slot, request.EnableFOC)) {
+            send(request);
+        }
+        return this;
+    }
+
+    /**
+     * Sends the request if its velocity, feedforward, slot or FOC changed
+     */
+    public TalonFXProEnhanced setControl(VelocityVoltage request) {
+        if (changed(VelocityVoltage.class, request.Velocity, 0, request.FeedForward, request.Slot, request.EnableFOC)) {
+            send(request);
+        }
+        return this;
+    }
+
+    /**
+     * Sends the request if its output or FOC changed
+     */
+    public TalonFXProEnhanced setControl(DutyCycleOut request) {
+        if (changed(DutyCycleOut.class, request.Output, 0, 0, 0, request.EnableFOC)) {
+            send(request);
+        }
+        return this;
+    }
+
+    /**
+     * Always sends a request of a type without a lazy setter
+     */
+    public TalonFXProEnhanced setControl(ControlRequest request) {
+        invalidate();
+        send(request);
+        return this;
+    }
+
+    /**
+     * Makes the next request be sent even if nothing changed
+     */
+    public TalonFXProEnhanced invalidate() {
+        lastRequestType = null;
+        return this;
+    }
+
+    public long getRequestsSent() {
+        return requestsSent;
+    }
+
+    public long getRequestsSuppressed() {
+        return requestsSuppressed;
+    }
+
+    /**
+     * Logs the requests sent and suppressed by every wrapper since the code started
+     */
+    public static void logMetrics() {
+        Logger.getInstance().recordOutput("CAN/TalonFXRequestsSent", totalRequestsSent);
+        Logger.getInstance().recordOutput("CAN/TalonFXRequestsSuppressed", totalRequestsSuppressed);
+    }
+
+    private boolean changed(Class<?> type, double value0, double value1, double feedForward, int slot, boolean enableFOC) {
+        if (type == lastRequestType
+                && value0 == lastValue0
+                && value1 == lastValue1
+                && feedForward == lastFeedForward
+                && slot == lastSlot
+                && enableFOC == lastEnableFOC) {
+            requestsSuppressed++;
+            totalRequestsSuppressed++;
+            return false;
+        }
+        lastRequestType = type;
+        lastValue0 = value0;
+        lastValue1 = value1;
+        lastFeedForward = feedForward;
+        lastSlot = slot;
+        lastEnableFOC = enableFOC;
+        return true;
+    }
+
+    private void send(ControlRequest request) {
+        StatusCode code = talon.setControl(request);
+        requestsSent++;
+        totalRequestsSent++;
+        if (!code.isOK()) {
+            // Sent again next time, whatever the request is
+            invalidate();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package lib.utils.logging;
+
+import org.littletonrobotics.junction.LogDataReceiver;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.LogTable.LogValue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Passes AdvantageKit log tables to the log file writer with high rate outputs thinned out by a
+ * {@link DecimationPolicy} per key.
+ *
+ * Policies are set for output keys, or prefixes of them, as passed to recordOutput. The longest prefix
+ * that matches a key wins. Inputs are always passed at full rate, since replay needs every cycle of
+ * them, and so is every output without a policy.
+ *
+ * The mode is read from the DriverStation inputs in the table, so by default every output is written at
+ * full rate during autonomous, where the most detail is wanted, and decimated the rest of the time.
+ */
+public final class DecimatingLogReceiver implements LogDataReceiver {
+    private static final String OUTPUTS_PREFIX = "RealOutputs/";
+
+    private final LogDataReceiver m_receiver;
+    private final Map<String, DecimationPolicy> m_policies = new HashMap<>();
+    // Resolved the first time a key is seen, null for keys passed at full rate
+    private final Map<String, KeyState> m_keys = new HashMap<>();
+
+    private volatile boolean m_fullRateInAuto = true;
+
+    private static final class KeyState {
+        private final DecimationPolicy m_policy;
+        private int m_cycle = 0;
+        private LogValue m_lastWritten;
+        private double m_min = Double.POSITIVE_INFINITY;
+        private double m_max = Double.NEGATIVE_INFINITY;
+
+        private KeyState(DecimationPolicy policy) {
+            m_policy = policy;
+        }
+    }
+
+    public DecimatingLogReceiver(LogDataReceiver receiver) {
+        m_receiver = receiver;
+    }
+
+    /**
+     * Sets the policy of an output key and every key under it. Call before the logger starts.
+     * @param outputKey the key as passed to recordOutput, for example "Swerve"
+     */
+    public DecimatingLogReceiver add(String outputKey, DecimationPolicy policy) {
+        m_policies.put(OUTPUTS_PREFIX + outputKey, policy);
+        return this;
+    }
+
+    /**
+     * @param fullRateInAuto write every output at full rate during autonomous, true by default
+     */
+    public DecimatingLogReceiver setFullRateInAuto(boolean fullRateInAuto) {
+        m_fullRateInAuto = fullRateInAuto;
+        return this;
+    }
+
+    @Override
+    public void start() {
+        m_receiver.start();
+    }
+
+    @Override
+    public void end() {
+        m_receiver.end();
+    }
+
+    @Override
+    public void putLog(LogTable table) {
+        LogTable driverStation = table.getSubtable("DriverStation");
+        boolean fullRate = m_fullRateInAuto
+                && driverStation.getBoolean("Enabled", false)
+                && driverStation.getBoolean("Autonomous", false);
+
+        LogTable decimated = new LogTable(table.getTimestamp());
+        for (Map.Entry<String, LogValue> field : table.getAll(true).entrySet()) {
+            String key = field.getKey();
+            LogValue value = field.getValue();
+            KeyState state = keyState(key);
+            if (state == null || fullRate) {
+                decimated.put(key, value);
+            } else {
+                decimate(decimated, key, value, state);
+            }
+        }
+        m_receiver.putLog(decimated);
+    }
+
+    private KeyState keyState(String key) {
+        if (m_keys.containsKey(key)) {
+            return m_keys.get(key);
+        }
+        DecimationPolicy policy = null;
+        int matchLength = -1;
+        if (key.startsWith(OUTPUTS_PREFIX)) {
+            for (Map.Entry<String, DecimationPolicy> entry : m_policies.entrySet()) {
+                String prefix = entry.getKey();
+                boolean matches = key.equals(prefix) || key.startsWith(prefix + "/");
+                if (matches && prefix.length() > matchLength) {
+                    policy = entry.getValue();
+                    matchLength = prefix.length();
+                }
+            }
+        }
+        KeyState state = policy == null || policy.getMode() == DecimationPolicy.Mode.FULL ? null : new KeyState(policy);
+        m_keys.put(key, state);
+        return state;
+    }
+
+    private static void decimate(LogTable decimated, String key, LogValue value, KeyState state) {
+        DecimationPolicy policy = state.m_policy;
+        switch (policy.getMode()) {
+            case EVERY_NTH:
+                if (state.m_cycle++ % policy.getCycles() == 0) {
+                    decimated.put(key, value);
+                }
+                break;
+            case ON_CHANGE:
+                if (state.m_lastWritten == null || moved(state.m_lastWritten, value, policy.getDeadband())) {
+                    decimated.put(key, value);
+                    state.m_lastWritten = value;
+                }
+                break;
+            case MIN_MAX:
+                if (!isNumber(value)) {
+                    if (state.m_cycle++ % policy.getCycles() == 0) {
+                        decimated.put(key, value);
+                    }
+                    break;
+                }
+                double number = toDouble(value);
+                state.m_min = Math.min(state.m_min, number);
+                state.m_max = Math.max(state.m_max, number);
+                if (++state.m_cycle >= policy.getCycles()) {
+                    decimated.put(key + "/Min", state.m_min);
+                    decimated.put(key + "/Max", state.m_max);
+                    state.m_cycle = 0;
+                    state.m_min = Double.POSITIVE_INFINITY;
+                    state.m_max = Double.NEGATIVE_INFINITY;
+                }
+                break;
+            default:
+                decimated.put(key, value);
+                break;
+        }
+    }
+
+    private static boolean moved(LogValue last, LogValue value, double deadband) {
+        if (isNumber(last) && isNumber(value)) {
+            return Math.abs(toDouble(value) - toDouble(last)) > deadband;
+        }
+        if (last.type == LogTable.LoggableType.DoubleArray && value.type == LogTable.LoggableType.DoubleArray) {
+            double[] lastArray = last.getDoubleArray();
+            double[] array = value.getDoubleArray();
+            if (lastArray.length != array.length) {
+                return true;
+            }
+            for (int i = 0; i < array.length; i++) {
+                if (Math.abs(array[i] - lastArray[i]) > deadband) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return !Objects.equals(last, value);
+    }
+
+    private static boolean isNumber(LogValue value) {
+        switch (value.type) {
+            case Integer:
+            case Float:
+            case Double:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static double toDouble(LogValue value) {
+        switch (value.type) {
+            case Integer:
+                return value.getInteger();
+            case Float:
+                return value.getFloat();
+            default:
+                return value.getDouble();
+        }
+    }
+}
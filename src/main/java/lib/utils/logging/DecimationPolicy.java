@@ -0,0 +1,66 @@
+package lib.utils.logging;
+
+/**
+ * How often a logged output is written to the log file, see {@link DecimatingLogReceiver}
+ */
+public final class DecimationPolicy {
+    public enum Mode {
+        /** Every cycle */
+        FULL,
+        /** Every n-th cycle */
+        EVERY_NTH,
+        /** Only when it moved more than a deadband from the last value written */
+        ON_CHANGE,
+        /** The minimum and maximum of every window of n cycles, under "Min" and "Max" subkeys */
+        MIN_MAX
+    }
+
+    private static final DecimationPolicy FULL_RATE = new DecimationPolicy(Mode.FULL, 1, 0);
+
+    private final Mode m_mode;
+    private final int m_cycles;
+    private final double m_deadband;
+
+    private DecimationPolicy(Mode mode, int cycles, double deadband) {
+        if (cycles < 1) {
+            throw new IllegalArgumentException("A decimation policy needs at least one cycle, got " + cycles);
+        }
+        m_mode = mode;
+        m_cycles = cycles;
+        m_deadband = deadband;
+    }
+
+    public static DecimationPolicy full() {
+        return FULL_RATE;
+    }
+
+    public static DecimationPolicy everyNth(int cycles) {
+        return new DecimationPolicy(Mode.EVERY_NTH, cycles, 0);
+    }
+
+    /**
+     * Numbers are written when they move more than the deadband, anything else whenever it changes
+     */
+    public static DecimationPolicy onChange(double deadband) {
+        return new DecimationPolicy(Mode.ON_CHANGE, 1, deadband);
+    }
+
+    /**
+     * Only for numbers, anything else is written once every window
+     */
+    public static DecimationPolicy minMax(int windowCycles) {
+        return new DecimationPolicy(Mode.MIN_MAX, windowCycles, 0);
+    }
+
+    public Mode getMode() {
+        return m_mode;
+    }
+
+    public int getCycles() {
+        return m_cycles;
+    }
+
+    public double getDeadband() {
+        return m_deadband;
+    }
+}
@@ -0,0 +1,69 @@
+package lib.utils.logging;
+
+import com.gos.lib.properties.GosDoubleProperty;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.Logger;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link GosDoubleProperty} whose value is read once per cycle and logged as an input under
+ * "Tunables", so a replay sees the values that were tuned on the dashboard during the match instead of
+ * the defaults.
+ *
+ * Call {@link #updateAll()} at the start of every cycle, before anything reads a value.
+ */
+public final class LoggedTunableNumber {
+    private static final List<LoggedTunableNumber> ALL = new ArrayList<>();
+    private static final LoggableInputs INPUTS = new LoggableInputs() {
+        @Override
+        public void toLog(LogTable table) {
+            for (int i = 0; i < ALL.size(); i++) {
+                LoggedTunableNumber number = ALL.get(i);
+                table.put(number.m_name, number.m_value);
+            }
+        }
+
+        @Override
+        public void fromLog(LogTable table) {
+            for (int i = 0; i < ALL.size(); i++) {
+                LoggedTunableNumber number = ALL.get(i);
+                number.m_value = table.getDouble(number.m_name, number.m_value);
+            }
+        }
+    };
+
+    private final GosDoubleProperty m_property;
+    private final String m_name;
+    private double m_value;
+
+    /**
+     * @param isConstant if the value is only read from the dashboard once, see {@link GosDoubleProperty}
+     */
+    public LoggedTunableNumber(boolean isConstant, String name, double defaultValue) {
+        m_property = new GosDoubleProperty(isConstant, name, defaultValue);
+        m_name = name;
+        m_value = m_property.getValue();
+        ALL.add(this);
+    }
+
+    /**
+     * @return the value as of the start of this cycle
+     */
+    public double getValue() {
+        return m_value;
+    }
+
+    /**
+     * Reads every tunable from the dashboard, or from the log when replaying
+     */
+    public static void updateAll() {
+        for (int i = 0; i < ALL.size(); i++) {
+            LoggedTunableNumber number = ALL.get(i);
+            number.m_value = number.m_property.getValue();
+        }
+        Logger.getInstance().processInputs("Tunables", INPUTS);
+    }
+}
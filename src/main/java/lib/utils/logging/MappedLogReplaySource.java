@@ -0,0 +1,493 @@
+package lib.utils.logging;
+
+import org.littletonrobotics.junction.LogReplaySource;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.LogTable.LoggableType;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays AdvantageKit WPILOG files by memory mapping them and decoding every record where it lies in
+ * the mapping, instead of reading each record into its own buffer like {@code WPILOGReader}.
+ *
+ * Several files can be replayed as one log, which is how the segments written by
+ * {@link TieredLogWriter} are put back together, see {@link #forSession(String)}.
+ *
+ * Files are mapped in windows of {@link #WINDOW_BYTES}, so logs of any size can be replayed. The
+ * number of records decoded per second is printed every few seconds and when the replay ends.
+ */
+public final class MappedLogReplaySource implements LogReplaySource {
+    public static final long WINDOW_BYTES = 256L << 20;
+    private static final String EXTRA_HEADER = "AdvantageKit";
+    private static final String TIMESTAMP_KEY = "Timestamp";
+    private static final byte[] MAGIC = "WPILOG".getBytes(StandardCharsets.US_ASCII);
+    private static final int CONTROL_START = 0;
+    private static final int CONTROL_FINISH = 1;
+    private static final double PROGRESS_PERIOD_SECS = 5;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(.*)_(\\d{3})(" + TieredLogWriter.MATCH_SUFFIX + ")?\\.wpilog");
+
+    private final List<Path> m_files;
+
+    private int m_fileIndex = -1;
+    private FileChannel m_channel;
+    private long m_fileSize;
+    private MappedByteBuffer m_window;
+    private long m_windowStart;
+    private long m_position;
+
+    // Indexed by entry id, reset for every file
+    private String[] m_keys = new String[256];
+    private LoggableType[] m_types = new LoggableType[256];
+    private int m_timestampEntry = -1;
+
+    // The decoded fields of the current record
+    private int m_entry;
+    private int m_payload;
+    private int m_payloadSize;
+
+    private byte[] m_scratch = new byte[256];
+    private boolean m_hasTimestamp = false;
+    private long m_timestamp;
+
+    private long m_records = 0;
+    private long m_startNanos;
+    private long m_lastReportNanos;
+    private boolean m_finished = false;
+    private boolean m_reportProgress = true;
+
+    /**
+     * @param files the files to replay, in order
+     */
+    public MappedLogReplaySource(List<Path> files) {
+        m_files = List.copyOf(files);
+    }
+
+    public MappedLogReplaySource(String path) {
+        this(List.of(Paths.get(path)));
+    }
+
+    /**
+     * Replays a log along with every later segment of the same session, if it was written by
+     * {@link TieredLogWriter}
+     */
+    public static MappedLogReplaySource forSession(String path) {
+        Path first = Paths.get(path).toAbsolutePath();
+        Matcher firstMatch = SEGMENT_NAME.matcher(first.getFileName().toString());
+        if (!firstMatch.matches()) {
+            return new MappedLogReplaySource(List.of(first));
+        }
+
+        Path[] segments = new Path[1000];
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(first.getParent(), "*.wpilog")) {
+            for (Path file : files) {
+                Matcher match = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (match.matches() && match.group(1).equals(firstMatch.group(1))) {
+                    segments[Integer.parseInt(match.group(2))] = file;
+                }
+            }
+        } catch (IOException e) {
+            return new MappedLogReplaySource(List.of(first));
+        }
+
+        List<Path> session = new ArrayList<>();
+        for (int i = Integer.parseInt(firstMatch.group(2)); i < segments.length && segments[i] != null; i++) {
+            session.add(segments[i]);
+        }
+        return new MappedLogReplaySource(session);
+    }
+
+    /**
+     * @param reportProgress print the records/s while replaying and when done, true by default
+     */
+    public MappedLogReplaySource setReportProgress(boolean reportProgress) {
+        m_reportProgress = reportProgress;
+        return this;
+    }
+
+    /**
+     * @return the files this replays, in order
+     */
+    public List<Path> getFiles() {
+        return m_files;
+    }
+
+    @Override
+    public void start() {
+        m_startNanos = System.nanoTime();
+        m_lastReportNanos = m_startNanos;
+        if (!openNextFile()) {
+            System.out.println("[Replay] " + m_files + " isn't a valid AdvantageKit log.");
+        }
+    }
+
+    @Override
+    public void end() {
+        closeFile();
+    }
+
+    @Override
+    public boolean updateTable(LogTable table) {
+        if (m_channel == null) {
+            return false;
+        }
+        if (m_hasTimestamp) {
+            table.setTimestamp(m_timestamp);
+        }
+
+        while (true) {
+            if (!nextRecord()) {
+                // The last cycle of a file is only complete if the next file continues it
+                if (!openNextFile()) {
+                    finish();
+                    return false;
+                }
+                continue;
+            }
+            m_records++;
+
+            if (m_entry == 0) {
+                readControlRecord();
+                continue;
+            }
+            if (m_entry >= m_keys.length || m_keys[m_entry] == null) {
+                continue;
+            }
+            if (m_entry == m_timestampEntry) {
+                boolean first = !m_hasTimestamp;
+                m_timestamp = m_window.getLong(m_payload);
+                m_hasTimestamp = true;
+                if (first) {
+                    table.setTimestamp(m_timestamp);
+                    continue;
+                }
+                reportProgress();
+                return true;
+            }
+            putValue(table, m_keys[m_entry], m_types[m_entry]);
+        }
+    }
+
+    public long getRecordCount() {
+        return m_records;
+    }
+
+    public double getRecordsPerSecond() {
+        double secs = (System.nanoTime() - m_startNanos) / 1.0e9;
+        return secs > 0 ? m_records / secs : 0;
+    }
+
+    private boolean openNextFile() {
+        closeFile();
+        while (++m_fileIndex < m_files.size()) {
+            Path file = m_files.get(m_fileIndex);
+            try {
+                m_channel = FileChannel.open(file, StandardOpenOption.READ);
+                m_fileSize = m_channel.size();
+                m_windowStart = 0;
+                m_window = null;
+                Arrays.fill(m_keys, null);
+                Arrays.fill(m_types, null);
+                m_timestampEntry = -1;
+                if (readHeader()) {
+                    return true;
+                }
+                System.out.println("[Replay] Skipping " + file + ", it isn't an AdvantageKit log.");
+            } catch (IOException e) {
+                System.out.println("[Replay] Skipping " + file + ": " + e.getMessage());
+            }
+            closeFile();
+        }
+        return false;
+    }
+
+    private void closeFile() {
+        if (m_channel != null) {
+            try {
+                m_channel.close();
+            } catch (IOException e) {
+                // Only ever read, nothing to lose
+            }
+        }
+        m_channel = null;
+        // A mapping stays valid until it is garbage collected, closing the channel doesn't unmap it
+        m_window = null;
+    }
+
+    private boolean readHeader() throws IOException {
+        if (!map(0, 12)) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (m_window.get(i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        int version = m_window.getShort(6) & 0xffff;
+        if (version < 0x0100) {
+            return false;
+        }
+        int extraHeaderLength = m_window.getInt(8);
+        if (!map(12, extraHeaderLength)) {
+            return false;
+        }
+        if (!EXTRA_HEADER.equals(string(windowOffset(12), extraHeaderLength))) {
+            return false;
+        }
+        m_position = 12L + extraHeaderLength;
+        return true;
+    }
+
+    /**
+     * Decodes the header of the record at the current position, maps the whole record and moves past it
+     * @return false at the end of the file, or if the last record was cut off
+     */
+    private boolean nextRecord() {
+        try {
+            if (!map(m_position, 1)) {
+                return false;
+            }
+            int header = m_window.get(windowOffset(m_position)) & 0xff;
+            int entryLength = (header & 0x3) + 1;
+            int sizeLength = ((header >> 2) & 0x3) + 1;
+            int timestampLength = ((header >> 4) & 0x7) + 1;
+            int headerLength = 1 + entryLength + sizeLength + timestampLength;
+            if (!map(m_position, headerLength)) {
+                return false;
+            }
+            int offset = windowOffset(m_position) + 1;
+            m_entry = (int) readVarInt(offset, entryLength);
+            long payloadSize = readVarInt(offset + entryLength, sizeLength);
+            if (!map(m_position, headerLength + payloadSize)) {
+                return false;
+            }
+            m_payload = windowOffset(m_position) + headerLength;
+            m_payloadSize = (int) payloadSize;
+            m_position += headerLength + payloadSize;
+            return true;
+        } catch (IOException e) {
+            System.out.println("[Replay] Couldn't read " + m_files.get(m_fileIndex) + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Makes sure a range of the file is in the mapped window, mapping a new window starting at the range
+     * if it isn't
+     * @return false if the range goes past the end of the file
+     */
+    private boolean map(long start, long length) throws IOException {
+        if (start + length > m_fileSize) {
+            return false;
+        }
+        if (m_window != null && start >= m_windowStart && start + length <= m_windowStart + m_window.limit()) {
+            return true;
+        }
+        long size = Math.min(m_fileSize - start, Math.max(WINDOW_BYTES, length));
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("A record of " + length + " bytes can't be mapped");
+        }
+        m_window = m_channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        m_window.order(ByteOrder.LITTLE_ENDIAN);
+        m_windowStart = start;
+        return true;
+    }
+
+    private int windowOffset(long position) {
+        return (int) (position - m_windowStart);
+    }
+
+    private long readVarInt(int offset, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value |= (long) (m_window.get(offset + i) & 0xff) << (8 * i);
+        }
+        return value;
+    }
+
+    private void readControlRecord() {
+        if (m_payloadSize < 5) {
+            return;
+        }
+        int type = m_window.get(m_payload);
+        int entry = m_window.getInt(m_payload + 1);
+        if (entry < 0) {
+            return;
+        }
+        if (type == CONTROL_FINISH) {
+            if (entry < m_keys.length) {
+                m_keys[entry] = null;
+                m_types[entry] = null;
+            }
+            return;
+        }
+        if (type != CONTROL_START) {
+            return;
+        }
+
+        int offset = m_payload + 5;
+        int nameLength = m_window.getInt(offset);
+        // AdvantageKit writes every key with a leading slash
+        String name = string(offset + 4, nameLength).substring(1);
+        offset += 4 + nameLength;
+        int typeLength = m_window.getInt(offset);
+        String typeName = string(offset + 4, typeLength);
+
+        if (entry >= m_keys.length) {
+            int length = Math.max(entry + 1, m_keys.length * 2);
+            m_keys = Arrays.copyOf(m_keys, length);
+            m_types = Arrays.copyOf(m_types, length);
+        }
+        m_keys[entry] = name;
+        m_types[entry] = loggableType(typeName);
+        if (name.equals(TIMESTAMP_KEY)) {
+            m_timestampEntry = entry;
+        }
+    }
+
+    private static LoggableType loggableType(String typeName) {
+        switch (typeName) {
+            case "raw":
+                return LoggableType.Raw;
+            case "boolean":
+                return LoggableType.Boolean;
+            case "int64":
+                return LoggableType.Integer;
+            case "float":
+                return LoggableType.Float;
+            case "double":
+                return LoggableType.Double;
+            case "string":
+                return LoggableType.String;
+            case "boolean[]":
+                return LoggableType.BooleanArray;
+            case "int64[]":
+                return LoggableType.IntegerArray;
+            case "float[]":
+                return LoggableType.FloatArray;
+            case "double[]":
+                return LoggableType.DoubleArray;
+            case "string[]":
+                return LoggableType.StringArray;
+            default:
+                return null;
+        }
+    }
+
+    private void putValue(LogTable table, String key, LoggableType type) {
+        if (type == null) {
+            return;
+        }
+        int payload = m_payload;
+        int size = m_payloadSize;
+        switch (type) {
+            case Raw:
+                byte[] raw = new byte[size];
+                m_window.position(payload);
+                m_window.get(raw);
+                table.put(key, raw);
+                break;
+            case Boolean:
+                table.put(key, m_window.get(payload) != 0);
+                break;
+            case Integer:
+                table.put(key, m_window.getLong(payload));
+                break;
+            case Float:
+                table.put(key, m_window.getFloat(payload));
+                break;
+            case Double:
+                table.put(key, m_window.getDouble(payload));
+                break;
+            case String:
+                table.put(key, string(payload, size));
+                break;
+            case BooleanArray:
+                boolean[] booleans = new boolean[size];
+                for (int i = 0; i < booleans.length; i++) {
+                    booleans[i] = m_window.get(payload + i) != 0;
+                }
+                table.put(key, booleans);
+                break;
+            case IntegerArray:
+                long[] longs = new long[size / Long.BYTES];
+                for (int i = 0; i < longs.length; i++) {
+                    longs[i] = m_window.getLong(payload + i * Long.BYTES);
+                }
+                table.put(key, longs);
+                break;
+            case FloatArray:
+                float[] floats = new float[size / Float.BYTES];
+                for (int i = 0; i < floats.length; i++) {
+                    floats[i] = m_window.getFloat(payload + i * Float.BYTES);
+                }
+                table.put(key, floats);
+                break;
+            case DoubleArray:
+                double[] doubles = new double[size / Double.BYTES];
+                for (int i = 0; i < doubles.length; i++) {
+                    doubles[i] = m_window.getDouble(payload + i * Double.BYTES);
+                }
+                table.put(key, doubles);
+                break;
+            case StringArray:
+                String[] strings = new String[m_window.getInt(payload)];
+                int offset = payload + 4;
+                for (int i = 0; i < strings.length; i++) {
+                    int length = m_window.getInt(offset);
+                    strings[i] = string(offset + 4, length);
+                    offset += 4 + length;
+                }
+                table.put(key, strings);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Decodes a UTF-8 string from the window through a reused buffer
+     */
+    private String string(int offset, int length) {
+        if (length > m_scratch.length) {
+            m_scratch = new byte[Math.max(length, m_scratch.length * 2)];
+        }
+        m_window.position(offset);
+        m_window.get(m_scratch, 0, length);
+        return new String(m_scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void reportProgress() {
+        long now = System.nanoTime();
+        if (m_reportProgress && (now - m_lastReportNanos) / 1.0e9 >= PROGRESS_PERIOD_SECS) {
+            m_lastReportNanos = now;
+            System.out.printf("[Replay] %d records, %.0f records/s%n", m_records, getRecordsPerSecond());
+        }
+    }
+
+    private void finish() {
+        if (m_finished) {
+            return;
+        }
+        m_finished = true;
+        if (!m_reportProgress) {
+            return;
+        }
+        double secs = (System.nanoTime() - m_startNanos) / 1.0e9;
+        System.out.printf("[Replay] Replayed %d records from %d files in %.1f s, %.0f records/s%n",
+                m_records, m_files.size(), secs, getRecordsPerSecond());
+    }
+}
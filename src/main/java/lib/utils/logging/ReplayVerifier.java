@@ -0,0 +1,187 @@
+package lib.utils.logging;
+
+import org.littletonrobotics.junction.LogDataReceiver;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.LogTable.LogValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks a replay is deterministic by comparing every output the replayed code records with the one the
+ * robot recorded in the same cycle of the log.
+ *
+ * Outputs that depend on the machine rather than the inputs, like loop timing and heap use, and the
+ * outputs that were decimated in the log are ignored by prefix. The first mismatches are printed as they
+ * are found and a summary with the replay throughput is printed when the replay ends.
+ *
+ * The verdict is written to the file named by {@link #RESULT_FILE_PROPERTY}, for the replayCheck task
+ * to read. Exiting with an error code from here would race AdvantageKit's own System.exit(0) after the
+ * replay ends, so the exit code of the replay says nothing. A shutdown hook holds that exit back until
+ * the file is written.
+ */
+public final class ReplayVerifier implements LogDataReceiver {
+    public static final String RESULT_FILE_PROPERTY = "helios.replay.resultFile";
+    public static final String PASSED = "PASSED";
+    public static final String FAILED = "FAILED";
+
+    private static final String REAL_PREFIX = "RealOutputs/";
+    private static final String REPLAY_PREFIX = "ReplayOutputs/";
+    private static final int MAX_PRINTED_MISMATCHES = 20;
+    private static final double TOLERANCE = 1e-6;
+    private static final long SHUTDOWN_WAIT_SECS = 5;
+
+    private final List<String> m_ignoredPrefixes = new ArrayList<>();
+    private final Map<String, Long> m_mismatches = new TreeMap<>();
+    private final Map<String, Long> m_missing = new TreeMap<>();
+
+    private long m_cycles = 0;
+    private long m_mismatchedCycles = 0;
+    private long m_printed = 0;
+    private long m_startNanos;
+    private final CountDownLatch m_ended = new CountDownLatch(1);
+
+    /**
+     * Ignores an output key and every key under it
+     * @param outputKey the key as passed to recordOutput
+     */
+    public ReplayVerifier ignore(String outputKey) {
+        m_ignoredPrefixes.add(outputKey);
+        return this;
+    }
+
+    @Override
+    public void start() {
+        m_startNanos = System.nanoTime();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                m_ended.await(SHUTDOWN_WAIT_SECS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "ReplayVerifierShutdown"));
+    }
+
+    @Override
+    public void putLog(LogTable table) {
+        m_cycles++;
+        boolean mismatched = false;
+        Map<String, LogValue> fields = table.getAll(true);
+        for (Map.Entry<String, LogValue> field : fields.entrySet()) {
+            String key = field.getKey();
+            if (!key.startsWith(REAL_PREFIX)) {
+                continue;
+            }
+            String outputKey = key.substring(REAL_PREFIX.length());
+            if (isIgnored(outputKey)) {
+                continue;
+            }
+            LogValue replayed = fields.get(REPLAY_PREFIX + outputKey);
+            if (replayed == null) {
+                m_missing.merge(outputKey, 1L, Long::sum);
+                continue;
+            }
+            if (!matches(field.getValue(), replayed)) {
+                mismatched = true;
+                m_mismatches.merge(outputKey, 1L, Long::sum);
+                if (m_printed++ < MAX_PRINTED_MISMATCHES) {
+                    System.out.println("Replay mismatch at " + table.getTimestamp() + " us in " + outputKey
+                            + ": logged " + describe(field.getValue()) + ", replayed " + describe(replayed));
+                }
+            }
+        }
+        if (mismatched) {
+            m_mismatchedCycles++;
+        }
+    }
+
+    @Override
+    public void end() {
+        double seconds = (System.nanoTime() - m_startNanos) / 1e9;
+        System.out.printf("Replay verified %d cycles in %.1f s (%.0f cycles/s), %d cycles mismatched%n",
+                m_cycles, seconds, seconds > 0 ? m_cycles / seconds : 0.0, m_mismatchedCycles);
+        m_mismatches.forEach((key, count) -> System.out.println("  " + key + ": " + count + " cycles mismatched"));
+        // Outputs only recorded in some modes are missing from the replay for some cycles, so this is only
+        // worth looking at when an output is missing for the whole replay
+        m_missing.forEach((key, count) -> System.out.println("  " + key + ": not replayed in " + count + " cycles"));
+
+        String resultFile = System.getProperty(RESULT_FILE_PROPERTY);
+        if (resultFile != null) {
+            String result = (m_mismatchedCycles > 0 ? FAILED : PASSED) + " " + m_cycles + " cycles, "
+                    + m_mismatchedCycles + " mismatched\n";
+            try {
+                Files.writeString(Paths.get(resultFile), result);
+            } catch (IOException e) {
+                // The missing file fails the check
+                System.err.println("Couldn't write the replay result to " + resultFile + ": " + e.getMessage());
+            }
+        }
+        System.out.flush();
+        m_ended.countDown();
+    }
+
+    private boolean isIgnored(String outputKey) {
+        for (int i = 0; i < m_ignoredPrefixes.size(); i++) {
+            String prefix = m_ignoredPrefixes.get(i);
+            if (outputKey.equals(prefix) || outputKey.startsWith(prefix + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(LogValue logged, LogValue replayed) {
+        if (logged.type == LogTable.LoggableType.Double && replayed.type == LogTable.LoggableType.Double) {
+            return close(logged.getDouble(), replayed.getDouble());
+        }
+        if (logged.type == LogTable.LoggableType.DoubleArray && replayed.type == LogTable.LoggableType.DoubleArray) {
+            double[] loggedArray = logged.getDoubleArray();
+            double[] replayedArray = replayed.getDoubleArray();
+            if (loggedArray.length != replayedArray.length) {
+                return false;
+            }
+            for (int i = 0; i < loggedArray.length; i++) {
+                if (!close(loggedArray[i], replayedArray[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Objects.equals(logged, replayed);
+    }
+
+    private static boolean close(double logged, double replayed) {
+        if (Double.compare(logged, replayed) == 0) {
+            return true;
+        }
+        return Math.abs(logged - replayed) <= TOLERANCE * Math.max(1.0, Math.max(Math.abs(logged), Math.abs(replayed)));
+    }
+
+    private static String describe(LogValue value) {
+        switch (value.type) {
+            case Boolean:
+                return String.valueOf(value.getBoolean());
+            case Integer:
+                return String.valueOf(value.getInteger());
+            case Float:
+                return String.valueOf(value.getFloat());
+            case Double:
+                return String.valueOf(value.getDouble());
+            case String:
+                return value.getString();
+            case DoubleArray:
+                return Arrays.toString(value.getDoubleArray());
+            default:
+                return value.type.name();
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package lib.utils.logging;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import org.littletonrobotics.junction.LogDataReceiver;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.Logger;
+import org.littletonrobotics.junction.wpilog.WPILOGWriter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Writes the WPILOG to RAM and copies it to the USB stick from a background thread, so flash write
+ * stalls never hold up the logger.
+ *
+ * Each log is split into segments. A segment is written by a {@link WPILOGWriter} to a RAM directory
+ * (tmpfs on the roboRIO) and the flush thread appends what has been written to the same file on the
+ * USB stick in chunks of at least {@link #CHUNK_BYTES}. A segment is closed when it reaches the
+ * segment size or when {@link #flush()} is called; the rest of it is then copied, synced to the stick
+ * and deleted from RAM. Every segment starts with the full value of every field, so each one opens on
+ * its own and together they are the whole log.
+ *
+ * A segment whose copy fails stays in RAM and is copied again from the start on the next flush, and
+ * the segments closed after it wait behind it. If the stick falls so far behind that more than the
+ * maximum pending bytes are waiting in RAM, whole log cycles are dropped rather than running the
+ * roboRIO out of memory, and counted.
+ *
+ * The USB directory is checked when the writer is made. If it can't be created or written, there is
+ * nowhere for the segments to go, so nothing is buffered in RAM: the error is reported once and every
+ * log cycle is counted as dropped.
+ *
+ * The logs on the stick are kept under a total size budget, from the {@link #SIZE_BUDGET_PROPERTY}
+ * system property. Segments written while the FMS was attached are marked as match logs; when the
+ * budget is exceeded the oldest other logs are deleted first, and match logs only once none are left.
+ */
+public final class TieredLogWriter implements LogDataReceiver {
+    // The RAM directory is a tmpfs sharing the roboRIO's 256 or 512 MB, so at most a few MiB wait there
+    public static final long DEFAULT_SEGMENT_BYTES = 2L << 20;
+    public static final long DEFAULT_MAX_PENDING_BYTES = 4L << 20;
+    public static final long CHUNK_BYTES = 1L << 20;
+    public static final String SIZE_BUDGET_PROPERTY = "helios.log.sizeBudget";
+    public static final long DEFAULT_SIZE_BUDGET_BYTES = 4L << 30;
+    public static final String MATCH_SUFFIX = "_match";
+    private static final String LOG_EXTENSION = ".wpilog";
+    private static final long FLUSH_PERIOD_MS = 500;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+    // How often the receiver thread checks whether the segment is full
+    static final int SIZE_CHECK_CYCLES = 50;
+
+    private final Path m_ramDirectory;
+    private final Path m_usbDirectory;
+    private final long m_segmentBytes;
+    private final long m_maxPendingBytes;
+    private final long m_sizeBudgetBytes;
+    private final String m_sessionName;
+    private final boolean m_usbWritable;
+    private final Thread m_flushThread;
+    private final Object m_flushSignal = new Object();
+    private final ConcurrentLinkedQueue<Segment> m_closedSegments = new ConcurrentLinkedQueue<>();
+
+    // Only touched by the logger's receiver thread
+    private WPILOGWriter m_writer;
+    private int m_segmentIndex = 0;
+    private int m_cyclesSinceSizeCheck = 0;
+
+    private volatile Segment m_openSegment;
+    private volatile boolean m_running = false;
+    private volatile boolean m_closeRequested = false;
+    private boolean m_flushRequested = false;
+
+    private volatile long m_pendingBytes;
+    private volatile long m_flushedBytes;
+    private volatile long m_droppedCycles;
+    private volatile long m_flushes;
+    private volatile double m_lastFlushMs;
+    private volatile double m_maxFlushMs;
+    private volatile long m_flushErrors;
+    private volatile long m_deletedLogs;
+
+    private static final class Segment {
+        private final Path m_ramPath;
+        private final Path m_usbPath;
+        private FileChannel m_ramChannel;
+        private FileChannel m_usbChannel;
+        private long m_copiedBytes = 0;
+        private volatile boolean m_match = false;
+
+        private Segment(Path ramPath, Path usbPath) {
+            m_ramPath = ramPath;
+            m_usbPath = usbPath;
+        }
+    }
+
+    /**
+     * @param ramDirectory where segments are written first, should be on a tmpfs
+     * @param usbDirectory where the log ends up
+     */
+    public TieredLogWriter(String ramDirectory, String usbDirectory) {
+        this(ramDirectory, usbDirectory, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    public TieredLogWriter(String ramDirectory, String usbDirectory, long segmentBytes, long maxPendingBytes) {
+        m_ramDirectory = Paths.get(ramDirectory);
+        m_usbDirectory = Paths.get(usbDirectory);
+        m_segmentBytes = segmentBytes;
+        m_maxPendingBytes = maxPendingBytes;
+        m_sizeBudgetBytes = Long.getLong(SIZE_BUDGET_PROPERTY, DEFAULT_SIZE_BUDGET_BYTES);
+        m_sessionName = "helios_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        m_flushThread = new Thread(this::flushLoop, "LogFlusher");
+        m_flushThread.setDaemon(true);
+        m_usbWritable = isWritableDirectory(m_usbDirectory);
+        if (!m_usbWritable) {
+            DriverStation.reportError("No writable log directory at " + m_usbDirectory + ", is the USB stick in? Not logging", false);
+        }
+    }
+
+    private static boolean isWritableDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            return false;
+        }
+        return Files.isWritable(directory);
+    }
+
+    @Override
+    public void start() {
+        if (!m_usbWritable) {
+            return;
+        }
+        try {
+            Files.createDirectories(m_ramDirectory);
+        } catch (IOException e) {
+            DriverStation.reportError("Couldn't create the RAM log directory: " + e.getMessage(), false);
+        }
+        m_running = true;
+        openSegment();
+        m_flushThread.start();
+    }
+
+    @Override
+    public void putLog(LogTable table) {
+        if (!m_usbWritable) {
+            m_droppedCycles++;
+            return;
+        }
+        if (m_closeRequested) {
+            m_closeRequested = false;
+            closeSegment();
+            openSegment();
+        }
+
+        if (m_pendingBytes > m_maxPendingBytes) {
+            // The writer only writes what changed since the table it last saw, so skipping whole
+            // tables keeps the log consistent
+            m_droppedCycles++;
+            return;
+        }
+        m_writer.putLog(table);
+
+        if (++m_cyclesSinceSizeCheck >= SIZE_CHECK_CYCLES) {
+            m_cyclesSinceSizeCheck = 0;
+            if (DriverStation.isFMSAttached()) {
+                m_openSegment.m_match = true;
+            }
+            if (sizeOf(m_openSegment.m_ramPath) >= m_segmentBytes) {
+                closeSegment();
+                openSegment();
+            }
+        }
+    }
+
+    @Override
+    public void end() {
+        if (!m_usbWritable) {
+            return;
+        }
+        closeSegment();
+        m_openSegment = null;
+        m_running = false;
+        signalFlush();
+        try {
+            m_flushThread.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets everything logged so far onto the USB stick: the open segment is closed with the next log
+     * cycle, then copied and synced. Doesn't block, call from disabledInit.
+     */
+    public void flush() {
+        m_closeRequested = true;
+    }
+
+    /**
+     * Logs the flush metrics under "Log/", call from the main thread
+     */
+    public void logMetrics() {
+        Logger logger = Logger.getInstance();
+        logger.recordOutput("Log/UsbWritable", m_usbWritable);
+        logger.recordOutput("Log/PendingBytes", m_pendingBytes);
+        logger.recordOutput("Log/FlushedBytes", m_flushedBytes);
+        logger.recordOutput("Log/DroppedCycles", m_droppedCycles);
+        logger.recordOutput("Log/Flushes", m_flushes);
+        logger.recordOutput("Log/LastFlushMS", m_lastFlushMs);
+        logger.recordOutput("Log/MaxFlushMS", m_maxFlushMs);
+        logger.recordOutput("Log/FlushErrors", m_flushErrors);
+        logger.recordOutput("Log/Segments", m_segmentIndex);
+        logger.recordOutput("Log/DeletedLogs", m_deletedLogs);
+    }
+
+    private void openSegment() {
+        String fileName = String.format("%s_%03d%s", m_sessionName, m_segmentIndex++, LOG_EXTENSION);
+        Segment segment = new Segment(m_ramDirectory.resolve(fileName), m_usbDirectory.resolve(fileName));
+        m_writer = new WPILOGWriter(segment.m_ramPath.toString());
+        m_writer.start();
+        m_openSegment = segment;
+    }
+
+    private void closeSegment() {
+        Segment segment = m_openSegment;
+        if (segment == null) {
+            return;
+        }
+        if (DriverStation.isFMSAttached()) {
+            segment.m_match = true;
+        }
+        // Ending the writer writes everything it has buffered to the RAM file
+        m_writer.end();
+        m_closedSegments.add(segment);
+        signalFlush();
+    }
+
+    private void signalFlush() {
+        synchronized (m_flushSignal) {
+            m_flushRequested = true;
+            m_flushSignal.notifyAll();
+        }
+    }
+
+    private void flushLoop() {
+        enforceSizeBudget();
+        boolean retrying = false;
+        while (m_running || !m_closedSegments.isEmpty()) {
+            synchronized (m_flushSignal) {
+                // Also waits between retries once the log has ended, rather than spinning on a failed copy
+                if (!m_flushRequested && (m_running || retrying)) {
+                    try {
+                        m_flushSignal.wait(FLUSH_PERIOD_MS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                m_flushRequested = false;
+            }
+            retrying = !flushOnce();
+        }
+    }
+
+    /**
+     * Copies the closed segments in order, stopping at the first one that fails, and what is waiting
+     * of the open segment
+     * @return false if a closed segment is left to retry
+     */
+    private boolean flushOnce() {
+        Segment segment;
+        boolean finished = false;
+        boolean copiedAll = true;
+        while ((segment = m_closedSegments.peek()) != null) {
+            if (!copy(segment, true)) {
+                copiedAll = false;
+                break;
+            }
+            m_closedSegments.poll();
+            finish(segment);
+            finished = true;
+        }
+        if (finished) {
+            enforceSizeBudget();
+        }
+
+        long pending = 0;
+        for (Segment closed : m_closedSegments) {
+            pending += sizeOf(closed.m_ramPath) - closed.m_copiedBytes;
+        }
+        Segment open = m_openSegment;
+        if (open != null) {
+            copy(open, false);
+            pending += sizeOf(open.m_ramPath) - open.m_copiedBytes;
+        }
+        m_pendingBytes = pending;
+        return copiedAll;
+    }
+
+    int getSegmentCount() {
+        return m_segmentIndex;
+    }
+
+    boolean isUsbWritable() {
+        return m_usbWritable;
+    }
+
+    String getSessionName() {
+        return m_sessionName;
+    }
+
+    long getPendingBytes() {
+        return m_pendingBytes;
+    }
+
+    /**
+     * Appends what was written to the RAM file since the last copy to the USB file. After a failure the
+     * USB file is closed, and the next copy writes it again from the start.
+     * @param all copy even if less than a chunk is waiting, and sync the USB file afterwards
+     * @return false if the copy failed
+     */
+    private boolean copy(Segment segment, boolean all) {
+        long size = sizeOf(segment.m_ramPath);
+        if (size - segment.m_copiedBytes < (all ? 1 : CHUNK_BYTES)) {
+            return !all || sync(segment);
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (segment.m_ramChannel == null) {
+                segment.m_ramChannel = FileChannel.open(segment.m_ramPath, StandardOpenOption.READ);
+                segment.m_usbChannel = FileChannel.open(segment.m_usbPath,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            while (segment.m_copiedBytes < size) {
+                long copied = segment.m_ramChannel.transferTo(
+                        segment.m_copiedBytes, Math.min(CHUNK_BYTES, size - segment.m_copiedBytes), segment.m_usbChannel);
+                segment.m_copiedBytes += copied;
+                m_flushedBytes += copied;
+            }
+            if (all) {
+                segment.m_usbChannel.force(true);
+            }
+        } catch (IOException e) {
+            m_flushErrors++;
+            DriverStation.reportWarning("Couldn't copy " + segment.m_ramPath + " to the USB stick: " + e.getMessage(), false);
+            closeChannels(segment);
+            segment.m_copiedBytes = 0;
+            return false;
+        }
+
+        m_flushes++;
+        m_lastFlushMs = (System.nanoTime() - start) / 1.0e6;
+        if (m_lastFlushMs > m_maxFlushMs) {
+            m_maxFlushMs = m_lastFlushMs;
+        }
+        return true;
+    }
+
+    private boolean sync(Segment segment) {
+        if (segment.m_usbChannel == null) {
+            return true;
+        }
+        try {
+            segment.m_usbChannel.force(true);
+            return true;
+        } catch (IOException e) {
+            m_flushErrors++;
+            closeChannels(segment);
+            segment.m_copiedBytes = 0;
+            return false;
+        }
+    }
+
+    private static void closeChannels(Segment segment) {
+        try {
+            if (segment.m_ramChannel != null) {
+                segment.m_ramChannel.close();
+            }
+            if (segment.m_usbChannel != null) {
+                segment.m_usbChannel.close();
+            }
+        } catch (IOException e) {
+            // Opened again on the next copy either way
+        }
+        segment.m_ramChannel = null;
+        segment.m_usbChannel = null;
+    }
+
+    /**
+     * Frees the RAM of a segment that was copied in full and marks it as a match log
+     */
+    private void finish(Segment segment) {
+        closeChannels(segment);
+        try {
+            Files.deleteIfExists(segment.m_ramPath);
+            if (segment.m_match && Files.exists(segment.m_usbPath)) {
+                String fileName = segment.m_usbPath.getFileName().toString();
+                String matchName = fileName.substring(0, fileName.length() - LOG_EXTENSION.length()) + MATCH_SUFFIX + LOG_EXTENSION;
+                Files.move(segment.m_usbPath, segment.m_usbPath.resolveSibling(matchName));
+            }
+        } catch (IOException e) {
+            m_flushErrors++;
+            DriverStation.reportWarning("Couldn't finish log segment " + segment.m_ramPath + ": " + e.getMessage(), false);
+        }
+    }
+
+    /**
+     * Deletes the oldest logs on the stick, other than match logs while there are any, until the logs
+     * fit in the size budget. The open segment is never deleted.
+     */
+    private void enforceSizeBudget() {
+        Segment open = m_openSegment;
+        List<Path> logs = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(m_usbDirectory, "*" + LOG_EXTENSION)) {
+            for (Path file : files) {
+                total += sizeOf(file);
+                if (open == null || !file.equals(open.m_usbPath)) {
+                    logs.add(file);
+                }
+            }
+        } catch (IOException e) {
+            m_flushErrors++;
+            return;
+        }
+        if (total <= m_sizeBudgetBytes) {
+            return;
+        }
+
+        Map<Path, Long> modifiedTimes = new HashMap<>();
+        for (Path log : logs) {
+            modifiedTimes.put(log, lastModified(log));
+        }
+        logs.sort(Comparator.comparing(TieredLogWriter::isMatchLog).thenComparing(modifiedTimes::get));
+        for (Path log : logs) {
+            if (total <= m_sizeBudgetBytes) {
+                break;
+            }
+            long size = sizeOf(log);
+            try {
+                Files.deleteIfExists(log);
+                total -= size;
+                m_deletedLogs++;
+            } catch (IOException e) {
+                m_flushErrors++;
+            }
+        }
+    }
+
+    private static boolean isMatchLog(Path log) {
+        return log.getFileName().toString().endsWith(MATCH_SUFFIX + LOG_EXTENSION);
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
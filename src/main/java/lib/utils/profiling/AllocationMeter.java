@@ -0,0 +1,40 @@
+package lib.utils.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the JVM's per thread allocated bytes counter. The difference between two reads on the same
+ * thread is the number of bytes that thread allocated in between.
+ */
+public final class AllocationMeter {
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = findThreadBean();
+
+    private AllocationMeter() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    public static boolean isSupported() {
+        return THREAD_BEAN != null;
+    }
+
+    /**
+     * @return the total bytes allocated by the calling thread, or 0 if the JVM doesn't track it
+     */
+    public static long currentThreadAllocatedBytes() {
+        return THREAD_BEAN == null ? 0 : THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean findThreadBean() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!sunThreadBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        sunThreadBean.setThreadAllocatedMemoryEnabled(true);
+        return sunThreadBean;
+    }
+}
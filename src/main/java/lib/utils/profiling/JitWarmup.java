@@ -0,0 +1,176 @@
+package lib.utils.profiling;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import org.littletonrobotics.junction.Logger;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Runs the code that autonomous depends on with synthetic inputs while the robot is disabled, so the
+ * JIT has compiled it before the first autonomous cycle instead of during it.
+ *
+ * A target must only do math on objects it owns: its own controllers, estimators and poses. It must
+ * never read or write a subsystem, so warming up can't command hardware. Each target returns a
+ * number that is added to a sink, which stops the JIT from removing the work as dead code.
+ *
+ * Targets are called in batches round robin until each has been called {@link #WARM_INVOCATIONS}
+ * times, which is past the point where HotSpot compiles a method with its optimizing compiler. The
+ * time per call of the first and last batches are logged under "Warmup/" so the speed up can be seen.
+ */
+public final class JitWarmup {
+    // The C2 compile threshold is 10000 invocations or loop iterations, so twice that to be safe
+    public static final int WARM_INVOCATIONS = 20_000;
+    private static final int BATCH_SIZE = 100;
+
+    private final List<Target> m_targets = new ArrayList<>();
+    private final CompilationMXBean m_compiler = ManagementFactory.getCompilationMXBean();
+    private final long m_startCompileTimeMs;
+
+    private boolean m_complete = false;
+    private long m_warmupNanos;
+    private double m_sink;
+
+    private static final class Target {
+        private final String m_name;
+        private final DoubleSupplier m_body;
+        private final String m_invocationsKey;
+
+        private int m_invocations;
+        private double m_firstBatchNsPerCall = -1;
+        private double m_lastBatchNsPerCall = -1;
+        private boolean m_failed = false;
+
+        private Target(String name, DoubleSupplier body) {
+            m_name = name;
+            m_body = body;
+            m_invocationsKey = "Warmup/" + name + "/Invocations";
+        }
+
+        private boolean isDone() {
+            return m_failed || m_invocations >= WARM_INVOCATIONS;
+        }
+    }
+
+    public JitWarmup() {
+        m_startCompileTimeMs = compileTimeMs();
+    }
+
+    /**
+     * Adds code to warm up
+     * @param name the name used under "Warmup/" in the log
+     * @param body a call of the hot path on synthetic inputs, which must not touch any hardware
+     */
+    public void addTarget(String name, DoubleSupplier body) {
+        m_targets.add(new Target(name, body));
+    }
+
+    /**
+     * Calls the targets until the time budget is used up. Only does anything while the robot is
+     * disabled, call it from disabledPeriodic.
+     * @param budgetSecs how long to spend warming up this cycle
+     */
+    public void runDisabled(double budgetSecs) {
+        if (m_complete || !DriverStation.isDisabled()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + (long) (budgetSecs * 1.0e9);
+        boolean ranBatch = true;
+        while (ranBatch && System.nanoTime() < deadline) {
+            ranBatch = false;
+            for (int i = 0; i < m_targets.size(); i++) {
+                Target target = m_targets.get(i);
+                if (!target.isDone()) {
+                    runBatch(target);
+                    ranBatch = true;
+                }
+            }
+        }
+        m_warmupNanos += System.nanoTime() - start;
+
+        Logger logger = Logger.getInstance();
+        for (int i = 0; i < m_targets.size(); i++) {
+            Target target = m_targets.get(i);
+            logger.recordOutput(target.m_invocationsKey, target.m_invocations);
+        }
+
+        if (!ranBatch) {
+            m_complete = true;
+            logReport();
+        }
+    }
+
+    /**
+     * @return true once every target has been warmed up
+     */
+    public boolean isComplete() {
+        return m_complete;
+    }
+
+    private void runBatch(Target target) {
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                m_sink += target.m_body.getAsDouble();
+            }
+        } catch (RuntimeException e) {
+            // A broken target is dropped rather than taking the disabled loop down with it
+            target.m_failed = true;
+            DriverStation.reportError("Warm up of " + target.m_name + " failed: " + e, e.getStackTrace());
+            return;
+        }
+        double nsPerCall = (System.nanoTime() - start) / (double) BATCH_SIZE;
+
+        if (target.m_firstBatchNsPerCall < 0) {
+            target.m_firstBatchNsPerCall = nsPerCall;
+        }
+        target.m_lastBatchNsPerCall = nsPerCall;
+        target.m_invocations += BATCH_SIZE;
+    }
+
+    private void logReport() {
+        Logger logger = Logger.getInstance();
+        long compileTimeMs = compileTimeMs() - m_startCompileTimeMs;
+        String[] lines = new String[m_targets.size()];
+
+        for (int i = 0; i < m_targets.size(); i++) {
+            Target target = m_targets.get(i);
+            String prefix = "Warmup/" + target.m_name + "/";
+            double speedup = target.m_lastBatchNsPerCall > 0 ? target.m_firstBatchNsPerCall / target.m_lastBatchNsPerCall : 0.0;
+            logger.recordOutput(prefix + "FirstNsPerCall", target.m_firstBatchNsPerCall);
+            logger.recordOutput(prefix + "LastNsPerCall", target.m_lastBatchNsPerCall);
+            logger.recordOutput(prefix + "Speedup", speedup);
+            logger.recordOutput(prefix + "Failed", target.m_failed);
+
+            lines[i] = target.m_failed
+                    ? String.format("%s: FAILED after %d calls", target.m_name, target.m_invocations)
+                    : String.format("%s: %d calls, %.0f ns -> %.0f ns per call (%.1fx)",
+                            target.m_name, target.m_invocations, target.m_firstBatchNsPerCall, target.m_lastBatchNsPerCall, speedup);
+        }
+
+        logger.recordOutput("Warmup/Complete", true);
+        logger.recordOutput("Warmup/TotalMS", m_warmupNanos / 1.0e6);
+        logger.recordOutput("Warmup/CompileTimeMS", compileTimeMs);
+        logger.recordOutput("Warmup/Report", lines);
+
+        StringBuilder report = new StringBuilder(String.format(
+                "JIT warm up finished in %.0f ms, %d ms spent compiling:%n",
+                m_warmupNanos / 1.0e6, compileTimeMs));
+        for (String line : lines) {
+            report.append("  ").append(line).append(System.lineSeparator());
+        }
+        System.out.print(report);
+    }
+
+    private long compileTimeMs() {
+        if (m_compiler == null || !m_compiler.isCompilationTimeMonitoringSupported()) {
+            return 0;
+        }
+        return m_compiler.getTotalCompilationTime();
+    }
+}
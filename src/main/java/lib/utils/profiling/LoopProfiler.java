@@ -0,0 +1,239 @@
+package lib.utils.profiling;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import lib.utils.profiling.jfr.CommandEvent;
+import lib.utils.profiling.jfr.FlightRecorderControl;
+import lib.utils.profiling.jfr.SchedulerCycleEvent;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times every subsystem periodic and every command callback that runs inside
+ * {@link CommandScheduler#run()} and logs rolling p50/p99/max values and the bytes allocated per
+ * cycle for each one.
+ *
+ * Subsystems time themselves with a {@link ProfiledSection}. Commands can't be wrapped from the
+ * outside, so the scheduler callbacks are used instead: the scheduler fires them right after each
+ * initialize, execute or end, so each callback is charged with the time since the previous mark.
+ * A mark is set at the end of every subsystem section and by a binding polled on the default button
+ * loop, which the scheduler polls after the subsystems and before the commands.
+ *
+ * While a flight recording is running the cycle and every command callback are also emitted as JFR
+ * events. A command event is begun at each mark and committed by the callback that follows it.
+ */
+public final class LoopProfiler {
+    // 500 cycles at 20 ms is a 10 second window
+    private static final int WINDOW_SIZE = 500;
+
+    private static final String PHASE_INITIALIZE = "initialize";
+    private static final String PHASE_EXECUTE = "execute";
+    private static final String PHASE_FINISH = "end";
+    private static final String PHASE_INTERRUPT = "interrupted";
+
+    private static LoopProfiler instance;
+
+    private final List<ProfiledSection> m_sections = new ArrayList<>();
+    private final Map<String, ProfiledSection> m_sectionsByName = new HashMap<>();
+    private final Map<Command, ProfiledSection> m_commandSections = new IdentityHashMap<>();
+    private final ProfiledSection m_schedulerSection;
+
+    private boolean m_installed = false;
+    private boolean m_inCycle = false;
+    private long m_markNanos;
+    private long m_markBytes;
+    private long m_cycleCount;
+
+    private SchedulerCycleEvent m_cycleEvent;
+    private CommandEvent m_pendingCommandEvent;
+
+    private LoopProfiler() {
+        m_schedulerSection = registerSection("Scheduler", false);
+    }
+
+    public static LoopProfiler getInstance() {
+        if (instance == null) {
+            instance = new LoopProfiler();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the section for a name, creating it the first time
+     * @param name the name used under "Profiler/" in the log
+     */
+    public ProfiledSection registerSection(String name) {
+        return registerSection(name, false);
+    }
+
+    public ProfiledSection registerSubsystem(SubsystemBase subsystem) {
+        return registerSection("Subsystems/" + subsystem.getName(), true);
+    }
+
+    private ProfiledSection registerSection(String name, boolean subsystem) {
+        ProfiledSection section = m_sectionsByName.get(name);
+        if (section == null) {
+            section = new ProfiledSection(name, WINDOW_SIZE, this, subsystem);
+            m_sectionsByName.put(name, section);
+            m_sections.add(section);
+        }
+        return section;
+    }
+
+    /**
+     * Hooks the command scheduler. Call this once after all button bindings are made so the mark
+     * binding is polled after every other binding.
+     */
+    public void install() {
+        if (m_installed) {
+            return;
+        }
+        m_installed = true;
+
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        scheduler.getDefaultButtonLoop().bind(() -> mark(System.nanoTime(), AllocationMeter.currentThreadAllocatedBytes()));
+        scheduler.onCommandInitialize(command -> chargeCommand(command, PHASE_INITIALIZE));
+        scheduler.onCommandExecute(command -> chargeCommand(command, PHASE_EXECUTE));
+        scheduler.onCommandFinish(command -> chargeAndReleaseCommand(command, PHASE_FINISH));
+        scheduler.onCommandInterrupt(command -> chargeAndReleaseCommand(command, PHASE_INTERRUPT));
+    }
+
+    /**
+     * Call right before {@link CommandScheduler#run()}
+     */
+    public void startCycle() {
+        m_cycleCount++;
+        if (FlightRecorderControl.isRecording()) {
+            m_cycleEvent = new SchedulerCycleEvent();
+            m_cycleEvent.cycle = m_cycleCount;
+            m_cycleEvent.begin();
+        }
+
+        m_inCycle = true;
+        m_schedulerSection.begin();
+        m_markNanos = System.nanoTime();
+        m_markBytes = AllocationMeter.currentThreadAllocatedBytes();
+    }
+
+    /**
+     * Call right after {@link CommandScheduler#run()}. Records one sample for every section that
+     * ran this cycle and logs it.
+     */
+    public void endCycle() {
+        m_schedulerSection.end();
+        m_inCycle = false;
+        m_pendingCommandEvent = null;
+        if (m_cycleEvent != null) {
+            m_cycleEvent.commit();
+            m_cycleEvent = null;
+        }
+
+        Logger logger = Logger.getInstance();
+        for (int i = 0; i < m_sections.size(); i++) {
+            ProfiledSection section = m_sections.get(i);
+            if (section.finishCycle()) {
+                RollingHistogram histogram = section.getHistogram();
+                logger.recordOutput(section.m_lastKey, histogram.getLastMs());
+                logger.recordOutput(section.m_p50Key, histogram.getPercentileMs(0.5));
+                logger.recordOutput(section.m_p99Key, histogram.getPercentileMs(0.99));
+                logger.recordOutput(section.m_maxKey, histogram.getMaxMs());
+                logger.recordOutput(section.m_bytesKey, section.getLastCycleAllocatedBytes());
+            }
+        }
+        // Everything the scheduler allocated, the number to watch for regressions in simulation
+        logger.recordOutput("Profiler/TotalAllocatedBytes", m_schedulerSection.getLastCycleAllocatedBytes());
+    }
+
+    /**
+     * Prints and logs a table of every section that has run, slowest p99 first
+     */
+    public void logSummary() {
+        List<ProfiledSection> ran = new ArrayList<>();
+        for (ProfiledSection section : m_sections) {
+            if (section.getHistogram().getTotalSamples() > 0) {
+                ran.add(section);
+            }
+        }
+        if (ran.isEmpty()) {
+            return;
+        }
+        ran.sort(Comparator.comparingDouble(
+                (ProfiledSection section) -> section.getHistogram().getPercentileMs(0.99)).reversed());
+
+        StringBuilder summary = new StringBuilder("Loop profile (p50/p99 over the last " + WINDOW_SIZE + " samples, max since boot):\n");
+        summary.append(String.format("%-48s %8s %8s %8s %8s%n", "Section", "Samples", "p50 ms", "p99 ms", "max ms"));
+        for (ProfiledSection section : ran) {
+            RollingHistogram histogram = section.getHistogram();
+            summary.append(String.format("%-48s %8d %8.3f %8.3f %8.3f%n",
+                    section.getName(),
+                    histogram.getTotalSamples(),
+                    histogram.getPercentileMs(0.5),
+                    histogram.getPercentileMs(0.99),
+                    histogram.getAllTimeMaxMs()));
+        }
+
+        if (AllocationMeter.isSupported()) {
+            ran.sort(Comparator.comparingDouble(ProfiledSection::getAverageAllocatedBytes).reversed());
+            summary.append(String.format("Allocation hot spots:%n"));
+            summary.append(String.format("%-48s %12s %14s%n", "Section", "avg B/cycle", "total KiB"));
+            for (ProfiledSection section : ran) {
+                summary.append(String.format("%-48s %12.0f %14.1f%n",
+                        section.getName(),
+                        section.getAverageAllocatedBytes(),
+                        section.getTotalAllocatedBytes() / 1024.0));
+            }
+        }
+
+        System.out.print(summary);
+        Logger.getInstance().recordOutput("Profiler/Summary", summary.toString());
+    }
+
+    void mark(long nanos, long bytes) {
+        m_markNanos = nanos;
+        m_markBytes = bytes;
+
+        if (m_inCycle && FlightRecorderControl.isRecording()) {
+            m_pendingCommandEvent = new CommandEvent();
+            m_pendingCommandEvent.begin();
+        } else {
+            m_pendingCommandEvent = null;
+        }
+    }
+
+    private void chargeCommand(Command command, String phase) {
+        long now = System.nanoTime();
+        long bytes = AllocationMeter.currentThreadAllocatedBytes();
+        // Commands scheduled or cancelled from the mode init methods run outside of the loop
+        if (m_inCycle) {
+            sectionFor(command).addElapsed(now - m_markNanos, bytes - m_markBytes);
+
+            if (m_pendingCommandEvent != null) {
+                m_pendingCommandEvent.command = command.getName();
+                m_pendingCommandEvent.phase = phase;
+                m_pendingCommandEvent.commit();
+            }
+        }
+        mark(now, bytes);
+    }
+
+    private void chargeAndReleaseCommand(Command command, String phase) {
+        chargeCommand(command, phase);
+        m_commandSections.remove(command);
+    }
+
+    private ProfiledSection sectionFor(Command command) {
+        ProfiledSection section = m_commandSections.get(command);
+        if (section == null) {
+            section = registerSection("Commands/" + command.getName());
+            m_commandSections.put(command, section);
+        }
+        return section;
+    }
+}
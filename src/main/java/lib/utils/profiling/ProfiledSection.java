@@ -0,0 +1,127 @@
+package lib.utils.profiling;
+
+import lib.utils.profiling.jfr.FlightRecorderControl;
+import lib.utils.profiling.jfr.SubsystemPeriodicEvent;
+
+/**
+ * A named block of code timed by the {@link LoopProfiler}. Along with the time, the bytes the robot
+ * thread allocated inside the section are counted using {@link AllocationMeter}.
+ *
+ * A section can be entered several times in one cycle (for example a command that is initialized
+ * and executed in the same loop); the time and bytes are added up and recorded as one sample when
+ * the cycle ends. All log keys are built once here so recording a cycle does not create any strings.
+ *
+ * Sections that belong to a subsystem also emit a JFR event while a flight recording is running.
+ */
+public final class ProfiledSection {
+    private final String m_name;
+    private final RollingHistogram m_histogram;
+    private final LoopProfiler m_profiler;
+    private final boolean m_subsystem;
+
+    final String m_lastKey;
+    final String m_p50Key;
+    final String m_p99Key;
+    final String m_maxKey;
+    final String m_bytesKey;
+
+    private long m_startNanos;
+    private long m_startBytes;
+    private long m_cycleNanos;
+    private long m_cycleBytes;
+    private boolean m_ranThisCycle;
+
+    private long m_lastCycleBytes;
+    private long m_totalBytes;
+
+    private SubsystemPeriodicEvent m_event;
+
+    ProfiledSection(String name, int windowSize, LoopProfiler profiler, boolean subsystem) {
+        m_name = name;
+        m_histogram = new RollingHistogram(windowSize);
+        m_profiler = profiler;
+        m_subsystem = subsystem;
+
+        String prefix = "Profiler/" + name + "/";
+        m_lastKey = prefix + "LastMS";
+        m_p50Key = prefix + "P50MS";
+        m_p99Key = prefix + "P99MS";
+        m_maxKey = prefix + "MaxMS";
+        m_bytesKey = prefix + "AllocatedBytes";
+    }
+
+    public void begin() {
+        if (m_subsystem && FlightRecorderControl.isRecording()) {
+            m_event = new SubsystemPeriodicEvent();
+            m_event.subsystem = m_name;
+            m_event.begin();
+        }
+        m_startBytes = AllocationMeter.currentThreadAllocatedBytes();
+        m_startNanos = System.nanoTime();
+    }
+
+    public void end() {
+        long now = System.nanoTime();
+        long bytes = AllocationMeter.currentThreadAllocatedBytes();
+        addElapsed(now - m_startNanos, bytes - m_startBytes);
+        m_profiler.mark(now, bytes);
+
+        if (m_event != null) {
+            m_event.commit();
+            m_event = null;
+        }
+    }
+
+    void addElapsed(long nanos, long bytes) {
+        m_cycleNanos += nanos;
+        m_cycleBytes += bytes;
+        m_ranThisCycle = true;
+    }
+
+    /**
+     * Records the time spent this cycle as a sample
+     * @return true if the section ran this cycle
+     */
+    boolean finishCycle() {
+        if (!m_ranThisCycle) {
+            return false;
+        }
+        m_histogram.record(m_cycleNanos);
+        m_lastCycleBytes = m_cycleBytes;
+        m_totalBytes += m_cycleBytes;
+        m_cycleNanos = 0;
+        m_cycleBytes = 0;
+        m_ranThisCycle = false;
+        return true;
+    }
+
+    public String getName() {
+        return m_name;
+    }
+
+    public RollingHistogram getHistogram() {
+        return m_histogram;
+    }
+
+    /**
+     * @return the bytes allocated inside the section in the last cycle it ran
+     */
+    public long getLastCycleAllocatedBytes() {
+        return m_lastCycleBytes;
+    }
+
+    /**
+     * @return the bytes allocated inside the section since boot
+     */
+    public long getTotalAllocatedBytes() {
+        return m_totalBytes;
+    }
+
+    /**
+     * @return the average bytes allocated per cycle the section ran in
+     */
+    public double getAverageAllocatedBytes() {
+        long samples = m_histogram.getTotalSamples();
+        return samples == 0 ? 0.0 : (double) m_totalBytes / samples;
+    }
+}
@@ -0,0 +1,196 @@
+package lib.utils.profiling;
+
+/**
+ * A fixed-size, allocation free histogram of the most recent samples of a duration.
+ *
+ * Samples are sorted into log-linear buckets (microsecond resolution up to 64 us, then 32 buckets
+ * per power of two, so roughly 3% precision) which makes percentile lookups cheap enough to run
+ * every robot cycle. The raw samples of the window are kept in a ring buffer so old samples can be
+ * removed from the buckets as new ones arrive.
+ */
+public final class RollingHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_SHIFT = 17;
+    // Covers up to roughly 4 seconds, anything longer lands in the last bucket
+    static final int BUCKET_COUNT = (MAX_SHIFT + 1) * SUB_BUCKET_COUNT;
+
+    private final int[] m_bucketCounts = new int[BUCKET_COUNT];
+    private final long[] m_window;
+
+    private int m_nextIndex;
+    private int m_sampleCount;
+    private int m_lowestBucket = BUCKET_COUNT;
+    private int m_highestBucket = -1;
+
+    private long m_lastNanos;
+    private long m_windowMaxNanos;
+    private long m_allTimeMaxNanos;
+    private long m_totalSamples;
+
+    /**
+     * @param windowSize the number of most recent samples the percentiles are computed over
+     */
+    public RollingHistogram(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        m_window = new long[windowSize];
+    }
+
+    /**
+     * Adds a sample to the histogram, removing the oldest sample if the window is full
+     * @param nanos the duration of the sample in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        boolean evictedMax = false;
+        if (m_sampleCount == m_window.length) {
+            long evicted = m_window[m_nextIndex];
+            m_bucketCounts[bucketFor(evicted)]--;
+            evictedMax = evicted == m_windowMaxNanos;
+        } else {
+            m_sampleCount++;
+        }
+
+        m_window[m_nextIndex] = nanos;
+        m_nextIndex = (m_nextIndex + 1) % m_window.length;
+
+        int bucket = bucketFor(nanos);
+        m_bucketCounts[bucket]++;
+        m_lowestBucket = Math.min(m_lowestBucket, bucket);
+        m_highestBucket = Math.max(m_highestBucket, bucket);
+
+        m_lastNanos = nanos;
+        m_totalSamples++;
+        m_allTimeMaxNanos = Math.max(m_allTimeMaxNanos, nanos);
+
+        if (nanos >= m_windowMaxNanos) {
+            m_windowMaxNanos = nanos;
+        } else if (evictedMax) {
+            recomputeWindowMax();
+        }
+    }
+
+    /**
+     * Gets a percentile of the samples in the window
+     * @param quantile the percentile as a fraction, for example 0.99 for p99
+     * @return the approximate value of the percentile in milliseconds, or 0 if there are no samples
+     */
+    public double getPercentileMs(double quantile) {
+        if (m_sampleCount == 0) {
+            return 0.0;
+        }
+        tightenBounds();
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * m_sampleCount));
+        long seen = 0;
+        if (quantile <= 0.5) {
+            for (int i = m_lowestBucket; i <= m_highestBucket; i++) {
+                seen += m_bucketCounts[i];
+                if (seen >= rank) {
+                    return bucketMidpointMicros(i) / 1000.0;
+                }
+            }
+        } else {
+            long rankFromTop = m_sampleCount - rank + 1;
+            for (int i = m_highestBucket; i >= m_lowestBucket; i--) {
+                seen += m_bucketCounts[i];
+                if (seen >= rankFromTop) {
+                    return bucketMidpointMicros(i) / 1000.0;
+                }
+            }
+        }
+        return bucketMidpointMicros(m_highestBucket) / 1000.0;
+    }
+
+    /**
+     * @return the largest sample currently in the window in milliseconds
+     */
+    public double getMaxMs() {
+        return m_windowMaxNanos / 1.0e6;
+    }
+
+    /**
+     * @return the largest sample recorded since the last reset in milliseconds
+     */
+    public double getAllTimeMaxMs() {
+        return m_allTimeMaxNanos / 1.0e6;
+    }
+
+    /**
+     * @return the most recently recorded sample in milliseconds
+     */
+    public double getLastMs() {
+        return m_lastNanos / 1.0e6;
+    }
+
+    /**
+     * @return the number of samples currently in the window
+     */
+    public int getSampleCount() {
+        return m_sampleCount;
+    }
+
+    /**
+     * @return the number of samples recorded since the last reset
+     */
+    public long getTotalSamples() {
+        return m_totalSamples;
+    }
+
+    public void reset() {
+        java.util.Arrays.fill(m_bucketCounts, 0);
+        m_nextIndex = 0;
+        m_sampleCount = 0;
+        m_lowestBucket = BUCKET_COUNT;
+        m_highestBucket = -1;
+        m_lastNanos = 0;
+        m_windowMaxNanos = 0;
+        m_allTimeMaxNanos = 0;
+        m_totalSamples = 0;
+    }
+
+    private void recomputeWindowMax() {
+        long max = 0;
+        for (int i = 0; i < m_sampleCount; i++) {
+            max = Math.max(max, m_window[i]);
+        }
+        m_windowMaxNanos = max;
+    }
+
+    // Evicted samples can leave empty buckets at the ends of the occupied range
+    private void tightenBounds() {
+        while (m_lowestBucket < m_highestBucket && m_bucketCounts[m_lowestBucket] == 0) {
+            m_lowestBucket++;
+        }
+        while (m_highestBucket > m_lowestBucket && m_bucketCounts[m_highestBucket] == 0) {
+            m_highestBucket--;
+        }
+    }
+
+    static int bucketFor(long nanos) {
+        long micros = nanos / 1000;
+        if (micros < 2 * SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(micros)) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT - 1) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (micros >>> shift);
+        return (shift + 1) * SUB_BUCKET_COUNT + (subBucket - SUB_BUCKET_COUNT);
+    }
+
+    static double bucketMidpointMicros(int bucket) {
+        if (bucket < 2 * SUB_BUCKET_COUNT) {
+            return bucket + 0.5;
+        }
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long lower = (long) (bucket % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+        return lower + (1L << shift) / 2.0;
+    }
+}
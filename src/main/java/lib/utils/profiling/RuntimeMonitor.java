@@ -0,0 +1,132 @@
+package lib.utils.profiling;
+
+import org.littletonrobotics.junction.Logger;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Samples the JVM's garbage collectors and heap once per robot cycle and logs them next to the loop
+ * time, so overruns caused by a collection can be told apart from overruns caused by robot code.
+ *
+ * Only calls that don't allocate are used here: collector counters, {@link Runtime} heap sizes and
+ * the robot thread's allocated bytes counter. {@code MemoryMXBean.getHeapMemoryUsage()} creates a new
+ * object on every call so it is avoided.
+ */
+public final class RuntimeMonitor {
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final GarbageCollectorMXBean[] m_collectors;
+    private final long[] m_lastCounts;
+    private final long[] m_lastTimesMs;
+    private final String[] m_countKeys;
+    private final String[] m_timeKeys;
+
+    private final Runtime m_runtime = Runtime.getRuntime();
+
+    private final double m_nominalPeriodSecs;
+
+    private long m_lastAllocatedBytes;
+    private long m_lastSampleNanos;
+
+    private long m_totalGcCount;
+    private long m_totalGcTimeMs;
+    private long m_gcCycles;
+    private long m_overrunCycles;
+    private long m_gcOverrunCycles;
+
+    /**
+     * Must be constructed and updated on the thread that runs the robot loop
+     * @param nominalPeriodSecs the loop period, used to count overrun cycles
+     */
+    public RuntimeMonitor(double nominalPeriodSecs) {
+        m_nominalPeriodSecs = nominalPeriodSecs;
+
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        m_collectors = collectors.toArray(new GarbageCollectorMXBean[0]);
+        m_lastCounts = new long[m_collectors.length];
+        m_lastTimesMs = new long[m_collectors.length];
+        m_countKeys = new String[m_collectors.length];
+        m_timeKeys = new String[m_collectors.length];
+        for (int i = 0; i < m_collectors.length; i++) {
+            String prefix = "RuntimeMonitor/GC/" + m_collectors[i].getName().replace(' ', '_') + "/";
+            m_countKeys[i] = prefix + "Count";
+            m_timeKeys[i] = prefix + "TimeMS";
+            m_lastCounts[i] = Math.max(0, m_collectors[i].getCollectionCount());
+            m_lastTimesMs[i] = Math.max(0, m_collectors[i].getCollectionTime());
+        }
+
+        m_lastAllocatedBytes = AllocationMeter.currentThreadAllocatedBytes();
+        m_lastSampleNanos = System.nanoTime();
+
+        Logger.getInstance().recordOutput("RuntimeMonitor/HeapMaxMB", m_runtime.maxMemory() / BYTES_PER_MB);
+    }
+
+    /**
+     * Samples everything and logs it. Call once at the end of every robot cycle.
+     */
+    public void update() {
+        Logger logger = Logger.getInstance();
+
+        long now = System.nanoTime();
+        double periodSecs = (now - m_lastSampleNanos) / 1.0e9;
+        m_lastSampleNanos = now;
+
+        long cycleGcCount = 0;
+        long cycleGcTimeMs = 0;
+        for (int i = 0; i < m_collectors.length; i++) {
+            long count = m_collectors[i].getCollectionCount();
+            long timeMs = m_collectors[i].getCollectionTime();
+            if (count < 0 || timeMs < 0) {
+                // Collector doesn't report this
+                continue;
+            }
+            cycleGcCount += count - m_lastCounts[i];
+            cycleGcTimeMs += timeMs - m_lastTimesMs[i];
+            m_lastCounts[i] = count;
+            m_lastTimesMs[i] = timeMs;
+            logger.recordOutput(m_countKeys[i], count);
+            logger.recordOutput(m_timeKeys[i], timeMs);
+        }
+
+        boolean gcThisCycle = cycleGcCount > 0;
+        boolean overran = periodSecs > m_nominalPeriodSecs * 1.1;
+        m_totalGcCount += cycleGcCount;
+        m_totalGcTimeMs += cycleGcTimeMs;
+        if (gcThisCycle) {
+            m_gcCycles++;
+        }
+        if (overran) {
+            m_overrunCycles++;
+            if (gcThisCycle) {
+                m_gcOverrunCycles++;
+            }
+        }
+
+        logger.recordOutput("RuntimeMonitor/GCThisCycle", gcThisCycle);
+        logger.recordOutput("RuntimeMonitor/GCCountThisCycle", cycleGcCount);
+        logger.recordOutput("RuntimeMonitor/GCTimeThisCycleMS", cycleGcTimeMs);
+        logger.recordOutput("RuntimeMonitor/GCCountTotal", m_totalGcCount);
+        logger.recordOutput("RuntimeMonitor/GCTimeTotalMS", m_totalGcTimeMs);
+        logger.recordOutput("RuntimeMonitor/GCCycles", m_gcCycles);
+        logger.recordOutput("RuntimeMonitor/CyclePeriodMS", periodSecs * 1000.0);
+        logger.recordOutput("RuntimeMonitor/OverrunCycles", m_overrunCycles);
+        logger.recordOutput("RuntimeMonitor/GCOverrunCycles", m_gcOverrunCycles);
+
+        long committed = m_runtime.totalMemory();
+        long used = committed - m_runtime.freeMemory();
+        logger.recordOutput("RuntimeMonitor/HeapUsedMB", used / BYTES_PER_MB);
+        logger.recordOutput("RuntimeMonitor/HeapCommittedMB", committed / BYTES_PER_MB);
+
+        if (AllocationMeter.isSupported()) {
+            long allocated = AllocationMeter.currentThreadAllocatedBytes();
+            long cycleAllocated = allocated - m_lastAllocatedBytes;
+            m_lastAllocatedBytes = allocated;
+            logger.recordOutput("RuntimeMonitor/AllocatedBytesThisCycle", cycleAllocated);
+            if (periodSecs > 0) {
+                logger.recordOutput("RuntimeMonitor/AllocationRateMBPerSec", cycleAllocated / BYTES_PER_MB / periodSecs);
+            }
+        }
+    }
+}
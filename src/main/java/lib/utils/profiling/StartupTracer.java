@@ -0,0 +1,120 @@
+package lib.utils.profiling;
+
+import org.littletonrobotics.junction.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times the phases of robot code startup so every boot time change can be measured.
+ *
+ * Phases nest: a phase started while another is running becomes its child, so a subsystem
+ * constructor shows the devices it configured underneath it. A phase whose path was already used,
+ * for example a device configured twice, gets a " #2", " #3"... suffix so neither time is lost. Call {@link #finish()} once the robot is
+ * ready to print the report and log it under "Startup/". After that, begin and end do nothing, so the
+ * calls can stay in code that also runs after boot.
+ */
+public final class StartupTracer {
+    private static final List<Phase> phases = new ArrayList<>();
+    private static final Deque<Phase> openPhases = new ArrayDeque<>();
+    private static final Map<String, Integer> pathCounts = new HashMap<>();
+    private static boolean finished = false;
+    private static long firstBeginUptimeMs = -1;
+
+    private StartupTracer() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    private static final class Phase {
+        private final String m_path;
+        private final String m_name;
+        private final int m_depth;
+        private final long m_startNanos;
+        private long m_durationNanos = -1;
+
+        private Phase(String path, String name, int depth, long startNanos) {
+            m_path = path;
+            m_name = name;
+            m_depth = depth;
+            m_startNanos = startNanos;
+        }
+    }
+
+    /**
+     * Starts a phase, nested under the phase that is currently running if there is one
+     * @param name the name of the phase
+     */
+    public static void begin(String name) {
+        if (finished) {
+            return;
+        }
+        if (firstBeginUptimeMs < 0) {
+            firstBeginUptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        }
+
+        Phase parent = openPhases.peek();
+        String path = parent == null ? name : parent.m_path + "/" + name;
+        int count = pathCounts.merge(path, 1, Integer::sum);
+        if (count > 1) {
+            name = name + " #" + count;
+            path = path + " #" + count;
+        }
+        Phase phase = new Phase(path, name, openPhases.size(), System.nanoTime());
+        phases.add(phase);
+        openPhases.push(phase);
+    }
+
+    /**
+     * Ends the most recently started phase
+     */
+    public static void end() {
+        if (finished || openPhases.isEmpty()) {
+            return;
+        }
+        Phase phase = openPhases.pop();
+        phase.m_durationNanos = System.nanoTime() - phase.m_startNanos;
+    }
+
+    /**
+     * Ends any phases still running, then prints and logs the report
+     */
+    public static void finish() {
+        if (finished) {
+            return;
+        }
+        while (!openPhases.isEmpty()) {
+            end();
+        }
+        finished = true;
+
+        long readyUptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        Logger logger = Logger.getInstance();
+        logger.recordOutput("Startup/JVMUptimeAtFirstPhaseMS", firstBeginUptimeMs);
+        logger.recordOutput("Startup/JVMUptimeAtReadyMS", readyUptimeMs);
+
+        StringBuilder report = new StringBuilder(String.format(
+                "Startup trace (JVM uptime at first phase: %d ms, robot code ready: %d ms):%n",
+                firstBeginUptimeMs, readyUptimeMs));
+        String[] lines = new String[phases.size()];
+        for (int i = 0; i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            double durationMs = phase.m_durationNanos / 1.0e6;
+            logger.recordOutput("Startup/Phases/" + phase.m_path + "/DurationMs", durationMs);
+
+            lines[i] = String.format("%s%s: %.1f ms", "  ".repeat(phase.m_depth), phase.m_name, durationMs);
+            report.append("  ").append(lines[i]).append(System.lineSeparator());
+        }
+        logger.recordOutput("Startup/Report", lines);
+
+        System.out.print(report);
+
+        phases.clear();
+        pathCounts.clear();
+    }
+}
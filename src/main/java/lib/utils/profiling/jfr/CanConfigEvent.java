@@ -0,0 +1,25 @@
+package lib.utils.profiling.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("frc.CanConfig")
+@Label("CAN Config Call")
+@Category({"Robot", "CAN"})
+@Description("A device configuration call made through RevUtil or CTREUtil autoRetry, including its retries")
+public class CanConfigEvent extends Event {
+    @Label("Vendor")
+    public String vendor;
+
+    @Label("Attempts")
+    public int attempts;
+
+    @Label("Result")
+    public String result;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
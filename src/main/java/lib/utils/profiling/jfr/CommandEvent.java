@@ -0,0 +1,19 @@
+package lib.utils.profiling.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("frc.Command")
+@Label("Command")
+@Category({"Robot", "Commands"})
+@Description("A command's initialize, execute or end run by the scheduler")
+public class CommandEvent extends Event {
+    @Label("Command")
+    public String command;
+
+    @Label("Phase")
+    public String phase;
+}
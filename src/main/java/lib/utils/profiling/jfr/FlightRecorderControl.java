@@ -0,0 +1,158 @@
+package lib.utils.profiling.jfr;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Starts and stops a Java Flight Recorder recording from a dashboard toggle. The recording is
+ * bounded in size and age and is written to the log directory when it is stopped, so it can be
+ * opened in JDK Mission Control next to the robot's own events.
+ *
+ * Starting and stopping a recording can take hundreds of milliseconds, so it is done on a
+ * background thread. Robot code should only create events when {@link #isRecording()} is true,
+ * so nothing is allocated for JFR while it is off.
+ */
+public final class FlightRecorderControl {
+    private static final String TOGGLE_KEY = "JFR Recording";
+    private static final long MAX_RECORDING_BYTES = 64L * 1024 * 1024;
+    private static final Duration MAX_RECORDING_AGE = Duration.ofMinutes(10);
+
+    private static volatile boolean recording = false;
+
+    private final String m_directory;
+    private final NetworkTableEntry m_toggleEntry;
+    private final boolean m_available;
+    private final ExecutorService m_executor;
+
+    private Recording m_recording;
+    private boolean m_requested = false;
+
+    /**
+     * @param directory the folder the recordings are written to
+     */
+    public FlightRecorderControl(String directory) {
+        m_directory = directory;
+        m_available = jfrAvailable();
+
+        m_toggleEntry = NetworkTableInstance.getDefault().getTable("SmartDashboard").getEntry(TOGGLE_KEY);
+        m_toggleEntry.setBoolean(false);
+
+        m_executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FlightRecorderControl");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (!m_available) {
+            DriverStation.reportWarning("Java Flight Recorder isn't available on this JVM", false);
+        }
+    }
+
+    /**
+     * @return true while a recording is running and robot events should be created
+     */
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Checks the dashboard toggle, call once a cycle
+     */
+    public void periodic() {
+        boolean requested = m_toggleEntry.getBoolean(false);
+        if (requested == m_requested) {
+            return;
+        }
+        m_requested = requested;
+
+        if (!m_available) {
+            m_toggleEntry.setBoolean(false);
+            m_requested = false;
+            return;
+        }
+
+        if (requested) {
+            m_executor.execute(this::startRecording);
+        } else {
+            m_executor.execute(this::stopRecording);
+        }
+    }
+
+    /**
+     * Stops and writes out any running recording
+     */
+    public void stop() {
+        m_requested = false;
+        m_toggleEntry.setBoolean(false);
+        m_executor.execute(this::stopRecording);
+    }
+
+    private void startRecording() {
+        if (m_recording != null) {
+            return;
+        }
+        try {
+            Path directory = Paths.get(m_directory);
+            Files.createDirectories(directory);
+            String fileName = "helios_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".jfr";
+
+            Recording newRecording = new Recording(Configuration.getConfiguration("profile"));
+            newRecording.setName("Helios");
+            newRecording.setToDisk(true);
+            newRecording.setMaxSize(MAX_RECORDING_BYTES);
+            newRecording.setMaxAge(MAX_RECORDING_AGE);
+            newRecording.setDestination(directory.resolve(fileName));
+            newRecording.enable(SchedulerCycleEvent.class);
+            newRecording.enable(SubsystemPeriodicEvent.class);
+            newRecording.enable(CommandEvent.class);
+            newRecording.enable(CanConfigEvent.class);
+            newRecording.enable(VisionUpdateEvent.class);
+            newRecording.start();
+
+            m_recording = newRecording;
+            recording = true;
+            System.out.println("Started flight recording to " + directory.resolve(fileName));
+        } catch (Exception e) {
+            DriverStation.reportError("Failed to start flight recording: " + e.getMessage(), false);
+            m_toggleEntry.setBoolean(false);
+        }
+    }
+
+    private void stopRecording() {
+        recording = false;
+        if (m_recording == null) {
+            return;
+        }
+        try {
+            m_recording.stop();
+            System.out.println("Wrote flight recording to " + m_recording.getDestination());
+        } catch (Exception e) {
+            DriverStation.reportError("Failed to write flight recording: " + e.getMessage(), false);
+        } finally {
+            m_recording.close();
+            m_recording = null;
+        }
+    }
+
+    private static boolean jfrAvailable() {
+        try {
+            return FlightRecorder.isAvailable();
+        } catch (LinkageError e) {
+            // Trimmed down JREs can leave the jdk.jfr module out
+            return false;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package lib.utils.profiling.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("frc.SchedulerCycle")
+@Label("Scheduler Cycle")
+@Category({"Robot", "Scheduler"})
+@Description("One run of CommandScheduler.run()")
+public class SchedulerCycleEvent extends Event {
+    @Label("Cycle")
+    public long cycle;
+}
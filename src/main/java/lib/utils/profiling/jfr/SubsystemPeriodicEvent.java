@@ -0,0 +1,16 @@
+package lib.utils.profiling.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("frc.SubsystemPeriodic")
+@Label("Subsystem Periodic")
+@Category({"Robot", "Subsystems"})
+@Description("One call of a subsystem's periodic()")
+public class SubsystemPeriodicEvent extends Event {
+    @Label("Subsystem")
+    public String subsystem;
+}
@@ -0,0 +1,19 @@
+package lib.utils.profiling.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("frc.VisionUpdate")
+@Label("Vision Update")
+@Category({"Robot", "Vision"})
+@Description("One pose estimate from a camera")
+public class VisionUpdateEvent extends Event {
+    @Label("Camera")
+    public String camera;
+
+    @Label("Has Pose")
+    public boolean hasPose;
+}
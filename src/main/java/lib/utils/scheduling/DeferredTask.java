@@ -0,0 +1,42 @@
+package lib.utils.scheduling;
+
+/**
+ * A piece of housekeeping work that can wait for spare time in the loop. Create one per kind of
+ * work and submit the same object every time it is needed; submitting a task that is already queued
+ * does nothing, so repeated requests collapse into a single run and nothing is allocated.
+ */
+public final class DeferredTask {
+    private final String m_name;
+    private final DeferredWorkQueue.Priority m_priority;
+    private final Runnable m_work;
+
+    boolean m_queued = false;
+    long m_queuedCycle;
+
+    /**
+     * @param name the name used in error reports
+     * @param priority which queue the task waits in
+     * @param work the work to run, on the main robot thread
+     */
+    public DeferredTask(String name, DeferredWorkQueue.Priority priority, Runnable work) {
+        m_name = name;
+        m_priority = priority;
+        m_work = work;
+    }
+
+    public String getName() {
+        return m_name;
+    }
+
+    public DeferredWorkQueue.Priority getPriority() {
+        return m_priority;
+    }
+
+    public boolean isQueued() {
+        return m_queued;
+    }
+
+    void run() {
+        m_work.run();
+    }
+}
@@ -0,0 +1,172 @@
+package lib.utils.scheduling;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayDeque;
+
+/**
+ * Runs non-critical work in the time left over in a robot cycle after the command scheduler is done.
+ *
+ * Tasks wait in one queue per priority. Each cycle {@link #runSlack(long)} works out how much of the
+ * 20 ms period is left, keeps a reserve for the logger, and runs queued tasks until the smaller of
+ * the slack and the configured budget is used up. When a cycle is already tight nothing runs, so the
+ * control path never waits on housekeeping. A task that has waited longer than
+ * {@link #STARVATION_CYCLES} is run ahead of higher priorities and counted as starved.
+ *
+ * Only use this from the main robot thread.
+ */
+public final class DeferredWorkQueue {
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    private static final double LOOP_PERIOD_SECS = RateGroup.MAIN_20MS.getPeriodSecs();
+    private static final int STARVATION_CYCLES = 50;
+    private static final int QUEUE_CAPACITY = 64;
+
+    private static DeferredWorkQueue instance;
+
+    private final ArrayDeque<DeferredTask>[] m_queues;
+    private final String[] m_depthKeys;
+
+    private double m_maxBudgetSecs = 0.002;
+    private double m_reserveSecs = 0.006;
+
+    private long m_cycle = 0;
+    private long m_tasksRun = 0;
+    private long m_coalesced = 0;
+    private long m_rejected = 0;
+    private long m_starved = 0;
+    private long m_skippedCycles = 0;
+    private long m_maxWaitCycles = 0;
+
+    @SuppressWarnings("unchecked")
+    private DeferredWorkQueue() {
+        Priority[] priorities = Priority.values();
+        m_queues = new ArrayDeque[priorities.length];
+        m_depthKeys = new String[priorities.length];
+        for (int i = 0; i < priorities.length; i++) {
+            m_queues[i] = new ArrayDeque<>(QUEUE_CAPACITY);
+            m_depthKeys[i] = "DeferredWork/Depth/" + priorities[i].name();
+        }
+    }
+
+    public static DeferredWorkQueue getInstance() {
+        if (instance == null) {
+            instance = new DeferredWorkQueue();
+        }
+        return instance;
+    }
+
+    /**
+     * @param maxBudgetSecs the most time deferred work may take in one cycle
+     * @param reserveSecs the time at the end of each cycle that is kept free for the logger
+     */
+    public void setBudget(double maxBudgetSecs, double reserveSecs) {
+        m_maxBudgetSecs = maxBudgetSecs;
+        m_reserveSecs = reserveSecs;
+    }
+
+    /**
+     * Queues a task to run when there is spare time. Does nothing if the task is already queued.
+     * @return false if the queue for the task's priority is full
+     */
+    public boolean submit(DeferredTask task) {
+        if (task.m_queued) {
+            m_coalesced++;
+            return true;
+        }
+        ArrayDeque<DeferredTask> queue = m_queues[task.getPriority().ordinal()];
+        if (queue.size() >= QUEUE_CAPACITY) {
+            m_rejected++;
+            return false;
+        }
+        task.m_queued = true;
+        task.m_queuedCycle = m_cycle;
+        queue.addLast(task);
+        return true;
+    }
+
+    /**
+     * Runs queued tasks in the slack left in this cycle. Call once per cycle, after the scheduler.
+     * @param cycleStartNanos {@link System#nanoTime()} at the start of the cycle
+     */
+    public void runSlack(long cycleStartNanos) {
+        m_cycle++;
+
+        long now = System.nanoTime();
+        double slackSecs = LOOP_PERIOD_SECS - (now - cycleStartNanos) / 1.0e9 - m_reserveSecs;
+        double budgetSecs = Math.min(m_maxBudgetSecs, slackSecs);
+        long deadline = now + (long) (budgetSecs * 1.0e9);
+
+        boolean ranAny = false;
+        while (System.nanoTime() < deadline) {
+            DeferredTask task = nextTask();
+            if (task == null) {
+                break;
+            }
+            runTask(task);
+            ranAny = true;
+        }
+
+        if (!ranAny && hasQueuedTasks()) {
+            m_skippedCycles++;
+        }
+        logMetrics(budgetSecs);
+    }
+
+    private DeferredTask nextTask() {
+        // Anything that has waited too long goes first so low priorities can't starve forever
+        for (int i = m_queues.length - 1; i > 0; i--) {
+            DeferredTask oldest = m_queues[i].peekFirst();
+            if (oldest != null && m_cycle - oldest.m_queuedCycle >= STARVATION_CYCLES) {
+                m_starved++;
+                return m_queues[i].pollFirst();
+            }
+        }
+        for (int i = 0; i < m_queues.length; i++) {
+            DeferredTask task = m_queues[i].pollFirst();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void runTask(DeferredTask task) {
+        task.m_queued = false;
+        m_maxWaitCycles = Math.max(m_maxWaitCycles, m_cycle - task.m_queuedCycle);
+        m_tasksRun++;
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            DriverStation.reportError("Deferred task " + task.getName() + " failed: " + e.getMessage(), e.getStackTrace());
+        }
+    }
+
+    private boolean hasQueuedTasks() {
+        for (int i = 0; i < m_queues.length; i++) {
+            if (!m_queues[i].isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void logMetrics(double budgetSecs) {
+        Logger logger = Logger.getInstance();
+        for (int i = 0; i < m_queues.length; i++) {
+            logger.recordOutput(m_depthKeys[i], m_queues[i].size());
+        }
+        logger.recordOutput("DeferredWork/BudgetMS", Math.max(0.0, budgetSecs * 1000.0));
+        logger.recordOutput("DeferredWork/TasksRun", m_tasksRun);
+        logger.recordOutput("DeferredWork/Coalesced", m_coalesced);
+        logger.recordOutput("DeferredWork/Rejected", m_rejected);
+        logger.recordOutput("DeferredWork/Starved", m_starved);
+        logger.recordOutput("DeferredWork/SkippedCycles", m_skippedCycles);
+        logger.recordOutput("DeferredWork/MaxWaitCycles", m_maxWaitCycles);
+    }
+}
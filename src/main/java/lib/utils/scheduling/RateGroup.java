@@ -0,0 +1,38 @@
+package lib.utils.scheduling;
+
+/**
+ * The rates work can be scheduled at. The 5 ms and 10 ms groups run on their own thread, everything
+ * else runs on the main robot thread after the command scheduler.
+ */
+public enum RateGroup {
+    FAST_5MS("5ms", 0.005, true),
+    FAST_10MS("10ms", 0.010, true),
+    MAIN_20MS("20ms", 0.020, false),
+    SLOW_100MS("100ms", 0.100, false),
+    SLOW_1S("1s", 1.0, false);
+
+    private final String m_name;
+    private final double m_periodSecs;
+    private final boolean m_background;
+
+    RateGroup(String name, double periodSecs, boolean background) {
+        m_name = name;
+        m_periodSecs = periodSecs;
+        m_background = background;
+    }
+
+    public String getName() {
+        return m_name;
+    }
+
+    public double getPeriodSecs() {
+        return m_periodSecs;
+    }
+
+    /**
+     * @return true if the group runs off the main robot thread, so its tasks have to be thread safe
+     */
+    public boolean isBackground() {
+        return m_background;
+    }
+}
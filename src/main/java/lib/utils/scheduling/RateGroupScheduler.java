@@ -0,0 +1,175 @@
+package lib.utils.scheduling;
+
+import edu.wpi.first.wpilibj.Notifier;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Runs tasks at several fixed rates on top of the 20 ms robot loop.
+ *
+ * {@code LoggedRobot} doesn't have {@code TimedRobot.addPeriodic}, so the 20 ms, 100 ms and 1 s
+ * groups are ticked from {@code robotPeriodic} and the 5 ms and 10 ms groups run on a
+ * {@link Notifier} thread. Slow groups get phase offsets so they never land on the same tick: the
+ * 100 ms group runs on loop ticks 1, 6, 11... and the 1 s group on ticks 3, 53, 103...; the 10 ms
+ * group runs on every odd tick of the 5 ms thread.
+ *
+ * A group overruns when it takes longer than its own period or, for groups on the main thread, longer
+ * than the 20 ms loop. Metrics are written by the thread that runs the group and logged from the main
+ * thread in {@link #logMetrics()}.
+ */
+public final class RateGroupScheduler {
+    private static final double MAIN_PERIOD_SECS = RateGroup.MAIN_20MS.getPeriodSecs();
+    private static final double FAST_PERIOD_SECS = RateGroup.FAST_5MS.getPeriodSecs();
+
+    private static RateGroupScheduler instance;
+
+    private final Map<RateGroup, Group> m_groups = new EnumMap<>(RateGroup.class);
+    private final Group[] m_allGroups;
+    private final Group m_fast5ms;
+    private final Group m_fast10ms;
+    private final Group m_main20ms;
+    private final Group m_slow100ms;
+    private final Group m_slow1s;
+    private final Notifier m_fastNotifier;
+
+    private long m_mainTick = 0;
+    private long m_fastTick = 0;
+    private boolean m_started = false;
+
+    private static final class Group {
+        private final double m_budgetSecs;
+        private final String m_overrunKey;
+        private final String m_lastKey;
+        private final String m_maxKey;
+        private final String m_runsKey;
+
+        // Replaced, never modified, so the running thread can loop over it without locking
+        private volatile Runnable[] m_tasks = new Runnable[0];
+
+        private volatile long m_runs;
+        private volatile long m_overruns;
+        private volatile double m_lastMs;
+        private volatile double m_maxMs;
+
+        private Group(RateGroup rateGroup) {
+            m_budgetSecs = Math.min(rateGroup.getPeriodSecs(), MAIN_PERIOD_SECS);
+            String prefix = "RateGroups/" + rateGroup.getName() + "/";
+            m_overrunKey = prefix + "Overruns";
+            m_lastKey = prefix + "LastMS";
+            m_maxKey = prefix + "MaxMS";
+            m_runsKey = prefix + "Runs";
+        }
+
+        private synchronized void add(Runnable task) {
+            Runnable[] tasks = new Runnable[m_tasks.length + 1];
+            System.arraycopy(m_tasks, 0, tasks, 0, m_tasks.length);
+            tasks[m_tasks.length] = task;
+            m_tasks = tasks;
+        }
+
+        private void run() {
+            Runnable[] tasks = m_tasks;
+            if (tasks.length == 0) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i].run();
+            }
+            double elapsedSecs = (System.nanoTime() - start) / 1.0e9;
+
+            m_runs++;
+            m_lastMs = elapsedSecs * 1000.0;
+            if (m_lastMs > m_maxMs) {
+                m_maxMs = m_lastMs;
+            }
+            if (elapsedSecs > m_budgetSecs) {
+                m_overruns++;
+            }
+        }
+    }
+
+    private RateGroupScheduler() {
+        RateGroup[] rateGroups = RateGroup.values();
+        m_allGroups = new Group[rateGroups.length];
+        for (int i = 0; i < rateGroups.length; i++) {
+            m_allGroups[i] = new Group(rateGroups[i]);
+            m_groups.put(rateGroups[i], m_allGroups[i]);
+        }
+        m_fast5ms = m_groups.get(RateGroup.FAST_5MS);
+        m_fast10ms = m_groups.get(RateGroup.FAST_10MS);
+        m_main20ms = m_groups.get(RateGroup.MAIN_20MS);
+        m_slow100ms = m_groups.get(RateGroup.SLOW_100MS);
+        m_slow1s = m_groups.get(RateGroup.SLOW_1S);
+
+        m_fastNotifier = new Notifier(this::runFastGroups);
+        m_fastNotifier.setName("RateGroups");
+    }
+
+    public static RateGroupScheduler getInstance() {
+        if (instance == null) {
+            instance = new RateGroupScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a task to a rate group. Tasks in the 5 ms and 10 ms groups run on another thread and must
+     * be thread safe.
+     * @param group the rate to run the task at
+     * @param task the work to run
+     */
+    public void addTask(RateGroup group, Runnable task) {
+        m_groups.get(group).add(task);
+    }
+
+    /**
+     * Starts the thread for the 5 ms and 10 ms groups
+     */
+    public void start() {
+        if (m_started) {
+            return;
+        }
+        m_started = true;
+        m_fastNotifier.startPeriodic(FAST_PERIOD_SECS);
+    }
+
+    /**
+     * Runs the groups that are due on this tick of the main loop. Call once per robot cycle.
+     */
+    public void runMainThreadGroups() {
+        m_main20ms.run();
+        if (m_mainTick % 5 == 1) {
+            m_slow100ms.run();
+        }
+        if (m_mainTick % 50 == 3) {
+            m_slow1s.run();
+        }
+        m_mainTick++;
+    }
+
+    /**
+     * Logs the overrun count and run times of every group, call from the main thread
+     */
+    public void logMetrics() {
+        Logger logger = Logger.getInstance();
+        for (int i = 0; i < m_allGroups.length; i++) {
+            Group group = m_allGroups[i];
+            logger.recordOutput(group.m_overrunKey, group.m_overruns);
+            logger.recordOutput(group.m_lastKey, group.m_lastMs);
+            logger.recordOutput(group.m_maxKey, group.m_maxMs);
+            logger.recordOutput(group.m_runsKey, group.m_runs);
+        }
+    }
+
+    private void runFastGroups() {
+        m_fast5ms.run();
+        if (m_fastTick % 2 == 1) {
+            m_fast10ms.run();
+        }
+        m_fastTick++;
+    }
+}
@@ -0,0 +1,84 @@
+package lib.utils.telemetry;
+
+import org.littletonrobotics.junction.LogDataReceiver;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.LogTable.LogValue;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Passes AdvantageKit log tables to another receiver only when its {@link TelemetryBudget.Group}
+ * allows it. Meant for {@code NT4Publisher}, which mirrors every logged field to NetworkTables;
+ * the log file writer should never be wrapped.
+ *
+ * A skipped table isn't queued. The next table that gets through has every field's latest value, so
+ * the dashboard only loses the cycles in between.
+ */
+public final class BudgetedLogReceiver implements LogDataReceiver {
+    private final LogDataReceiver m_receiver;
+    private final TelemetryBudget.Group m_group;
+
+    private Map<String, LogValue> m_lastValues = Map.of();
+
+    public BudgetedLogReceiver(LogDataReceiver receiver, TelemetryBudget.Group group) {
+        m_receiver = receiver;
+        m_group = group;
+    }
+
+    @Override
+    public void start() {
+        m_receiver.start();
+    }
+
+    @Override
+    public void end() {
+        m_receiver.end();
+    }
+
+    @Override
+    public void putLog(LogTable table) {
+        if (!m_group.tryAcquire()) {
+            return;
+        }
+        m_receiver.putLog(table);
+
+        // Only values that changed since the last table are sent again
+        Map<String, LogValue> values = table.getAll(false);
+        long bytes = 0;
+        for (Map.Entry<String, LogValue> field : values.entrySet()) {
+            if (!Objects.equals(field.getValue(), m_lastValues.get(field.getKey()))) {
+                bytes += TelemetryBudget.messageBytes(payloadBytes(field.getValue()));
+            }
+        }
+        m_lastValues = values;
+        m_group.record(bytes);
+    }
+
+    private static int payloadBytes(LogValue value) {
+        switch (value.type) {
+            case Raw:
+                return value.getRaw().length + 5;
+            case Boolean:
+                return TelemetryBudget.BOOLEAN_BYTES;
+            case String:
+                return value.getString().length() + 5;
+            case BooleanArray:
+                return value.getBooleanArray().length + 5;
+            case IntegerArray:
+                return value.getIntegerArray().length * 9 + 5;
+            case FloatArray:
+                return value.getFloatArray().length * 5 + 5;
+            case DoubleArray:
+                return value.getDoubleArray().length * TelemetryBudget.DOUBLE_BYTES + 5;
+            case StringArray:
+                int bytes = 5;
+                for (String element : value.getStringArray()) {
+                    bytes += element.length() + 5;
+                }
+                return bytes;
+            default:
+                return TelemetryBudget.DOUBLE_BYTES;
+        }
+    }
+}
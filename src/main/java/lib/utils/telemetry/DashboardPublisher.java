@@ -0,0 +1,351 @@
+package lib.utils.telemetry;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import lib.utils.scheduling.RateGroup;
+import lib.utils.scheduling.RateGroupScheduler;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Publishes values to the SmartDashboard table without looking anything up while the robot is running.
+ *
+ * Each key is resolved once, when its entry is created, to a typed publisher. Setting an entry only
+ * stores the value; {@link #flush()} runs in a rate group and sends the values that changed since the
+ * last flush, so a value set every cycle but never changing costs nothing on the network.
+ *
+ * Entries are created with a {@link TelemetryLevel}. Entries of a disabled level never create a topic
+ * and are never flushed, so call sites don't have to check the level themselves unless working out the
+ * value is expensive.
+ *
+ * Values of one mechanism that belong together, like the four swerve module states, should go in one
+ * {@link #array} entry rather than one number per value. The array is sent as a single message
+ * stamped with the FPGA time of the cycle it was filled in, so the dashboard never shows values from
+ * different cycles side by side.
+ *
+ * Each level is a {@link TelemetryBudget} group: competition values are never throttled, debug values
+ * are throttled second and verbose values first. A throttled entry stays marked as changed and is
+ * sent with its latest value once its group may publish again.
+ */
+public final class DashboardPublisher {
+    private static final double VERBOSE_MAX_RATE_HZ = 5;
+    private static final int GROUP_UNCHECKED = 0;
+    private static final int GROUP_ALLOWED = 1;
+    private static final int GROUP_THROTTLED = 2;
+
+    private static DashboardPublisher instance;
+
+    private final NetworkTable m_table;
+    private final List<Entry> m_entries = new ArrayList<>();
+    // Indexed by TelemetryLevel ordinal
+    private final TelemetryBudget.Group[] m_groups = new TelemetryBudget.Group[TelemetryLevel.values().length];
+    private final int[] m_groupStates = new int[m_groups.length];
+    private final long[] m_groupBytes = new long[m_groups.length];
+
+    private boolean m_started = false;
+    private long m_published;
+    private long m_dropped;
+
+    /**
+     * @param table the table entries are published under
+     */
+    public DashboardPublisher(NetworkTable table) {
+        m_table = table;
+
+        TelemetryBudget budget = TelemetryBudget.getInstance();
+        m_groups[TelemetryLevel.COMPETITION.ordinal()] =
+                budget.group("Dashboard/Competition", TelemetryBudget.Priority.HIGH, TelemetryBudget.UNLIMITED_RATE);
+        m_groups[TelemetryLevel.OFF.ordinal()] = m_groups[TelemetryLevel.COMPETITION.ordinal()];
+        m_groups[TelemetryLevel.DEBUG.ordinal()] =
+                budget.group("Dashboard/Debug", TelemetryBudget.Priority.NORMAL, TelemetryBudget.UNLIMITED_RATE);
+        m_groups[TelemetryLevel.VERBOSE.ordinal()] =
+                budget.group("Dashboard/Verbose", TelemetryBudget.Priority.LOW, VERBOSE_MAX_RATE_HZ);
+    }
+
+    public static DashboardPublisher getInstance() {
+        if (instance == null) {
+            instance = new DashboardPublisher(NetworkTableInstance.getDefault().getTable("SmartDashboard"));
+        }
+        return instance;
+    }
+
+    /**
+     * Flushes the entries in a rate group from now on
+     * @param group a main thread rate group, which sets how often values are sent
+     */
+    public void start(RateGroup group) {
+        if (group.isBackground()) {
+            throw new IllegalArgumentException("Entries are set on the main thread, so they must be flushed from it");
+        }
+        if (m_started) {
+            return;
+        }
+        m_started = true;
+        RateGroupScheduler.getInstance().addTask(group, this::flushAndLog);
+    }
+
+    public NumberEntry number(String key, TelemetryLevel level) {
+        NumberEntry entry = new NumberEntry(Telemetry.isEnabled(level) ? m_table.getDoubleTopic(key).publish() : null, level);
+        register(entry);
+        return entry;
+    }
+
+    /**
+     * Creates an entry for a scalar key that has been replaced by an {@link #array} entry. It is only
+     * published when the robot is booted with {@link Telemetry#SCALAR_KEYS} set.
+     */
+    public NumberEntry legacyNumber(String key, TelemetryLevel level) {
+        return Telemetry.SCALAR_KEYS ? number(key, level) : new NumberEntry(null, level);
+    }
+
+    /**
+     * @param length how many values the array always has
+     */
+    public DoubleArrayEntry array(String key, int length, TelemetryLevel level) {
+        DoubleArrayEntry entry = new DoubleArrayEntry(
+                Telemetry.isEnabled(level) ? m_table.getDoubleArrayTopic(key).publish() : null, level, length);
+        register(entry);
+        return entry;
+    }
+
+    public BooleanEntry bool(String key, TelemetryLevel level) {
+        BooleanEntry entry = new BooleanEntry(Telemetry.isEnabled(level) ? m_table.getBooleanTopic(key).publish() : null, level);
+        register(entry);
+        return entry;
+    }
+
+    public StringEntry string(String key, TelemetryLevel level) {
+        StringEntry entry = new StringEntry(Telemetry.isEnabled(level) ? m_table.getStringTopic(key).publish() : null, level);
+        register(entry);
+        return entry;
+    }
+
+    private void register(Entry entry) {
+        if (entry.m_enabled) {
+            m_entries.add(entry);
+        }
+    }
+
+    /**
+     * Sends every value that changed since the last flush, unless its level is being throttled
+     * @return how many values were sent
+     */
+    public int flush() {
+        for (int i = 0; i < m_groups.length; i++) {
+            m_groupStates[i] = GROUP_UNCHECKED;
+            m_groupBytes[i] = 0;
+        }
+
+        int published = 0;
+        for (int i = 0; i < m_entries.size(); i++) {
+            Entry entry = m_entries.get(i);
+            if (entry.m_dirty && isGroupAllowed(entry.m_group)) {
+                entry.publish();
+                entry.m_dirty = false;
+                m_groupBytes[entry.m_group] += TelemetryBudget.messageBytes(entry.payloadBytes());
+                published++;
+            }
+        }
+
+        for (int i = 0; i < m_groups.length; i++) {
+            if (m_groupBytes[i] > 0) {
+                m_groups[i].record(m_groupBytes[i]);
+            }
+        }
+        m_published += published;
+        return published;
+    }
+
+    // Only asks the budget once per flush, and only for groups with something to send
+    private boolean isGroupAllowed(int group) {
+        if (m_groupStates[group] == GROUP_UNCHECKED) {
+            m_groupStates[group] = m_groups[group].tryAcquire() ? GROUP_ALLOWED : GROUP_THROTTLED;
+        }
+        return m_groupStates[group] == GROUP_ALLOWED;
+    }
+
+    private void flushAndLog() {
+        flush();
+        Logger logger = Logger.getInstance();
+        logger.recordOutput("DashboardPublisher/Published", m_published);
+        logger.recordOutput("DashboardPublisher/Dropped", m_dropped);
+    }
+
+    /**
+     * @return the values sent since boot
+     */
+    public long getPublishedCount() {
+        return m_published;
+    }
+
+    /**
+     * @return the sets that didn't need to be sent because the value hadn't changed
+     */
+    public long getDroppedCount() {
+        return m_dropped;
+    }
+
+    public abstract static class Entry {
+        final boolean m_enabled;
+        final int m_group;
+        boolean m_dirty = false;
+        private boolean m_hasValue = false;
+
+        Entry(boolean enabled, TelemetryLevel level) {
+            m_enabled = enabled;
+            m_group = level.ordinal();
+        }
+
+        abstract void publish();
+
+        abstract int payloadBytes();
+
+        /**
+         * Marks the entry to be sent if the value changed
+         * @return true if the new value should be stored
+         */
+        final boolean update(boolean changed, DashboardPublisher publisher) {
+            if (!m_enabled) {
+                return false;
+            }
+            if (changed || !m_hasValue) {
+                m_hasValue = true;
+                m_dirty = true;
+                return true;
+            }
+            publisher.m_dropped++;
+            return false;
+        }
+    }
+
+    public final class NumberEntry extends Entry {
+        private final DoublePublisher m_publisher;
+        private double m_value;
+
+        private NumberEntry(DoublePublisher publisher, TelemetryLevel level) {
+            super(publisher != null, level);
+            m_publisher = publisher;
+        }
+
+        public void set(double value) {
+            // Compares the bits so NaN counts as unchanged and -0.0 as changed
+            if (update(Double.doubleToLongBits(value) != Double.doubleToLongBits(m_value), DashboardPublisher.this)) {
+                m_value = value;
+            }
+        }
+
+        @Override
+        void publish() {
+            m_publisher.set(m_value);
+        }
+
+        @Override
+        int payloadBytes() {
+            return TelemetryBudget.DOUBLE_BYTES;
+        }
+    }
+
+    public final class BooleanEntry extends Entry {
+        private final BooleanPublisher m_publisher;
+        private boolean m_value;
+
+        private BooleanEntry(BooleanPublisher publisher, TelemetryLevel level) {
+            super(publisher != null, level);
+            m_publisher = publisher;
+        }
+
+        public void set(boolean value) {
+            if (update(value != m_value, DashboardPublisher.this)) {
+                m_value = value;
+            }
+        }
+
+        @Override
+        void publish() {
+            m_publisher.set(m_value);
+        }
+
+        @Override
+        int payloadBytes() {
+            return TelemetryBudget.BOOLEAN_BYTES;
+        }
+    }
+
+    public final class StringEntry extends Entry {
+        private final StringPublisher m_publisher;
+        private String m_value = "";
+
+        private StringEntry(StringPublisher publisher, TelemetryLevel level) {
+            super(publisher != null, level);
+            m_publisher = publisher;
+        }
+
+        public void set(String value) {
+            if (update(!value.equals(m_value), DashboardPublisher.this)) {
+                m_value = value;
+            }
+        }
+
+        @Override
+        void publish() {
+            m_publisher.set(m_value);
+        }
+
+        @Override
+        int payloadBytes() {
+            return m_value.length() + 5;
+        }
+    }
+
+    /**
+     * A fixed length array filled one value at a time with {@link #put} and sent whole once
+     * {@link #commit} is called
+     */
+    public final class DoubleArrayEntry extends Entry {
+        private final DoubleArrayPublisher m_publisher;
+        private final double[] m_staged;
+        private final double[] m_value;
+        private long m_timestampMicros;
+
+        private DoubleArrayEntry(DoubleArrayPublisher publisher, TelemetryLevel level, int length) {
+            super(publisher != null, level);
+            m_publisher = publisher;
+            m_staged = new double[length];
+            m_value = new double[length];
+        }
+
+        public void put(int index, double value) {
+            m_staged[index] = value;
+        }
+
+        /**
+         * Marks the values put since the last commit to be sent
+         * @param timestampMicros the FPGA time the values were read at, from
+         *                        {@link edu.wpi.first.wpilibj.RobotController#getFPGATime()}
+         */
+        public void commit(long timestampMicros) {
+            // Arrays.equals compares doubles the same way NumberEntry does
+            if (update(!Arrays.equals(m_staged, m_value), DashboardPublisher.this)) {
+                System.arraycopy(m_staged, 0, m_value, 0, m_value.length);
+                m_timestampMicros = timestampMicros;
+            }
+        }
+
+        @Override
+        void publish() {
+            m_publisher.set(m_value, m_timestampMicros);
+        }
+
+        @Override
+        int payloadBytes() {
+            return m_value.length * TelemetryBudget.DOUBLE_BYTES + 5;
+        }
+    }
+}
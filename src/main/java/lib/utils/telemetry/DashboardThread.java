@@ -0,0 +1,103 @@
+package lib.utils.telemetry;
+
+import edu.wpi.first.wpilibj.Notifier;
+import lib.utils.scheduling.RateGroup;
+import lib.utils.scheduling.RateGroupScheduler;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.function.Consumer;
+
+/**
+ * Publishes Shuffleboard tabs from a background thread so NetworkTables writes never hold up the
+ * robot loop.
+ *
+ * The main thread fills a snapshot in a {@link SnapshotExchanger} and publishes it; this thread takes
+ * the latest snapshot every 100 ms and writes it to the tab's entries. Publishers must only read the
+ * snapshot they are given, never the subsystem, which is not thread safe.
+ *
+ * Every tab is a {@link TelemetryBudget} group. While a tab's group is throttled its snapshots are left
+ * in the exchanger, so the next publish that is allowed sends the latest one.
+ */
+public final class DashboardThread {
+    private static final double PERIOD_SECS = 0.1;
+
+    private static DashboardThread instance;
+
+    private final Notifier m_notifier;
+
+    // Replaced, never modified, so the thread can loop over it without locking
+    private volatile Runnable[] m_tasks = new Runnable[0];
+
+    private volatile long m_runs;
+    private volatile long m_published;
+    private volatile double m_lastMs;
+    private volatile double m_maxMs;
+    private boolean m_started = false;
+
+    private DashboardThread() {
+        m_notifier = new Notifier(this::run);
+        m_notifier.setName("Dashboard");
+    }
+
+    public static DashboardThread getInstance() {
+        if (instance == null) {
+            instance = new DashboardThread();
+        }
+        return instance;
+    }
+
+    /**
+     * Publishes the snapshots of an exchanger from the dashboard thread
+     * @param exchanger the exchanger the main thread publishes snapshots to
+     * @param group the budget group the snapshots are sent under
+     * @param valueCount how many values a snapshot publishes, to estimate its size
+     * @param publisher writes a snapshot to the dashboard, runs on the dashboard thread
+     */
+    public synchronized <T> void add(SnapshotExchanger<T> exchanger, TelemetryBudget.Group group, int valueCount, Consumer<T> publisher) {
+        long bytes = (long) valueCount * TelemetryBudget.BYTES_PER_VALUE;
+        Runnable[] tasks = new Runnable[m_tasks.length + 1];
+        System.arraycopy(m_tasks, 0, tasks, 0, m_tasks.length);
+        tasks[m_tasks.length] = () -> {
+            if (!exchanger.hasSnapshot() || !group.tryAcquire()) {
+                return;
+            }
+            publisher.accept(exchanger.acquire());
+            group.record(bytes);
+            m_published++;
+        };
+        m_tasks = tasks;
+    }
+
+    /**
+     * Starts the thread and logs its run times every second
+     */
+    public void start() {
+        if (m_started) {
+            return;
+        }
+        m_started = true;
+        m_notifier.startPeriodic(PERIOD_SECS);
+        RateGroupScheduler.getInstance().addTask(RateGroup.SLOW_1S, this::logMetrics);
+    }
+
+    private void run() {
+        Runnable[] tasks = m_tasks;
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i].run();
+        }
+        m_lastMs = (System.nanoTime() - start) / 1.0e6;
+        if (m_lastMs > m_maxMs) {
+            m_maxMs = m_lastMs;
+        }
+        m_runs++;
+    }
+
+    private void logMetrics() {
+        Logger logger = Logger.getInstance();
+        logger.recordOutput("DashboardThread/Runs", m_runs);
+        logger.recordOutput("DashboardThread/Published", m_published);
+        logger.recordOutput("DashboardThread/LastMS", m_lastMs);
+        logger.recordOutput("DashboardThread/MaxMS", m_maxMs);
+    }
+}
@@ -0,0 +1,72 @@
+package lib.utils.telemetry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands snapshots from one writer thread to one reader thread without locks or allocation.
+ *
+ * Three snapshots are allocated up front: one the writer fills, one the reader publishes from and one
+ * in between. {@link #publish()} swaps the writer's snapshot with the one in between and
+ * {@link #acquire()} swaps the reader's with it if a newer one is waiting, so neither thread ever
+ * waits for the other and the reader always gets the latest complete snapshot. Snapshots the reader
+ * didn't get to in time are overwritten, not queued.
+ *
+ * The snapshot returned by {@link #getWriteBuffer()} still holds data from an older snapshot, so the
+ * writer must set every field before publishing.
+ */
+public final class SnapshotExchanger<T> {
+    private static final int INDEX_MASK = 0b011;
+    private static final int FRESH = 0b100;
+
+    private final Object[] m_buffers = new Object[3];
+    // The index of the snapshot in between, with FRESH set if the reader hasn't taken it yet
+    private final AtomicInteger m_shared = new AtomicInteger(2);
+
+    private int m_writeIndex = 0;
+    private int m_readIndex = 1;
+
+    /**
+     * @param factory creates each of the three snapshots
+     */
+    public SnapshotExchanger(Supplier<T> factory) {
+        for (int i = 0; i < m_buffers.length; i++) {
+            m_buffers[i] = factory.get();
+        }
+    }
+
+    /**
+     * @return the snapshot to fill, only call from the writer thread
+     */
+    @SuppressWarnings("unchecked")
+    public T getWriteBuffer() {
+        return (T) m_buffers[m_writeIndex];
+    }
+
+    /**
+     * Makes the filled snapshot available to the reader, only call from the writer thread
+     */
+    public void publish() {
+        m_writeIndex = m_shared.getAndSet(m_writeIndex | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * @return true if a snapshot was published since the last {@link #acquire()}
+     */
+    public boolean hasSnapshot() {
+        return (m_shared.get() & FRESH) != 0;
+    }
+
+    /**
+     * Takes the latest snapshot, only call from the reader thread
+     * @return the snapshot, or null if nothing was published since the last call
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (!hasSnapshot()) {
+            return null;
+        }
+        m_readIndex = m_shared.getAndSet(m_readIndex) & INDEX_MASK;
+        return (T) m_buffers[m_readIndex];
+    }
+}
@@ -0,0 +1,80 @@
+package lib.utils.telemetry;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The telemetry level the robot was booted with. Every dashboard write is wrapped in a check of one of
+ * the flags here, for example:
+ *
+ * <pre>
+ * if (Telemetry.DEBUG) {
+ *     SmartDashboard.putNumber("Angle PID Output", output);
+ * }
+ * </pre>
+ *
+ * The flags are static final, so once the class is loaded the JIT treats them as constants and removes
+ * the code for disabled levels entirely: no key strings are built and no NetworkTables lookups happen.
+ *
+ * The level is read once at boot from the "helios.telemetry" system property
+ * ({@code ./gradlew deploy -Ptelemetry=COMPETITION}), then from "telemetry_level.txt" in the deploy
+ * directory, and is {@link #DEFAULT_LEVEL} if neither is set.
+ *
+ * Mechanism state is published as packed array topics. The scalar keys those replaced are only
+ * published too if the robot is booted with {@link #SCALAR_KEYS_PROPERTY} set
+ * ({@code ./gradlew deploy -PscalarKeys}), for dashboard layouts that haven't moved over yet.
+ */
+public final class Telemetry {
+    public static final String LEVEL_PROPERTY = "helios.telemetry";
+    public static final String LEVEL_FILE = "telemetry_level.txt";
+    public static final TelemetryLevel DEFAULT_LEVEL = TelemetryLevel.DEBUG;
+    public static final String SCALAR_KEYS_PROPERTY = "helios.telemetry.scalarKeys";
+
+    public static final TelemetryLevel LEVEL = readLevel();
+
+    public static final boolean COMPETITION = LEVEL.includes(TelemetryLevel.COMPETITION);
+    public static final boolean DEBUG = LEVEL.includes(TelemetryLevel.DEBUG);
+    public static final boolean VERBOSE = LEVEL.includes(TelemetryLevel.VERBOSE);
+
+    public static final boolean SCALAR_KEYS = Boolean.getBoolean(SCALAR_KEYS_PROPERTY);
+
+    private Telemetry() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    /**
+     * @return true if values of the given level are published. Prefer the constants on hot paths.
+     */
+    public static boolean isEnabled(TelemetryLevel level) {
+        return LEVEL.includes(level);
+    }
+
+    private static TelemetryLevel readLevel() {
+        String name = System.getProperty(LEVEL_PROPERTY);
+        if (name == null) {
+            Path levelFile = Filesystem.getDeployDirectory().toPath().resolve(LEVEL_FILE);
+            if (Files.isRegularFile(levelFile)) {
+                try {
+                    name = new String(Files.readAllBytes(levelFile), StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    DriverStation.reportWarning("Couldn't read " + levelFile + ": " + e.getMessage(), false);
+                }
+            }
+        }
+        if (name == null || name.isBlank()) {
+            return DEFAULT_LEVEL;
+        }
+
+        try {
+            return TelemetryLevel.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            DriverStation.reportWarning("Unknown telemetry level \"" + name.trim() + "\", using " + DEFAULT_LEVEL, false);
+            return DEFAULT_LEVEL;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package lib.utils.telemetry;
+
+import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import lib.utils.scheduling.RateGroup;
+import lib.utils.scheduling.RateGroupScheduler;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the NetworkTables traffic of the robot code under a bandwidth limit, so on the field it
+ * doesn't compete with the camera streams for the radio's capped bandwidth.
+ *
+ * Everything that publishes to NetworkTables belongs to a {@link Group} with a priority and a
+ * maximum rate. Before publishing, a group asks {@link Group#tryAcquire()} and afterwards records
+ * roughly how many bytes it sent. Every 100 ms the bytes of the last second are added up. While they
+ * are over the limit, one more priority is throttled to {@link #THROTTLED_RATE_HZ}, lowest first;
+ * {@link Priority#HIGH} groups are never throttled. Once usage falls below
+ * {@link #RESUME_FRACTION} of the limit for a whole window, the last throttled priority is
+ * restored.
+ *
+ * ntcore doesn't report bytes sent per topic, so sizes are estimated from the NT4 message format with
+ * {@link #messageBytes(int)}. The usage of every group and the limit are published under
+ * "/TelemetryBudget" so they can be watched in the pits, and the limit can be changed there without a
+ * redeploy. The starting limit comes from the {@link #LIMIT_PROPERTY} system property
+ * ({@code ./gradlew deploy -PtelemetryBandwidth=60000}).
+ */
+public final class TelemetryBudget {
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    public static final String LIMIT_PROPERTY = "helios.telemetry.bandwidthLimit";
+    // A fifth of the 4 Mbit/s field cap, leaving the rest for the cameras
+    public static final double DEFAULT_LIMIT_BYTES_PER_SEC = 100_000;
+    public static final double RESUME_FRACTION = 0.8;
+    public static final double THROTTLED_RATE_HZ = 1.0;
+    // For groups that are already paced by whatever publishes them
+    public static final double UNLIMITED_RATE = 0;
+
+    // Array header, topic id, timestamp and type of an NT4 value message, not counting the value
+    private static final int MESSAGE_OVERHEAD_BYTES = 14;
+    public static final int DOUBLE_BYTES = 9;
+    public static final int BOOLEAN_BYTES = 1;
+    // A double message, used when all that's known is how many values are sent
+    public static final int BYTES_PER_VALUE = MESSAGE_OVERHEAD_BYTES + DOUBLE_BYTES;
+
+    // 10 windows of 100 ms
+    private static final int WINDOWS = 10;
+    private static final double UPDATE_PERIOD_SECS = 0.1;
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private static TelemetryBudget instance;
+
+    private final List<Group> m_groups = new ArrayList<>();
+    private final Map<String, Group> m_groupsByName = new HashMap<>();
+    private final NetworkTable m_table;
+    private final DoubleEntry m_limitEntry;
+    private final DoublePublisher m_totalPublisher;
+    private final StringPublisher m_throttledPublisher;
+    private final Group m_selfGroup;
+
+    // Priorities with an ordinal of this or above are throttled, PRIORITIES.length for none
+    private volatile int m_throttledFrom = PRIORITIES.length;
+    private int m_window = 0;
+    private int m_heldUpdates = 0;
+    private double m_totalBytesPerSec;
+    private boolean m_started = false;
+
+    private TelemetryBudget() {
+        m_table = NetworkTableInstance.getDefault().getTable("TelemetryBudget");
+        double limit = Double.parseDouble(System.getProperty(LIMIT_PROPERTY, String.valueOf(DEFAULT_LIMIT_BYTES_PER_SEC)));
+        m_limitEntry = m_table.getDoubleTopic("LimitBytesPerSec").getEntry(limit);
+        m_limitEntry.set(limit);
+        m_totalPublisher = m_table.getDoubleTopic("BytesPerSec").publish();
+        m_throttledPublisher = m_table.getStringTopic("ThrottledFrom").publish();
+        m_selfGroup = group("TelemetryBudget", Priority.HIGH, UNLIMITED_RATE);
+    }
+
+    public static TelemetryBudget getInstance() {
+        if (instance == null) {
+            instance = new TelemetryBudget();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the group for a name, creating it the first time. Call from the main thread, usually from a
+     * constructor.
+     * @param name the name the group's usage is published under
+     * @param priority how important the group is, low priority groups are throttled first
+     * @param maxRateHz the most times per second the group may publish, or {@link #UNLIMITED_RATE}
+     */
+    public Group group(String name, Priority priority, double maxRateHz) {
+        Group group = m_groupsByName.get(name);
+        if (group == null) {
+            group = new Group(name, priority, maxRateHz, this);
+            m_groupsByName.put(name, group);
+            m_groups.add(group);
+        }
+        return group;
+    }
+
+    /**
+     * Starts measuring usage and throttling
+     */
+    public void start() {
+        if (m_started) {
+            return;
+        }
+        m_started = true;
+        RateGroupScheduler.getInstance().addTask(RateGroup.SLOW_100MS, this::update);
+    }
+
+    /**
+     * @param payloadBytes the size of the value itself
+     * @return the size of an NT4 message sending the value
+     */
+    public static int messageBytes(int payloadBytes) {
+        return MESSAGE_OVERHEAD_BYTES + payloadBytes;
+    }
+
+    /**
+     * @return the bytes per second sent over the last second
+     */
+    public double getBytesPerSec() {
+        return m_totalBytesPerSec;
+    }
+
+    /**
+     * @return the priority throttling starts at, or null if nothing is throttled
+     */
+    public Priority getThrottledFrom() {
+        int throttledFrom = m_throttledFrom;
+        return throttledFrom < PRIORITIES.length ? PRIORITIES[throttledFrom] : null;
+    }
+
+    boolean isThrottled(Priority priority) {
+        return priority.ordinal() >= m_throttledFrom;
+    }
+
+    private void update() {
+        m_window = (m_window + 1) % WINDOWS;
+
+        Logger logger = Logger.getInstance();
+        double total = 0;
+        for (int i = 0; i < m_groups.size(); i++) {
+            Group group = m_groups.get(i);
+            group.roll(m_window);
+            total += group.m_bytesPerSec;
+            group.m_usagePublisher.set(group.m_bytesPerSec);
+            logger.recordOutput(group.m_bytesKey, group.m_bytesPerSec);
+            logger.recordOutput(group.m_throttledKey, group.m_throttled.get());
+        }
+        m_totalBytesPerSec = total;
+
+        double limit = m_limitEntry.get();
+        adjustThrottling(total, limit);
+
+        Priority throttledFrom = getThrottledFrom();
+        String throttledName = throttledFrom == null ? "NONE" : throttledFrom.name();
+        m_totalPublisher.set(total);
+        m_throttledPublisher.set(throttledName);
+        m_selfGroup.record((m_groups.size() + 2L) * BYTES_PER_VALUE);
+        logger.recordOutput("TelemetryBudget/BytesPerSec", total);
+        logger.recordOutput("TelemetryBudget/LimitBytesPerSec", limit);
+        logger.recordOutput("TelemetryBudget/ThrottledFrom", throttledName);
+    }
+
+    private void adjustThrottling(double bytesPerSec, double limit) {
+        // The usage covers the last second, so wait that long after a change to see its effect
+        if (m_heldUpdates > 0) {
+            m_heldUpdates--;
+            return;
+        }
+        if (bytesPerSec > limit && m_throttledFrom > Priority.NORMAL.ordinal()) {
+            m_throttledFrom--;
+            m_heldUpdates = WINDOWS;
+        } else if (bytesPerSec < limit * RESUME_FRACTION && m_throttledFrom < PRIORITIES.length) {
+            m_throttledFrom++;
+            m_heldUpdates = WINDOWS;
+        }
+    }
+
+    /**
+     * Topics that are published together and throttled together
+     */
+    public static final class Group {
+        private final String m_name;
+        private final Priority m_priority;
+        private final long m_minIntervalNanos;
+        private final long m_throttledIntervalNanos;
+        private final TelemetryBudget m_budget;
+        private final String m_bytesKey;
+        private final String m_throttledKey;
+        private final DoublePublisher m_usagePublisher;
+
+        private final AtomicLong m_pendingBytes = new AtomicLong();
+        private final AtomicLong m_throttled = new AtomicLong();
+        private final long[] m_windowBytes = new long[WINDOWS];
+        private volatile long m_lastPublishNanos = Long.MIN_VALUE / 2;
+        private volatile double m_bytesPerSec;
+
+        private Group(String name, Priority priority, double maxRateHz, TelemetryBudget budget) {
+            m_name = name;
+            m_priority = priority;
+            m_minIntervalNanos = maxRateHz > 0 ? (long) (1.0e9 / maxRateHz) : 0;
+            m_throttledIntervalNanos = Math.max(m_minIntervalNanos, (long) (1.0e9 / THROTTLED_RATE_HZ));
+            m_budget = budget;
+            m_bytesKey = "TelemetryBudget/" + name + "/BytesPerSec";
+            m_throttledKey = "TelemetryBudget/" + name + "/Throttled";
+            m_usagePublisher = budget.m_table.getDoubleTopic(name + "/BytesPerSec").publish();
+        }
+
+        /**
+         * Checks whether the group may publish now. Call before each publish; a false means skip it
+         * and publish the latest values next time instead.
+         */
+        public boolean tryAcquire() {
+            long interval = m_budget.isThrottled(m_priority) ? m_throttledIntervalNanos : m_minIntervalNanos;
+            long now = System.nanoTime();
+            // A tenth of the interval of slack so a caller running at exactly the max rate isn't
+            // skipped because of timer jitter
+            if (now - m_lastPublishNanos < interval - interval / 10) {
+                m_throttled.incrementAndGet();
+                return false;
+            }
+            m_lastPublishNanos = now;
+            return true;
+        }
+
+        /**
+         * @param bytes the estimated size of what was just published, see {@link #messageBytes(int)}
+         */
+        public void record(long bytes) {
+            m_pendingBytes.addAndGet(bytes);
+        }
+
+        public String getName() {
+            return m_name;
+        }
+
+        public Priority getPriority() {
+            return m_priority;
+        }
+
+        /**
+         * @return the bytes per second sent over the last second
+         */
+        public double getBytesPerSec() {
+            return m_bytesPerSec;
+        }
+
+        private void roll(int window) {
+            m_windowBytes[window] = m_pendingBytes.getAndSet(0);
+            long sum = 0;
+            for (long bytes : m_windowBytes) {
+                sum += bytes;
+            }
+            m_bytesPerSec = sum / (WINDOWS * UPDATE_PERIOD_SECS);
+        }
+    }
+}
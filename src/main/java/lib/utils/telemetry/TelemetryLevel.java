@@ -0,0 +1,22 @@
+package lib.utils.telemetry;
+
+/**
+ * How much the robot publishes to the dashboard. Each level includes everything of the levels before it.
+ */
+public enum TelemetryLevel {
+    /** Nothing is published */
+    OFF,
+    /** Only what the drive team needs during a match */
+    COMPETITION,
+    /** Tuning and troubleshooting values */
+    DEBUG,
+    /** High rate values from inside control loops, such as every module's setpoints */
+    VERBOSE;
+
+    /**
+     * @return true if this level includes everything published at the other level
+     */
+    public boolean includes(TelemetryLevel other) {
+        return compareTo(other) >= 0;
+    }
+}
@@ -0,0 +1,104 @@
+package lib.utils.telemetry;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.smartdashboard.Field2d;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link Field2d} that only sends what the dashboard would actually show differently.
+ *
+ * The robot pose is sent when it has moved or turned past a threshold since the last pose sent, or
+ * when {@link #REFRESH_SECS} have passed since then, so small moves still show up eventually. Either
+ * way it is only sent when the {@link TelemetryBudget} group allows.
+ *
+ * Trajectories are converted and sent once per object. Setting the same trajectory instance again,
+ * for example when the same auto is picked again, does nothing.
+ */
+public final class ThrottledField2d {
+    public static final double REFRESH_SECS = 1.0;
+
+    private final Field2d m_field = new Field2d();
+    private final TelemetryBudget.Group m_group;
+    private final double m_minTranslationMeters;
+    private final double m_minRotationRadians;
+    private final long m_refreshNanos;
+    private final Map<String, Trajectory> m_sentTrajectories = new HashMap<>();
+
+    private boolean m_hasPose = false;
+    private double m_lastX;
+    private double m_lastY;
+    private double m_lastRadians;
+    private long m_lastSentNanos;
+
+    /**
+     * @param budgetName the name of the field's {@link TelemetryBudget} group
+     * @param maxRateHz the most times per second the robot pose is sent
+     * @param minTranslationMeters how far the robot has to move before its pose is sent again
+     * @param minRotationDegrees how far the robot has to turn before its pose is sent again
+     */
+    public ThrottledField2d(String budgetName, double maxRateHz, double minTranslationMeters, double minRotationDegrees) {
+        this(budgetName, maxRateHz, minTranslationMeters, minRotationDegrees, REFRESH_SECS);
+    }
+
+    ThrottledField2d(String budgetName, double maxRateHz, double minTranslationMeters, double minRotationDegrees,
+                     double refreshSecs) {
+        m_group = TelemetryBudget.getInstance().group(budgetName, TelemetryBudget.Priority.LOW, maxRateHz);
+        m_minTranslationMeters = minTranslationMeters;
+        m_minRotationRadians = Math.toRadians(minRotationDegrees);
+        m_refreshNanos = (long) (refreshSecs * 1.0e9);
+    }
+
+    /**
+     * @return the field to put on the dashboard with SmartDashboard.putData
+     */
+    public Field2d getField() {
+        return m_field;
+    }
+
+    /**
+     * Sends the robot pose if it moved far enough or the refresh is due, and the rate allows
+     * @return true if the pose was sent
+     */
+    public boolean setRobotPose(Pose2d pose) {
+        long now = System.nanoTime();
+        if (m_hasPose
+                && Math.hypot(pose.getX() - m_lastX, pose.getY() - m_lastY) < m_minTranslationMeters
+                && Math.abs(MathUtil.angleModulus(pose.getRotation().getRadians() - m_lastRadians)) < m_minRotationRadians
+                && now - m_lastSentNanos < m_refreshNanos) {
+            return false;
+        }
+        if (!m_group.tryAcquire()) {
+            return false;
+        }
+
+        m_field.setRobotPose(pose);
+        m_hasPose = true;
+        m_lastX = pose.getX();
+        m_lastY = pose.getY();
+        m_lastRadians = pose.getRotation().getRadians();
+        m_lastSentNanos = now;
+        // A 3 element double array
+        m_group.record(TelemetryBudget.messageBytes(3 * TelemetryBudget.DOUBLE_BYTES + 5));
+        return true;
+    }
+
+    /**
+     * Shows a trajectory as a field object, unless that object already shows this trajectory
+     * @param objectName the name of the field object
+     * @return true if the trajectory was sent
+     */
+    public boolean setTrajectory(String objectName, Trajectory trajectory) {
+        // Trajectories are never modified after they're generated, so the instance identifies them
+        if (m_sentTrajectories.get(objectName) == trajectory) {
+            return false;
+        }
+        m_field.getObject(objectName).setTrajectory(trajectory);
+        m_sentTrajectories.put(objectName, trajectory);
+        m_group.record(TelemetryBudget.messageBytes(trajectory.getStates().size() * 3 * TelemetryBudget.DOUBLE_BYTES + 5));
+        return true;
+    }
+}
@@ -2,10 +2,31 @@ package lib.factories
 
 import com.revrobotics.CANSparkMax
 import com.revrobotics.CANSparkMaxLowLevel
+import lib.utils.drivers.CanBusBudget
 import lib.utils.drivers.RevUtil
+import lib.utils.profiling.StartupTracer
+import lib.utils.scheduling.DeferredTask
+import lib.utils.scheduling.DeferredWorkQueue
+import org.littletonrobotics.junction.Logger
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
 
 class SparkMaxFactory {
 
+    /**
+     * The status frame periods a Spark Max uses in each robot mode, switched with [setFrameProfile]
+     */
+    enum class FrameProfile {
+        // Nothing is driven, so only the position frame keeps its rate for the dashboard and pose
+        DISABLED,
+        // The configured periods, with the feedback frames of odometry motors as fast as they go
+        AUTO,
+        // The configured periods
+        TELEOP,
+        // The configured periods
+        TEST
+    }
+
     /**
      * A data class storing the configuration values of a spark max motor controller
      * @param frame0Rate the periodic frame of status 0 in milliseconds
@@ -18,6 +39,8 @@ class SparkMaxFactory {
      * @param idleMode the idle mode of the motor
      * @param inverted the inversion of the motor
      * @param currentLimit the max current draw allowed for the motor controller
+     * @param fastFeedbackInAuto speeds the velocity and position frames up to [AUTO_FEEDBACK_FRAME_PERIOD]
+     *  in autonomous, for the motors odometry reads
      */
     data class SparkMaxConfig(
         var frame0Rate: Int = 100,
@@ -30,8 +53,42 @@ class SparkMaxFactory {
         var idleMode: CANSparkMax.IdleMode = CANSparkMax.IdleMode.kBrake,
         var inverted: Boolean = false,
         var currentLimit: Int = 30,
-        var followingMotor: CANSparkMax? = null
-    )
+        var followingMotor: CANSparkMax? = null,
+        var fastFeedbackInAuto: Boolean = false
+    ) {
+        /**
+         * Sets every status frame to the same period
+         */
+        fun setAllFrameRates(periodMs: Int) {
+            frame0Rate = periodMs
+            frame1Rate = periodMs
+            frame2Rate = periodMs
+            frame3Rate = periodMs
+            frame4Rate = periodMs
+            frame5Rate = periodMs
+            frame6Rate = periodMs
+        }
+
+        /**
+         * @return the periods of status 0 to 6 in milliseconds in a profile
+         */
+        fun framePeriods(profile: FrameProfile): IntArray {
+            val periods = intArrayOf(frame0Rate, frame1Rate, frame2Rate, frame3Rate, frame4Rate, frame5Rate, frame6Rate)
+            when (profile) {
+                FrameProfile.DISABLED -> for (frame in periods.indices) {
+                    if (frame != POSITION_FRAME) {
+                        periods[frame] = maxOf(periods[frame], DISABLED_FRAME_PERIOD)
+                    }
+                }
+                FrameProfile.AUTO -> if (fastFeedbackInAuto) {
+                    periods[VELOCITY_FRAME] = minOf(periods[VELOCITY_FRAME], AUTO_FEEDBACK_FRAME_PERIOD)
+                    periods[POSITION_FRAME] = minOf(periods[POSITION_FRAME], AUTO_FEEDBACK_FRAME_PERIOD)
+                }
+                FrameProfile.TELEOP, FrameProfile.TEST -> {}
+            }
+            return periods
+        }
+    }
 
     /**
      * Creates a Spark Max to these settings:
@@ -43,45 +100,157 @@ class SparkMaxFactory {
      *  current limit: 30 amps
      * @return a spark max configured to the default settings
      */
-    data class SparkWithConfig(val spark: CANSparkMax, val config: SparkMaxConfig = SparkMaxConfig())
+    data class SparkWithConfig(val spark: CANSparkMax, val config: SparkMaxConfig = SparkMaxConfig()) {
+        // High priority so the autonomous profile is on the bus within the first cycles
+        val frameProfileTask = DeferredTask("SparkMax ${spark.deviceId} frame profile", DeferredWorkQueue.Priority.HIGH) {
+            SparkMaxFactory.applyFrameProfile(this)
+        }
+
+        val frameProfileKey = "CAN/FrameProfile/SparkMax ${spark.deviceId}"
+
+        // Held while the frame periods are sent, so a profile switch and a repair never interleave
+        val configLock = ReentrantLock()
+
+        // Set by a profile switch that found the lock held, the health daemon sends it once it lets go
+        @Volatile
+        var profilePending = false
+
+        // The profile whose periods were last sent to the spark, read by the health daemon's thread
+        @Volatile
+        var appliedProfile = FrameProfile.TELEOP
+    }
 
     companion object {
         const val MAX_CAN_FRAME_PERIOD = 65535
+        const val DISABLED_FRAME_PERIOD = 200
+        const val AUTO_FEEDBACK_FRAME_PERIOD = 10
+
+        private const val VELOCITY_FRAME = 1
+        private const val POSITION_FRAME = 2
+        private val STATUS_FRAMES = arrayOf(
+            CANSparkMaxLowLevel.PeriodicFrame.kStatus0,
+            CANSparkMaxLowLevel.PeriodicFrame.kStatus1,
+            CANSparkMaxLowLevel.PeriodicFrame.kStatus2,
+            CANSparkMaxLowLevel.PeriodicFrame.kStatus3,
+            CANSparkMaxLowLevel.PeriodicFrame.kStatus4,
+            CANSparkMaxLowLevel.PeriodicFrame.kStatus5,
+            CANSparkMaxLowLevel.PeriodicFrame.kStatus6
+        )
+
+        // The profile of the current robot mode, new sparks start in it
+        @Volatile
+        var frameProfile = FrameProfile.TELEOP
+            private set
 
         // A list of all configured sparks linked to thier configs
         val listOfAllSparksAndConfigs: MutableList<SparkWithConfig> = ArrayList()
-        fun updateCanFramePeriods() {
+
+        /**
+         * Switches every spark to the frame periods of a profile. Call from the mode init methods, the
+         * periods are sent later from the deferred work queue so the mode change isn't held up.
+         */
+        fun setFrameProfile(profile: FrameProfile) {
+            frameProfile = profile
             for (sparkAndConfig in listOfAllSparksAndConfigs) {
+                DeferredWorkQueue.getInstance().submit(sparkAndConfig.frameProfileTask)
+            }
+        }
+
+        /**
+         * Sends the frame periods of the current profile. The rest of the config is only sent again by the
+         * health daemon when the spark has reset, so a mode switch doesn't wait on it.
+         */
+        internal fun applyFrameProfile(sparkAndConfig: SparkWithConfig) {
+            sparkAndConfig.profilePending = true
+            // The health daemon is repairing this spark, and sends the pending profile after it lets go
+            if (!sparkAndConfig.configLock.tryLock()) {
+                return
+            }
+            try {
+                sparkAndConfig.profilePending = false
                 val spark = sparkAndConfig.spark
                 val config = sparkAndConfig.config
-                if (spark.getStickyFault(CANSparkMax.FaultID.kHasReset)) {
-                    RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, config.frame0Rate) }
-                    RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, config.frame1Rate) }
-                    RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, config.frame2Rate) }
-                    RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus3, config.frame3Rate) }
-                    RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus4, config.frame4Rate) }
-                    RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus5, config.frame5Rate) }
-                    RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus6, config.frame6Rate) }
+                val profile = frameProfile
+
+                setFramePeriodsDeferred(spark, config)
+                sparkAndConfig.appliedProfile = profile
+                registerFrames(spark.deviceId, config.framePeriods(profile))
+                Logger.getInstance().recordOutput(sparkAndConfig.frameProfileKey, profile.name)
+            } finally {
+                sparkAndConfig.configLock.unlock()
+            }
+        }
+
+        /**
+         * Sends the whole config of a spark again, with the frame periods of the current profile, and
+         * clears its sticky faults. Blocks on retries, so it is called from the health daemon's thread.
+         */
+        fun reapplyConfig(sparkAndConfig: SparkWithConfig) {
+            sparkAndConfig.configLock.withLock { reapplyConfigLocked(sparkAndConfig) }
+
+            // A profile switch that came in while the lock was held skipped this spark. If the main
+            // thread holds the lock again here it is sending the switch itself, and clears the flag
+            while (sparkAndConfig.profilePending && sparkAndConfig.configLock.tryLock()) {
+                try {
+                    if (sparkAndConfig.profilePending) {
+                        sparkAndConfig.profilePending = false
+                        sendFramePeriods(sparkAndConfig)
+                    }
+                } finally {
+                    sparkAndConfig.configLock.unlock()
                 }
             }
         }
 
-        fun rerunConfigs() {
-            for (sparkAndConfig in listOfAllSparksAndConfigs) {
-                val spark = sparkAndConfig.spark
-                val config = sparkAndConfig.config
+        private fun reapplyConfigLocked(sparkAndConfig: SparkWithConfig) {
+            val spark = sparkAndConfig.spark
+            val config = sparkAndConfig.config
 
-                RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, config.frame0Rate) }
-                RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, config.frame1Rate) }
-                RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, config.frame2Rate) }
-                RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus3, config.frame3Rate) }
-                RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus4, config.frame4Rate) }
-                RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus5, config.frame5Rate) }
-                RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus6, config.frame6Rate) }
+            sparkAndConfig.profilePending = false
+            sendFramePeriods(sparkAndConfig)
 
-                RevUtil.autoRetry { spark.setIdleMode(config.idleMode) }
+            RevUtil.autoRetry { spark.setIdleMode(config.idleMode) }
+            if (config.followingMotor != null) {
+                RevUtil.autoRetry { spark.follow(config.followingMotor, config.inverted) }
+            } else {
                 spark.inverted = config.inverted
-                RevUtil.autoRetry { spark.setSmartCurrentLimit(config.currentLimit) }
+            }
+            RevUtil.autoRetry { spark.setSmartCurrentLimit(config.currentLimit) }
+
+            // Otherwise the reset flag stays set and the daemon would repair it again every check
+            RevUtil.autoRetry { spark.clearFaults() }
+        }
+
+        /**
+         * Sends the frame periods of the current profile, blocking on retries. Call with the lock held.
+         */
+        private fun sendFramePeriods(sparkAndConfig: SparkWithConfig) {
+            val spark = sparkAndConfig.spark
+            val profile = frameProfile
+            val periods = sparkAndConfig.config.framePeriods(profile)
+            for (frame in STATUS_FRAMES.indices) {
+                RevUtil.autoRetry { spark.setPeriodicFramePeriod(STATUS_FRAMES[frame], periods[frame]) }
+            }
+            sparkAndConfig.appliedProfile = profile
+            registerFrames(spark.deviceId, periods)
+        }
+
+        /**
+         * Reports the status frame periods of a spark to the CAN bus budget
+         */
+        private fun registerFrames(id: Int, periods: IntArray) {
+            periods.forEachIndexed { frame, periodMs ->
+                CanBusBudget.getInstance().register("SparkMax $id", "Status$frame", periodMs.toDouble())
+            }
+        }
+
+        private fun setFramePeriodsDeferred(spark: CANSparkMax, config: SparkMaxConfig) {
+            val name = "SparkMax ${spark.deviceId} frame period"
+            for (frame in STATUS_FRAMES.indices) {
+                // A retry runs after the lock is let go, so it sends the current profile rather than a stale one
+                RevUtil.autoRetryDeferred(name) {
+                    spark.setPeriodicFramePeriod(STATUS_FRAMES[frame], config.framePeriods(frameProfile)[frame])
+                }
             }
         }
 
@@ -91,15 +260,13 @@ class SparkMaxFactory {
          */
 
         fun createSparkMax(id: Int, config: SparkMaxConfig): CANSparkMax {
+            StartupTracer.begin("SparkMax $id")
             val spark = CANSparkMax(id, CANSparkMaxLowLevel.MotorType.kBrushless)
 
-            RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, config.frame0Rate) }
-            RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, config.frame1Rate) }
-            RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, config.frame2Rate) }
-            RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus3, config.frame3Rate) }
-            RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus4, config.frame4Rate) }
-            RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus5, config.frame5Rate) }
-            RevUtil.autoRetry { spark.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus6, config.frame6Rate) }
+            val periods = config.framePeriods(frameProfile)
+            for (frame in STATUS_FRAMES.indices) {
+                RevUtil.autoRetry { spark.setPeriodicFramePeriod(STATUS_FRAMES[frame], periods[frame]) }
+            }
 
             RevUtil.autoRetry { spark.setIdleMode(config.idleMode) }
             if(config.followingMotor != null) {
@@ -109,9 +276,15 @@ class SparkMaxFactory {
             }
             RevUtil.autoRetry { spark.setSmartCurrentLimit(config.currentLimit) }
 
-            listOfAllSparksAndConfigs.add(SparkWithConfig(spark, config.copy()))
+            val sparkAndConfig = SparkWithConfig(spark, config.copy())
+            sparkAndConfig.appliedProfile = frameProfile
+            listOfAllSparksAndConfigs.add(sparkAndConfig)
+            registerFrames(id, periods)
 
+            StartupTracer.begin("burnFlash")
             spark.burnFlash()
+            StartupTracer.end()
+            StartupTracer.end()
 
             return spark
         }
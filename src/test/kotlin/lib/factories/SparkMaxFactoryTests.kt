@@ -0,0 +1,47 @@
+package lib.factories
+
+import lib.factories.SparkMaxFactory.FrameProfile
+import org.junit.jupiter.api.Test
+import kotlin.test.junit5.JUnit5Asserter.assertEquals
+
+class SparkMaxFactoryTests {
+    @Test
+    fun testDisabledKeepsPosition() {
+        val config = SparkMaxFactory.SparkMaxConfig(frame0Rate = 10)
+        val periods = config.framePeriods(FrameProfile.DISABLED)
+        assertEquals("Applied output slows down", SparkMaxFactory.DISABLED_FRAME_PERIOD, periods[0])
+        assertEquals("Position keeps its rate", config.frame2Rate, periods[2])
+        assertEquals("Disabled frames stay disabled", SparkMaxFactory.MAX_CAN_FRAME_PERIOD, periods[3])
+    }
+
+    @Test
+    fun testAutoFeedback() {
+        val config = SparkMaxFactory.SparkMaxConfig()
+        config.setAllFrameRates(50)
+        assertEquals("Only odometry motors speed up", 50, config.framePeriods(FrameProfile.AUTO)[2])
+
+        config.fastFeedbackInAuto = true
+        val periods = config.framePeriods(FrameProfile.AUTO)
+        assertEquals("Velocity as fast as it goes", SparkMaxFactory.AUTO_FEEDBACK_FRAME_PERIOD, periods[1])
+        assertEquals("Position as fast as it goes", SparkMaxFactory.AUTO_FEEDBACK_FRAME_PERIOD, periods[2])
+        assertEquals("Applied output unchanged", 50, periods[0])
+        assertEquals("Teleop uses the configured periods", 50, config.framePeriods(FrameProfile.TELEOP)[1])
+    }
+
+    @Test
+    fun testDisabledNeverSpeedsUp() {
+        val config = SparkMaxFactory.SparkMaxConfig(frame0Rate = 500, frame1Rate = 20)
+        val periods = config.framePeriods(FrameProfile.DISABLED)
+        assertEquals("A slower configured period is kept", 500, periods[0])
+        assertEquals("A faster configured period slows down", SparkMaxFactory.DISABLED_FRAME_PERIOD, periods[1])
+    }
+
+    @Test
+    fun testTeleopAndTestUseTheConfig() {
+        val config = SparkMaxFactory.SparkMaxConfig(fastFeedbackInAuto = true)
+        val configured = listOf(config.frame0Rate, config.frame1Rate, config.frame2Rate, config.frame3Rate,
+            config.frame4Rate, config.frame5Rate, config.frame6Rate)
+        assertEquals("Teleop sends the configured periods", configured, config.framePeriods(FrameProfile.TELEOP).toList())
+        assertEquals("Test sends the configured periods", configured, config.framePeriods(FrameProfile.TEST).toList())
+    }
+}
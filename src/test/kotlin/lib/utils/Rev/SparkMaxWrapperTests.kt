@@ -0,0 +1,66 @@
+package lib.utils.Rev
+
+import com.revrobotics.CANSparkMax
+import com.revrobotics.CANSparkMaxLowLevel
+import edu.wpi.first.hal.HAL
+import edu.wpi.first.wpilibj.simulation.SimHooks
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import kotlin.test.junit5.JUnit5Asserter.assertEquals
+
+class SparkMaxWrapperTests {
+    private lateinit var motor: CANSparkMax
+    private lateinit var wrapper: SparkMaxWrapper
+
+    @BeforeEach
+    fun setup() {
+        HAL.initialize(500, 0)
+        // The keep alive runs on FPGA time, which only moves when stepped
+        SimHooks.pauseTiming()
+        motor = CANSparkMax(50, CANSparkMaxLowLevel.MotorType.kBrushless)
+        wrapper = SparkMaxWrapper(motor)
+    }
+
+    @AfterEach
+    fun shutdown() {
+        motor.close()
+        SimHooks.resumeTiming()
+    }
+
+    @Test
+    fun testUnchangedOutputIsSuppressed() {
+        wrapper.set(0.5)
+        wrapper.set(0.5)
+        wrapper.set(0.5)
+        assertEquals("Only the first set is sent", 1L, wrapper.framesSent)
+        assertEquals("The repeats are suppressed", 2L, wrapper.framesSuppressed)
+
+        wrapper.set(0.25)
+        assertEquals("A new speed is sent", 2L, wrapper.framesSent)
+        assertEquals("get() reports the last speed", 0.25, motor.get())
+    }
+
+    @Test
+    fun testKeepAliveResends() {
+        wrapper.set(0.5)
+        SimHooks.stepTiming(SparkMaxWrapper.KEEP_ALIVE_SECS / 2)
+        wrapper.set(0.5)
+        assertEquals("Suppressed before the keep alive is due", 1L, wrapper.framesSent)
+
+        SimHooks.stepTiming(SparkMaxWrapper.KEEP_ALIVE_SECS)
+        wrapper.set(0.5)
+        assertEquals("Sent again once the keep alive is due", 2L, wrapper.framesSent)
+    }
+
+    @Test
+    fun testControlTypeChangeIsSent() {
+        wrapper.set(0.5)
+        wrapper.set(SparkMaxWrapper.ControlMode.VELOCITY, 0.5)
+        assertEquals("Same value in another control type is sent", 2L, wrapper.framesSent)
+
+        wrapper.invalidate()
+        wrapper.set(SparkMaxWrapper.ControlMode.VELOCITY, 0.5)
+        assertEquals("An invalidated wrapper sends the next output", 3L, wrapper.framesSent)
+    }
+}
@@ -0,0 +1,51 @@
+package lib.utils.drivers
+
+import com.revrobotics.CANSparkMax
+import com.revrobotics.CANSparkMaxLowLevel
+import edu.wpi.first.hal.HAL
+import lib.utils.Rev.SparkMaxConfigs
+import org.junit.jupiter.api.Test
+import kotlin.math.abs
+import kotlin.test.junit5.JUnit5Asserter.assertEquals
+import kotlin.test.junit5.JUnit5Asserter.assertTrue
+
+class CanBusBudgetTests {
+    private fun isClose(actual: Double, expected: Double) = abs(actual - expected) <= 1e-9
+
+    @Test
+    fun testDeviceFramesPerSec() {
+        val budget = CanBusBudget.getInstance()
+        budget.register("Test SparkMax", "Status0", 10.0)
+        budget.register("Test SparkMax", "Status1", 20.0)
+        budget.registerHz("Test TalonFX", "DutyCycle", 90.0)
+        assertTrue("10 ms and 20 ms frames add up", isClose(budget.getDeviceFramesPerSec("Test SparkMax"), 150.0))
+        assertTrue("Frequencies are counted as is", isClose(budget.getDeviceFramesPerSec("Test TalonFX"), 90.0))
+        assertEquals("Unknown devices send nothing", 0.0, budget.getDeviceFramesPerSec("Test Missing"))
+    }
+
+    @Test
+    fun testReregisterReplaces() {
+        val budget = CanBusBudget.getInstance()
+        budget.register("Test Talon", "Status_1_General", 10.0)
+        budget.register("Test Talon", "Status_1_General", 255.0)
+        assertTrue("The last period set wins", isClose(budget.getDeviceFramesPerSec("Test Talon"), 1000.0 / 255.0))
+    }
+
+    @Test
+    fun testUtilization() {
+        assertTrue("1000 frames per second take 12.8% of the bus", isClose(CanBusBudget.utilization(1000.0), 0.128))
+    }
+
+    @Test
+    fun testSparkMaxConfigsRegistersEveryFrame() {
+        HAL.initialize(500, 0)
+        val spark = CANSparkMax(51, CANSparkMaxLowLevel.MotorType.kBrushless)
+        try {
+            SparkMaxConfigs.configCanStatusFrames(spark)
+            assertTrue("All seven status frames are counted at the medium period",
+                isClose(CanBusBudget.getInstance().getDeviceFramesPerSec("SparkMax 51"), 7 * 1000.0 / SparkMaxConfigs.MEDIUM_CAN_FRAME))
+        } finally {
+            spark.close()
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package lib.utils.logging
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.littletonrobotics.junction.LogTable
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.test.junit5.JUnit5Asserter.assertEquals
+import kotlin.test.junit5.JUnit5Asserter.assertFalse
+import kotlin.test.junit5.JUnit5Asserter.assertTrue
+
+class MappedLogReplaySourceTests {
+    @TempDir
+    lateinit var directory: Path
+
+    private class LogBuilder {
+        private val out = ByteArrayOutputStream()
+
+        init {
+            out.write("WPILOG".toByteArray())
+            littleEndian(0x0100, 2)
+            littleEndian(12, 4)
+            out.write("AdvantageKit".toByteArray())
+        }
+
+        private fun littleEndian(value: Long, bytes: Int) {
+            for (i in 0 until bytes) {
+                out.write((value ushr (8 * i)).toInt() and 0xff)
+            }
+        }
+
+        private fun record(entry: Int, payload: ByteArray) {
+            // 1 byte entry id, 4 byte payload size, 8 byte timestamp
+            out.write(0 or (3 shl 2) or (7 shl 4))
+            littleEndian(entry.toLong(), 1)
+            littleEndian(payload.size.toLong(), 4)
+            littleEndian(0, 8)
+            out.write(payload)
+        }
+
+        private fun buffer(size: Int) = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN)
+
+        fun start(entry: Int, name: String, type: String) = apply {
+            val payload = buffer(17 + name.length + type.length)
+                .put(0.toByte()).putInt(entry)
+                .putInt(name.length).put(name.toByteArray())
+                .putInt(type.length).put(type.toByteArray())
+                .putInt(0)
+            record(0, payload.array())
+        }
+
+        fun long(entry: Int, value: Long) = apply { record(entry, buffer(8).putLong(value).array()) }
+
+        fun double(entry: Int, value: Double) = apply { record(entry, buffer(8).putDouble(value).array()) }
+
+        fun string(entry: Int, value: String) = apply { record(entry, value.toByteArray()) }
+
+        fun write(file: Path): Path = Files.write(file, out.toByteArray())
+    }
+
+    private fun cycles(file: Path, firstTimestamp: Long) = LogBuilder()
+        .start(1, "/Timestamp", "int64")
+        .start(2, "/RealOutputs/Value", "double")
+        .start(3, "/Mode", "string")
+        .long(1, firstTimestamp).double(2, 1.0).string(3, "Auto")
+        .long(1, firstTimestamp + 20_000).double(2, 2.0)
+        .long(1, firstTimestamp + 40_000).double(2, 3.0).string(3, "Teleop")
+        .write(file)
+
+    @Test
+    fun testDecodesEveryCycle() {
+        val source = MappedLogReplaySource(cycles(directory.resolve("replay.wpilog"), 0).toString())
+        source.start()
+        val table = LogTable(0)
+
+        assertTrue("The first cycle is read", source.updateTable(table))
+        assertEquals("First value", 1.0, table.getDouble("RealOutputs/Value", 0.0))
+        assertEquals("First string", "Auto", table.getString("Mode", ""))
+        assertTrue("The second cycle is read", source.updateTable(table))
+        assertEquals("Second timestamp", 20_000L, table.timestamp)
+        assertEquals("Second value", 2.0, table.getDouble("RealOutputs/Value", 0.0))
+        assertFalse("The last cycle ends the log", source.updateTable(table))
+        assertEquals("Last value", 3.0, table.getDouble("RealOutputs/Value", 0.0))
+        assertEquals("Last string", "Teleop", table.getString("Mode", ""))
+        assertEquals("Every record is counted", 11L, source.recordCount)
+        source.end()
+    }
+
+    @Test
+    fun testSessionSegmentsReplayAsOneLog() {
+        val first = cycles(directory.resolve("helios_20230401_120000_000.wpilog"), 0)
+        cycles(directory.resolve("helios_20230401_120000_001_match.wpilog"), 60_000)
+        cycles(directory.resolve("helios_20230401_130000_000.wpilog"), 1_000_000)
+
+        val source = MappedLogReplaySource.forSession(first.toString())
+        source.start()
+        val table = LogTable(0)
+        var cycles = 0
+        while (source.updateTable(table)) {
+            cycles++
+        }
+        assertEquals("Both segments of the session are replayed", 5, cycles)
+        assertEquals("The replay ends at the last segment", 100_000L, table.timestamp)
+        source.end()
+    }
+}
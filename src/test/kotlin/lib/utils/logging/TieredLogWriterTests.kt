@@ -0,0 +1,124 @@
+package lib.utils.logging
+
+import edu.wpi.first.hal.HAL
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.littletonrobotics.junction.LogTable
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.test.junit5.JUnit5Asserter.assertEquals
+import kotlin.test.junit5.JUnit5Asserter.assertTrue
+
+class TieredLogWriterTests {
+    @TempDir
+    lateinit var directory: Path
+
+    private val ram get() = directory.resolve("ram")
+    private val usb get() = directory.resolve("usb")
+
+    @BeforeEach
+    fun setup() {
+        // DriverStation is asked whether the FMS is attached
+        HAL.initialize(500, 0)
+    }
+
+    private var timestamp = 0L
+
+    companion object {
+        // Generous so a loaded build machine doesn't fail the tests, they finish as soon as the condition holds
+        private const val TIMEOUT_MS = 10_000L
+    }
+
+    // A 1 byte segment is full at the first size check that sees anything in the RAM file
+    private fun writer() = TieredLogWriter(ram.toString(), usb.toString(), 1, Long.MAX_VALUE)
+
+    private fun putCycles(writer: TieredLogWriter, cycles: Int) {
+        for (i in 0 until cycles) {
+            timestamp += 20_000
+            val table = LogTable(timestamp)
+            table.put("Value", timestamp)
+            writer.putLog(table)
+        }
+    }
+
+    /**
+     * Logs until the segment rolls over. Each poll runs one size check, which only sees the cycles once
+     * the DataLog thread has written them to the RAM file.
+     */
+    private fun fillSegment(writer: TieredLogWriter) {
+        val segments = writer.segmentCount
+        assertTrue("The segment fills up", waitFor {
+            putCycles(writer, TieredLogWriter.SIZE_CHECK_CYCLES)
+            writer.segmentCount > segments
+        })
+    }
+
+    private fun logs(folder: Path): List<String> =
+        Files.list(folder).use { files -> files.iterator().asSequence().map { it.fileName.toString() }.sorted().toList() }
+
+    private fun waitFor(condition: () -> Boolean): Boolean {
+        val deadline = System.currentTimeMillis() + TIMEOUT_MS
+        while (!condition()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false
+            }
+            Thread.sleep(20)
+        }
+        return true
+    }
+
+    @Test
+    fun testSegmentRollOver() {
+        val writer = writer()
+        writer.start()
+        // Two full segments, and a third that is closed by end()
+        fillSegment(writer)
+        fillSegment(writer)
+        putCycles(writer, 10)
+        writer.end()
+
+        val session = writer.sessionName
+        assertEquals("Every segment is on the stick", listOf("${session}_000.wpilog", "${session}_001.wpilog", "${session}_002.wpilog"), logs(usb))
+        assertEquals("Nothing is left in RAM", emptyList<String>(), logs(ram))
+        for (log in logs(usb)) {
+            assertTrue("$log opens on its own", String(Files.readAllBytes(usb.resolve(log)), Charsets.US_ASCII).startsWith("WPILOG"))
+        }
+    }
+
+    @Test
+    fun testFailedCopyIsRetried() {
+        val writer = writer()
+        // A directory where the first segment goes makes its copy fail
+        val blocked = Files.createDirectories(usb.resolve("${writer.sessionName}_000.wpilog"))
+        writer.start()
+        fillSegment(writer)
+        putCycles(writer, 10)
+
+        val ramSegment = ram.resolve("${writer.sessionName}_000.wpilog")
+        assertTrue("The failed segment is counted as pending", waitFor { writer.pendingBytes >= Files.size(ramSegment) })
+        assertTrue("The failed segment stays in RAM", Files.exists(ramSegment))
+        val size = Files.size(ramSegment)
+
+        Files.delete(blocked)
+        assertTrue("The segment is copied once the stick takes it", waitFor { !Files.exists(ramSegment) })
+        assertEquals("The whole segment is on the stick", size, Files.size(usb.resolve("${writer.sessionName}_000.wpilog")))
+
+        writer.end()
+        assertEquals("Nothing is left in RAM", emptyList<String>(), logs(ram))
+        assertEquals("Both segments are on the stick", 2, logs(usb).size)
+    }
+
+    @Test
+    fun testMissingStickBuffersNothing() {
+        // A file where the stick should be mounted makes the USB directory impossible to create
+        Files.createFile(directory.resolve("stick"))
+        val writer = TieredLogWriter(ram.toString(), directory.resolve("stick").resolve("logs").toString(), 1, Long.MAX_VALUE)
+        assertTrue("The stick is found missing when the writer is made", !writer.isUsbWritable)
+
+        writer.start()
+        putCycles(writer, 100)
+        writer.end()
+        assertTrue("Nothing was written to RAM", !Files.exists(ram))
+    }
+}
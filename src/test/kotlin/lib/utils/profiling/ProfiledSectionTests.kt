@@ -0,0 +1,37 @@
+package lib.utils.profiling
+
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.junit.jupiter.api.Test
+import kotlin.test.junit5.JUnit5Asserter.assertEquals
+import kotlin.test.junit5.JUnit5Asserter.assertTrue
+
+class ProfiledSectionTests {
+    private var sink: LongArray? = null
+
+    @Test
+    fun testAllocationIsCounted() {
+        assumeTrue(AllocationMeter.isSupported())
+        val section = LoopProfiler.getInstance().registerSection("Tests/Allocating")
+
+        section.begin()
+        sink = LongArray(1024)
+        section.end()
+        section.finishCycle()
+
+        assertTrue("Array allocation should be counted", section.lastCycleAllocatedBytes >= 8 * 1024)
+    }
+
+    @Test
+    fun testRunsInOneCycleAddUp() {
+        val section = LoopProfiler.getInstance().registerSection("Tests/TwoRuns")
+
+        section.begin()
+        section.end()
+        section.begin()
+        section.end()
+
+        assertTrue("Section ran this cycle", section.finishCycle())
+        assertEquals("Two runs in a cycle are one sample", 1L, section.histogram.totalSamples)
+        assertTrue("Nothing ran since the last cycle", !section.finishCycle())
+    }
+}
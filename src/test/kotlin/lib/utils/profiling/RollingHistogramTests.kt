@@ -0,0 +1,53 @@
+package lib.utils.profiling
+
+import org.junit.jupiter.api.Test
+import kotlin.math.abs
+import kotlin.test.junit5.JUnit5Asserter.assertEquals
+import kotlin.test.junit5.JUnit5Asserter.assertTrue
+
+class RollingHistogramTests {
+    private fun millisToNanos(millis: Double) = (millis * 1.0e6).toLong()
+
+    private fun isClose(actual: Double, expected: Double) = abs(actual - expected) <= expected * 0.04
+
+    @Test
+    fun testPercentiles() {
+        val histogram = RollingHistogram(100)
+        for (i in 1..100) {
+            histogram.record(millisToNanos(i.toDouble()))
+        }
+        assertTrue("p50 should be close to 50 ms", isClose(histogram.getPercentileMs(0.5), 50.0))
+        assertTrue("p99 should be close to 99 ms", isClose(histogram.getPercentileMs(0.99), 99.0))
+        assertEquals("Max is exact", 100.0, histogram.maxMs)
+        assertEquals("Last is exact", 100.0, histogram.lastMs)
+    }
+
+    @Test
+    fun testSmallSamples() {
+        val histogram = RollingHistogram(10)
+        histogram.record(20_000)
+        assertTrue("Microsecond samples keep their resolution", isClose(histogram.getPercentileMs(0.5), 0.0205))
+    }
+
+    @Test
+    fun testWindowEviction() {
+        val histogram = RollingHistogram(10)
+        for (i in 1..10) {
+            histogram.record(millisToNanos(40.0))
+        }
+        for (i in 1..10) {
+            histogram.record(millisToNanos(2.0))
+        }
+        assertEquals("Window only holds the newest samples", 10, histogram.sampleCount)
+        assertTrue("p99 drops once old samples leave the window", isClose(histogram.getPercentileMs(0.99), 2.0))
+        assertEquals("Rolling max drops once old samples leave the window", 2.0, histogram.maxMs)
+        assertEquals("All time max is kept", 40.0, histogram.allTimeMaxMs)
+        assertEquals("Total samples counts evicted samples", 20L, histogram.totalSamples)
+    }
+
+    @Test
+    fun testEmptyHistogram() {
+        val histogram = RollingHistogram(10)
+        assertEquals("Empty histogram reports zero", 0.0, histogram.getPercentileMs(0.99))
+    }
+}
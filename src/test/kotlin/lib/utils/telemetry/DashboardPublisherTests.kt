@@ -0,0 +1,90 @@
+package lib.utils.telemetry
+
+import edu.wpi.first.networktables.NetworkTableInstance
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import kotlin.test.junit5.JUnit5Asserter.assertEquals
+
+class DashboardPublisherTests {
+    private lateinit var instance: NetworkTableInstance
+    private lateinit var publisher: DashboardPublisher
+
+    @BeforeEach
+    fun setup() {
+        instance = NetworkTableInstance.create()
+        publisher = DashboardPublisher(instance.getTable("SmartDashboard"))
+    }
+
+    @AfterEach
+    fun shutdown() {
+        instance.close()
+    }
+
+    @Test
+    fun testUnchangedValuesAreDropped() {
+        assumeTrue(Telemetry.COMPETITION)
+        val entry = publisher.number("Test Number", TelemetryLevel.COMPETITION)
+        val subscriber = instance.getTable("SmartDashboard").getDoubleTopic("Test Number").subscribe(-1.0)
+
+        entry.set(2.0)
+        assertEquals("First value is sent", 1, publisher.flush())
+        assertEquals("Subscriber sees the value", 2.0, subscriber.get())
+
+        entry.set(2.0)
+        entry.set(2.0)
+        assertEquals("Same value isn't sent again", 0, publisher.flush())
+        assertEquals("Both sets were dropped", 2L, publisher.droppedCount)
+
+        entry.set(3.0)
+        assertEquals("Changed value is sent", 1, publisher.flush())
+        assertEquals("Subscriber sees the new value", 3.0, subscriber.get())
+    }
+
+    @Test
+    fun testArrayIsSentWhole() {
+        assumeTrue(Telemetry.COMPETITION)
+        val entry = publisher.array("Test Array", 4, TelemetryLevel.COMPETITION)
+        val subscriber = instance.getTable("SmartDashboard").getDoubleArrayTopic("Test Array").subscribe(DoubleArray(0))
+
+        for (i in 0 until 4) {
+            entry.put(i, i.toDouble())
+        }
+        entry.commit(1234)
+        assertEquals("The array is one value", 1, publisher.flush())
+        assertEquals("Subscriber sees every element", listOf(0.0, 1.0, 2.0, 3.0), subscriber.get().toList())
+        assertEquals("The commit timestamp is kept", 1234L, subscriber.atomic.timestamp)
+
+        entry.put(2, 2.0)
+        entry.commit(5678)
+        assertEquals("Unchanged array isn't sent again", 0, publisher.flush())
+    }
+
+    @Test
+    fun testDisabledLevelCreatesNoTopic() {
+        assumeTrue(!Telemetry.VERBOSE)
+        val entry = publisher.number("Verbose Number", TelemetryLevel.VERBOSE)
+        entry.set(1.0)
+
+        assertEquals("Nothing to flush", 0, publisher.flush())
+        assertEquals("No topic was made", false, instance.getTable("SmartDashboard").containsKey("Verbose Number"))
+    }
+
+    @Test
+    fun testOnlyChangedEntriesArePublished() {
+        assumeTrue(Telemetry.COMPETITION)
+        val entries = Array(50) { publisher.number("Cycle Number $it", TelemetryLevel.COMPETITION) }
+
+        entries.forEachIndexed { i, entry -> entry.set(i.toDouble()) }
+        assertEquals("Every new value is sent", entries.size, publisher.flush())
+
+        entries.forEachIndexed { i, entry -> entry.set(i.toDouble()) }
+        assertEquals("A cycle with nothing new sends nothing", 0, publisher.flush())
+        assertEquals("Every unchanged set was dropped", entries.size.toLong(), publisher.droppedCount)
+
+        entries[7].set(-1.0)
+        assertEquals("Only the changed entry is sent", 1, publisher.flush())
+        assertEquals("Nothing is left to send", 0, publisher.flush())
+    }
+}
@@ -0,0 +1,55 @@
+package lib.utils.telemetry
+
+import org.junit.jupiter.api.Test
+import kotlin.test.junit5.JUnit5Asserter.assertEquals
+import kotlin.test.junit5.JUnit5Asserter.assertNull
+import kotlin.test.junit5.JUnit5Asserter.assertTrue
+
+class SnapshotExchangerTests {
+    private class Snapshot {
+        var sequence = 0L
+        var copy = 0L
+    }
+
+    @Test
+    fun testNothingPublished() {
+        val exchanger = SnapshotExchanger(::Snapshot)
+        assertNull("Nothing has been published yet", exchanger.acquire())
+    }
+
+    @Test
+    fun testLatestSnapshotWins() {
+        val exchanger = SnapshotExchanger(::Snapshot)
+        for (i in 1L..3L) {
+            exchanger.writeBuffer.sequence = i
+            exchanger.publish()
+        }
+        assertEquals("Only the latest snapshot is read", 3L, exchanger.acquire()!!.sequence)
+        assertNull("A snapshot is only read once", exchanger.acquire())
+    }
+
+    @Test
+    fun testConcurrentSnapshotsAreNeverTorn() {
+        val exchanger = SnapshotExchanger(::Snapshot)
+        val writes = 200_000L
+        val writer = Thread {
+            for (i in 1L..writes) {
+                val snapshot = exchanger.writeBuffer
+                snapshot.sequence = i
+                snapshot.copy = i
+                exchanger.publish()
+            }
+        }
+        writer.start()
+
+        var last = 0L
+        while (writer.isAlive || last < writes) {
+            val snapshot = exchanger.acquire() ?: continue
+            assertEquals("Snapshot fields are from the same write", snapshot.sequence, snapshot.copy)
+            assertTrue("Snapshots arrive in order", snapshot.sequence > last)
+            last = snapshot.sequence
+        }
+        writer.join()
+        assertEquals("The last write is read", writes, last)
+    }
+}
@@ -0,0 +1,51 @@
+package lib.utils.telemetry
+
+import edu.wpi.first.math.geometry.Pose2d
+import edu.wpi.first.math.geometry.Rotation2d
+import org.junit.jupiter.api.Test
+import kotlin.test.junit5.JUnit5Asserter.assertEquals
+import kotlin.test.junit5.JUnit5Asserter.assertTrue
+
+class ThrottledField2dTests {
+    private fun pose(x: Double, degrees: Double = 0.0) = Pose2d(x, 0.0, Rotation2d.fromDegrees(degrees))
+
+    private fun waitFor(condition: () -> Boolean): Boolean {
+        val deadline = System.currentTimeMillis() + 10_000
+        while (!condition()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false
+            }
+            Thread.sleep(5)
+        }
+        return true
+    }
+
+    @Test
+    fun testSmallMovesWaitForTheThreshold() {
+        val field = ThrottledField2d("Test Field Threshold", TelemetryBudget.UNLIMITED_RATE, 0.1, 5.0, 1000.0)
+        assertTrue("The first pose is sent", field.setRobotPose(pose(0.0)))
+        assertTrue("A move under the threshold isn't sent", !field.setRobotPose(pose(0.05, 2.0)))
+        assertEquals("The field keeps the last pose sent", 0.0, field.field.robotPose.x)
+
+        assertTrue("A move past the threshold is sent", field.setRobotPose(pose(0.2)))
+        assertTrue("A turn past the threshold is sent", field.setRobotPose(pose(0.2, 10.0)))
+        assertEquals("The field shows the last pose sent", 10.0, field.field.robotPose.rotation.degrees)
+    }
+
+    @Test
+    fun testRefreshSendsSmallMoves() {
+        val field = ThrottledField2d("Test Field Refresh", TelemetryBudget.UNLIMITED_RATE, 0.1, 5.0, 0.05)
+        assertTrue("The first pose is sent", field.setRobotPose(pose(0.0)))
+        assertTrue("A small move is sent once the refresh is due", waitFor { field.setRobotPose(pose(0.05)) })
+        assertEquals("The field shows the small move", 0.05, field.field.robotPose.x)
+    }
+
+    @Test
+    fun testBudgetLimitsTheRate() {
+        // One pose every 100 seconds
+        val field = ThrottledField2d("Test Field Budget", 0.01, 0.1, 5.0, 0.0)
+        assertTrue("The first pose is sent", field.setRobotPose(pose(0.0)))
+        assertTrue("A big move waits for the budget", !field.setRobotPose(pose(5.0)))
+        assertEquals("The field keeps the last pose sent", 0.0, field.field.robotPose.x)
+    }
+}